@@ -3,6 +3,7 @@ package com.kitly.saas.billing.webhook;
 import com.kitly.saas.config.StripeConfig;
 import com.kitly.saas.entity.*;
 import com.kitly.saas.entitlement.EntitlementService;
+import com.kitly.saas.entitlement.listener.EntitlementVersionBumpEvent;
 import com.kitly.saas.repository.InvoiceRepository;
 import com.kitly.saas.repository.SubscriptionRepository;
 import com.kitly.saas.repository.TenantRepository;
@@ -10,6 +11,7 @@ import com.kitly.saas.repository.WebhookInboxRepository;
 import com.kitly.saas.common.outbox.OutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -52,6 +54,7 @@ public class WebhookProcessor {
     private final EntitlementService entitlementService;
     private final OutboxService outboxService;
     private final StripeConfig stripeConfig;
+    private final ApplicationEventPublisher eventPublisher;
 
     public WebhookProcessor(
             WebhookInboxRepository webhookInboxRepository,
@@ -60,7 +63,8 @@ public class WebhookProcessor {
             InvoiceRepository invoiceRepository,
             EntitlementService entitlementService,
             OutboxService outboxService,
-            StripeConfig stripeConfig) {
+            StripeConfig stripeConfig,
+            ApplicationEventPublisher eventPublisher) {
         this.webhookInboxRepository = webhookInboxRepository;
         this.subscriptionRepository = subscriptionRepository;
         this.tenantRepository = tenantRepository;
@@ -68,6 +72,7 @@ public class WebhookProcessor {
         this.entitlementService = entitlementService;
         this.outboxService = outboxService;
         this.stripeConfig = stripeConfig;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -186,6 +191,8 @@ public class WebhookProcessor {
         Optional<Subscription> existingSubscription = subscriptionRepository
                 .findByTenantIdAndStatus(tenantId, Subscription.SubscriptionStatus.ACTIVE);
         
+        List<Object> previousFields = existingSubscription.map(WebhookProcessor::entitlementFields).orElse(null);
+        
         Subscription subscription = existingSubscription.orElseGet(() -> {
             Subscription newSub = new Subscription();
             newSub.setTenant(tenant);
@@ -229,10 +236,16 @@ public class WebhookProcessor {
             }
         }
         
-        subscriptionRepository.save(subscription);
+        subscription = subscriptionRepository.save(subscription);
+        
+        // Recompute entitlements; only an active subscription has plan entitlements to sync
+        boolean synced = isActive(subscription) && entitlementService.syncEntitlements(tenantId);
         
-        // Recompute entitlements
-        entitlementService.syncEntitlements(tenantId);
+        // Status or seat changes alter the entitlement response without touching a plan row,
+        // so bump the version for those too unless the sync already did
+        if (!synced && !entitlementFields(subscription).equals(previousFields)) {
+            eventPublisher.publishEvent(new EntitlementVersionBumpEvent(tenantId));
+        }
 
         // Publish outbox event
         Map<String, Object> eventPayload = new HashMap<>();
@@ -245,6 +258,19 @@ public class WebhookProcessor {
         logger.info("Updated subscription for tenant: {}", tenantId);
     }
     
+    private static boolean isActive(Subscription subscription) {
+        return subscription.getStatus() == Subscription.SubscriptionStatus.ACTIVE
+                || subscription.getStatus() == Subscription.SubscriptionStatus.TRIALING;
+    }
+    
+    /**
+     * Subscription fields that feed into the entitlement response or its validity period
+     */
+    private static List<Object> entitlementFields(Subscription subscription) {
+        return Arrays.asList(subscription.getPlan(), subscription.getStatus(), subscription.getMaxSeats(),
+                subscription.getEndsAt(), subscription.getTrialEndsAt(), subscription.getCancelledAt());
+    }
+    
     private void handleSubscriptionDeleted(WebhookInbox webhook) {
         handleSubscriptionChange(webhook);
     }
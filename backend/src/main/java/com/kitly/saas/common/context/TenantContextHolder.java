@@ -1,10 +1,16 @@
 package com.kitly.saas.common.context;
 
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 /**
  * Thread-local storage for tenant context information.
  * Used to maintain tenant isolation in multi-tenant operations.
+ *
+ * <p>Reads never allocate or write the thread-local. Work handed to other threads
+ * (executors, {@code @Async}, virtual threads) does not inherit the context; capture it with
+ * {@link #snapshot()} and bind it there with {@link #runWith}/{@link #callWith}, which restore
+ * the previous binding afterwards (the same bounded-scope model as {@code ScopedValue}).
  */
 public class TenantContextHolder {
     
@@ -18,26 +24,74 @@ public class TenantContextHolder {
         contextHolder.set(context);
     }
     
+    /**
+     * Current context, or an empty detached context if none is bound.
+     * Mutating the returned empty context does not bind it; use {@link #setTenantId} for that.
+     */
     public static TenantContext getContext() {
         TenantContext context = contextHolder.get();
-        if (context == null) {
-            context = new TenantContext();
-            contextHolder.set(context);
-        }
-        return context;
+        return context != null ? context : new TenantContext();
     }
     
     public static UUID getTenantId() {
-        TenantContext context = getContext();
+        TenantContext context = contextHolder.get();
         return context != null ? context.getTenantId() : null;
     }
     
     public static void setTenantId(UUID tenantId) {
-        TenantContext context = getContext();
+        TenantContext context = contextHolder.get();
+        if (context == null) {
+            context = new TenantContext();
+            contextHolder.set(context);
+        }
         context.setTenantId(tenantId);
     }
     
+    /**
+     * Copy of the current context for handing to another thread, or null if none is bound.
+     */
+    public static TenantContext snapshot() {
+        TenantContext context = contextHolder.get();
+        return context != null
+                ? new TenantContext(context.getTenantId(), context.getTenantSlug(), context.getUserId())
+                : null;
+    }
+    
+    /**
+     * Run a task with the given context bound, restoring the previous binding afterwards.
+     */
+    public static void runWith(TenantContext context, Runnable task) {
+        TenantContext previous = contextHolder.get();
+        bind(context);
+        try {
+            task.run();
+        } finally {
+            bind(previous);
+        }
+    }
+    
+    /**
+     * Call a task with the given context bound, restoring the previous binding afterwards.
+     */
+    public static <T> T callWith(TenantContext context, Callable<T> task) throws Exception {
+        TenantContext previous = contextHolder.get();
+        bind(context);
+        try {
+            return task.call();
+        } finally {
+            bind(previous);
+        }
+    }
+    
     public static void clear() {
         contextHolder.remove();
     }
+    
+    private static void bind(TenantContext context) {
+        if (context != null) {
+            contextHolder.set(context);
+        } else {
+            contextHolder.remove();
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.kitly.saas.common.context;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Carries the submitting thread's tenant context and security context into executor tasks.
+ * Each task gets its own copy of the tenant context, bound only while it runs, so pooled
+ * and virtual threads never see another request's tenant.
+ */
+public class TenantContextTaskDecorator implements TaskDecorator {
+    
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        TenantContext tenantContext = TenantContextHolder.snapshot();
+        Runnable withTenant = () -> TenantContextHolder.runWith(tenantContext, runnable);
+        return new DelegatingSecurityContextRunnable(withTenant, SecurityContextHolder.getContext());
+    }
+}
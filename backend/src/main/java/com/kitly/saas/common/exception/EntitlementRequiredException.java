@@ -0,0 +1,19 @@
+package com.kitly.saas.common.exception;
+
+/**
+ * Exception thrown when the current tenant lacks an entitlement an endpoint requires.
+ * Maps to 403 with code {@code ENTITLEMENT_REQUIRED} and the missing key in the details.
+ */
+public class EntitlementRequiredException extends RuntimeException {
+    
+    private final String entitlementKey;
+    
+    public EntitlementRequiredException(String entitlementKey) {
+        super("Current plan does not include " + entitlementKey);
+        this.entitlementKey = entitlementKey;
+    }
+    
+    public String getEntitlementKey() {
+        return entitlementKey;
+    }
+}
@@ -0,0 +1,21 @@
+package com.kitly.saas.common.exception;
+
+import java.util.UUID;
+
+/**
+ * The tenant has no ACTIVE or TRIALING subscription, e.g. because it is past due or
+ * cancelled, so there are no plan entitlements to compute.
+ */
+public class NoActiveSubscriptionException extends ResourceNotFoundException {
+    
+    private final UUID tenantId;
+    
+    public NoActiveSubscriptionException(UUID tenantId) {
+        super("No active subscription found");
+        this.tenantId = tenantId;
+    }
+    
+    public UUID getTenantId() {
+        return tenantId;
+    }
+}
@@ -0,0 +1,31 @@
+package com.kitly.saas.common.exception;
+
+/**
+ * Exception thrown when a bounded resource (e.g. the password hashing pool) is saturated.
+ * Clients are told to retry after a short delay instead of queueing indefinitely.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    
+    private final boolean rejected;
+    private final long retryAfterSeconds;
+    
+    /**
+     * @param message Error message
+     * @param rejected True if the work was rejected up front (429), false if it was queued
+     *                 but could not be served in time (503)
+     * @param retryAfterSeconds Suggested client back-off
+     */
+    public ServiceOverloadedException(String message, boolean rejected, long retryAfterSeconds) {
+        super(message);
+        this.rejected = rejected;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public boolean isRejected() {
+        return rejected;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,391 @@
+package com.kitly.saas.common.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cluster-wide invalidation of node-local caches over Postgres {@code LISTEN/NOTIFY}.
+ *
+ * <p>{@link #publish(String, String)} names a changed key of a topic. It is sent once the change
+ * has committed, together with everything else published within
+ * {@code coalesce-window}, as one {@code pg_notify} round trip with each key once. Every other
+ * node receives it on a dedicated listening connection, coalesces what arrives within the same
+ * window, and hands each topic's keys to its {@link InvalidationHandler}s in one call.
+ *
+ * <p>Notifications are not persisted: anything sent while a node was not listening is lost. So
+ * after every (re)connect all handlers are told to {@link InvalidationHandler#invalidateAll()
+ * invalidate everything}. Caches keep their TTLs as a last line of defence, e.g. against a node
+ * that dies between its commit and the notification.
+ */
+@Component
+public class InvalidationBus implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationBus.class);
+
+    static final String CHANNEL = "kitly_invalidation";
+
+    /**
+     * Key that invalidates every entry of a topic
+     */
+    public static final String ALL_KEYS = "*";
+
+    // Postgres rejects payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_BYTES = 7000;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 60000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Supplier<List<InvalidationHandler>> handlerSupplier;
+    private final boolean enabled;
+    private final long coalesceMillis;
+    private final long pollMillis;
+    private final long reconnectMillis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ScheduledExecutorService sender;
+
+    // Keys waiting to be sent, by topic; also guards sendScheduled
+    private final Map<String, Set<String>> outgoing = new HashMap<>();
+    private boolean sendScheduled;
+
+    private volatile Map<String, List<InvalidationHandler>> handlers = Map.of();
+    private volatile boolean running;
+    private volatile boolean connected;
+    private Thread listener;
+
+    @Autowired
+    public InvalidationBus(DataSource dataSource,
+                           ObjectMapper objectMapper,
+                           ObjectProvider<InvalidationHandler> handlerProvider,
+                           MeterRegistry meterRegistry,
+                           @Value("${cluster.invalidation.enabled:true}") boolean enabled,
+                           @Value("${cluster.invalidation.coalesce-window:50}") long coalesceMillis,
+                           @Value("${cluster.invalidation.poll-interval:10000}") long pollMillis,
+                           @Value("${cluster.invalidation.reconnect-delay:1000}") long reconnectMillis) {
+        this(dataSource, objectMapper, () -> handlerProvider.orderedStream().toList(), enabled,
+                coalesceMillis, pollMillis, reconnectMillis);
+        meterRegistry.gauge("invalidation.bus.connected", this, bus -> bus.connected ? 1 : 0);
+    }
+
+    InvalidationBus(DataSource dataSource, ObjectMapper objectMapper,
+                    Supplier<List<InvalidationHandler>> handlerSupplier, boolean enabled,
+                    long coalesceMillis, long pollMillis, long reconnectMillis) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.handlerSupplier = handlerSupplier;
+        this.enabled = enabled;
+        this.coalesceMillis = coalesceMillis;
+        this.pollMillis = pollMillis;
+        this.reconnectMillis = reconnectMillis;
+        this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-bus-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Tell the other nodes that a key of a topic has changed. Call once the change has
+     * committed, e.g. from an after-commit listener; see {@link #publishAfterCommit}.
+     *
+     * @param topic Topic of the handlers to notify
+     * @param key Changed key, or {@link #ALL_KEYS}
+     */
+    public void publish(String topic, String key) {
+        if (enabled) {
+            enqueue(topic, key);
+        }
+    }
+
+    /**
+     * Like {@link #publish}, but deferred until the current transaction commits, if there is one.
+     */
+    public void publishAfterCommit(String topic, String key) {
+        if (enabled && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(topic, key);
+                }
+            });
+        } else {
+            publish(topic, key);
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void start() {
+        handlers = groupByTopic(handlerSupplier.get());
+        if (!enabled) {
+            logger.info("Cluster cache invalidation is disabled");
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "invalidation-bus-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        sender.shutdown();
+        try {
+            sender.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void enqueue(String topic, String key) {
+        synchronized (outgoing) {
+            outgoing.computeIfAbsent(topic, t -> new HashSet<>()).add(key);
+            if (sendScheduled) {
+                return;
+            }
+            sendScheduled = true;
+        }
+        schedule(coalesceMillis);
+    }
+
+    private void schedule(long delayMillis) {
+        try {
+            sender.schedule(this::send, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the other nodes will resync when they notice
+            synchronized (outgoing) {
+                sendScheduled = false;
+            }
+        }
+    }
+
+    private void send() {
+        Map<String, Set<String>> batch;
+        synchronized (outgoing) {
+            batch = new HashMap<>(outgoing);
+            outgoing.clear();
+        }
+
+        try {
+            List<String> payloads = encode(batch);
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT pg_notify(?, payload) FROM unnest(?) AS payload")) {
+                    statement.setString(1, CHANNEL);
+                    statement.setArray(2, connection.createArrayOf("text", payloads.toArray()));
+                    statement.execute();
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to send cache invalidations, retrying in {} ms: {}", reconnectMillis, e.getMessage());
+            synchronized (outgoing) {
+                batch.forEach((topic, keys) -> outgoing.computeIfAbsent(topic, t -> new HashSet<>()).addAll(keys));
+            }
+            schedule(reconnectMillis);
+            return;
+        }
+
+        synchronized (outgoing) {
+            if (outgoing.isEmpty()) {
+                sendScheduled = false;
+                return;
+            }
+        }
+        // Published while this batch was being sent
+        schedule(coalesceMillis);
+    }
+
+    /**
+     * One payload per topic, split so that none exceeds the limit of {@code NOTIFY}
+     */
+    List<String> encode(Map<String, Set<String>> batch) {
+        List<String> payloads = new ArrayList<>();
+        batch.forEach((topic, keys) -> {
+            Collection<String> remaining = keys.contains(ALL_KEYS) ? List.of(ALL_KEYS) : keys;
+            List<String> chunk = new ArrayList<>();
+            int size = nodeId.length() + topic.length() + 64;
+            for (String key : remaining) {
+                int keySize = key.getBytes(StandardCharsets.UTF_8).length + 3;
+                if (!chunk.isEmpty() && size + keySize > MAX_PAYLOAD_BYTES) {
+                    payloads.add(write(new Message(nodeId, topic, chunk)));
+                    chunk = new ArrayList<>();
+                    size = nodeId.length() + topic.length() + 64;
+                }
+                chunk.add(key);
+                size += keySize;
+            }
+            payloads.add(write(new Message(nodeId, topic, chunk)));
+        });
+        return payloads;
+    }
+
+    private String write(Message message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize invalidation", e);
+        }
+    }
+
+    private void listen() {
+        long delay = reconnectMillis;
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                connected = true;
+                delay = reconnectMillis;
+                if (reconnect) {
+                    logger.info("Cache invalidation listener reconnected, resyncing caches");
+                }
+                reconnect = true;
+                // Changes made on other nodes while this one was not listening were never delivered
+                invalidateAll();
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollMillis);
+                    if (notifications == null || notifications.length == 0) {
+                        // A half-open connection would otherwise wait forever
+                        if (!connection.isValid(5)) {
+                            throw new SQLException("Listening connection is no longer valid");
+                        }
+                        continue;
+                    }
+
+                    Map<String, Set<String>> batch = new HashMap<>();
+                    collect(notifications, batch);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(coalesceMillis);
+                    long remaining;
+                    while ((remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) > 0) {
+                        collect(pgConnection.getNotifications((int) remaining), batch);
+                    }
+                    dispatch(batch);
+                }
+            } catch (SQLException | RuntimeException e) {
+                connected = false;
+                if (!running) {
+                    break;
+                }
+                logger.warn("Cache invalidation listener lost its connection, reconnecting in {} ms: {}",
+                        delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                delay = Math.min(delay * 2, MAX_RECONNECT_DELAY_MILLIS);
+            }
+        }
+        connected = false;
+    }
+
+    void collect(PGNotification[] notifications, Map<String, Set<String>> batch) {
+        if (notifications == null) {
+            return;
+        }
+        for (PGNotification notification : notifications) {
+            Message message;
+            try {
+                message = objectMapper.readValue(notification.getParameter(), Message.class);
+            } catch (JsonProcessingException e) {
+                logger.warn("Ignoring malformed cache invalidation: {}", notification.getParameter());
+                continue;
+            }
+            if (!nodeId.equals(message.node()) && message.topic() != null && message.keys() != null) {
+                batch.computeIfAbsent(message.topic(), t -> new HashSet<>()).addAll(message.keys());
+            }
+        }
+    }
+
+    void dispatch(Map<String, Set<String>> batch) {
+        batch.forEach((topic, keys) -> {
+            for (InvalidationHandler handler : handlers.getOrDefault(topic, List.of())) {
+                try {
+                    if (keys.contains(ALL_KEYS)) {
+                        handler.invalidateAll();
+                    } else {
+                        handler.invalidate(keys);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Cache invalidation handler for topic {} failed", topic, e);
+                }
+            }
+        });
+    }
+
+    private void invalidateAll() {
+        for (List<InvalidationHandler> topicHandlers : handlers.values()) {
+            for (InvalidationHandler handler : topicHandlers) {
+                try {
+                    handler.invalidateAll();
+                } catch (RuntimeException e) {
+                    logger.error("Cache invalidation handler for topic {} failed to resync", handler.getTopic(), e);
+                }
+            }
+        }
+    }
+
+    private static Map<String, List<InvalidationHandler>> groupByTopic(List<InvalidationHandler> handlers) {
+        Map<String, List<InvalidationHandler>> byTopic = new HashMap<>();
+        for (InvalidationHandler handler : handlers) {
+            byTopic.computeIfAbsent(handler.getTopic(), t -> new ArrayList<>()).add(handler);
+        }
+        return byTopic;
+    }
+
+    /**
+     * Payload of one notification
+     */
+    record Message(String node, String topic, List<String> keys) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.kitly.saas.common.invalidation;
+
+import java.util.Set;
+
+/**
+ * Node-local cache that is kept coherent with the other nodes through the {@link InvalidationBus}.
+ *
+ * <p>Handlers only see changes made on other nodes: the node that made a change is expected to
+ * have updated its own cache already. Calls come from the bus's listener thread.
+ */
+public interface InvalidationHandler {
+
+    /**
+     * Topic this handler listens to, e.g. {@code principals}
+     */
+    String getTopic();
+
+    /**
+     * Drop or reload the entries for keys changed on another node.
+     * Keys of one topic arriving within the coalescing window are delivered together, once each.
+     */
+    void invalidate(Set<String> keys);
+
+    /**
+     * Drop or reload everything, after {@link InvalidationBus#ALL_KEYS} was published or the bus
+     * has reconnected and may have missed notifications.
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,385 @@
+package com.kitly.saas.common.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kitly.saas.entity.OutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transport that POSTs batches of events as JSON to HTTP webhook destinations.
+ *
+ * <p>Each batch is split by destination and sent in requests of up to {@code max-batch-size}
+ * events, in order. Different destinations are sent to in parallel. All requests share one
+ * {@link HttpClient}, so connections are kept alive and reused. Bodies of at least
+ * {@code compress-min-bytes} are gzip-compressed, and with a {@code signing-secret} every request
+ * carries an HMAC-SHA256 of the uncompressed body in {@value #SIGNATURE_HEADER}.
+ *
+ * <p>At most {@code max-concurrency} requests are in flight per destination on this node.
+ * Events for a destination that stays busy for longer than {@code request-timeout} are handed
+ * back to the outbox.
+ *
+ * <p>A destination acknowledges events with a 2xx response. An empty body accepts the whole
+ * request. Otherwise the body lists {@code accepted} event IDs and optionally {@code rejected}
+ * IDs with a reason. Events in neither list are sent again later. Other responses fail the whole
+ * request, and the rest of the batch is not sent to that destination.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.transport", havingValue = "http")
+public class HttpOutboxTransport implements OutboxTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpOutboxTransport.class);
+
+    public static final String SIGNATURE_HEADER = "X-Kitly-Signature";
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final HttpClient httpClient;
+    private final List<Destination> destinations;
+    private final Map<String, List<Destination>> routes;
+    private final int maxBatchSize;
+    private final int compressMinBytes;
+    private final Duration requestTimeout;
+    private final String signingSecret;
+    // Destinations per event type, resolved from the routes on first use
+    private final Map<String, List<Destination>> destinationsByType = new ConcurrentHashMap<>();
+
+    public HttpOutboxTransport(ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${outbox.http.destinations:}") String destinations,
+                               @Value("${outbox.http.routes:}") String routes,
+                               @Value("${outbox.http.max-batch-size:500}") int maxBatchSize,
+                               @Value("${outbox.http.max-concurrency:4}") int maxConcurrency,
+                               @Value("${outbox.http.compress-min-bytes:1024}") int compressMinBytes,
+                               @Value("${outbox.http.connect-timeout:2000}") long connectTimeoutMillis,
+                               @Value("${outbox.http.request-timeout:10000}") long requestTimeoutMillis,
+                               @Value("${outbox.http.signing-secret:}") String signingSecret) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = maxBatchSize;
+        this.compressMinBytes = compressMinBytes;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.signingSecret = signingSecret == null || signingSecret.isBlank() ? null : signingSecret;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+
+        // Format: name=url,name=url
+        Map<String, Destination> byName = new LinkedHashMap<>();
+        if (destinations != null && !destinations.isBlank()) {
+            for (String entry : destinations.split(",")) {
+                int separator = entry.indexOf('=');
+                if (separator <= 0 || separator == entry.length() - 1) {
+                    throw new IllegalStateException("Invalid outbox.http.destinations entry, expected name=url");
+                }
+                String name = entry.substring(0, separator).trim();
+                byName.put(name, new Destination(name, URI.create(entry.substring(separator + 1).trim()), maxConcurrency));
+            }
+        }
+        if (byName.isEmpty()) {
+            throw new IllegalStateException("outbox.transport=http requires outbox.http.destinations");
+        }
+        this.destinations = List.copyOf(byName.values());
+
+        // Format: EventType=name|name,PREFIX_*=name (no routes = every destination gets every event)
+        Map<String, List<Destination>> routeMap = new LinkedHashMap<>();
+        if (routes != null && !routes.isBlank()) {
+            for (String entry : routes.split(",")) {
+                int separator = entry.indexOf('=');
+                if (separator <= 0 || separator == entry.length() - 1) {
+                    throw new IllegalStateException("Invalid outbox.http.routes entry, expected eventType=name|name");
+                }
+                List<Destination> targets = new ArrayList<>();
+                for (String name : entry.substring(separator + 1).split("\\|")) {
+                    Destination destination = byName.get(name.trim());
+                    if (destination == null) {
+                        throw new IllegalStateException("outbox.http.routes refers to unknown destination: " + name.trim());
+                    }
+                    targets.add(destination);
+                }
+                routeMap.put(entry.substring(0, separator).trim(), targets);
+            }
+        }
+        this.routes = routeMap;
+    }
+
+    @Override
+    public Delivery send(List<OutboxEvent> events) {
+        Map<Destination, List<OutboxEvent>> routed = new LinkedHashMap<>();
+        Outcome outcome = new Outcome();
+        for (OutboxEvent event : events) {
+            List<Destination> targets = destinationsFor(event.getEventType());
+            if (targets.isEmpty()) {
+                // No consumer is interested in this event type
+                outcome.acknowledged.add(event.getId());
+                continue;
+            }
+            outcome.pending.put(event.getId(), new AtomicInteger(targets.size()));
+            for (Destination destination : targets) {
+                routed.computeIfAbsent(destination, key -> new ArrayList<>()).add(event);
+            }
+        }
+
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (Map.Entry<Destination, List<OutboxEvent>> entry : routed.entrySet()) {
+            Destination destination = entry.getKey();
+            if (!acquire(destination)) {
+                logger.warn("Outbox destination {} is busy, handing back {} events",
+                        destination.name, entry.getValue().size());
+                continue;
+            }
+            sends.add(sendFrom(destination, entry.getValue(), 0, outcome)
+                    .whenComplete((result, error) -> destination.permits.release()));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+
+        return new Delivery(Set.copyOf(outcome.acknowledged), Map.copyOf(outcome.failures));
+    }
+
+    /**
+     * HMAC-SHA256 signature of a request body as sent in {@value #SIGNATURE_HEADER}
+     */
+    public static String sign(String secret, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    List<Destination> destinationsFor(String eventType) {
+        return destinationsByType.computeIfAbsent(eventType, type -> {
+            if (routes.isEmpty()) {
+                return destinations;
+            }
+            Set<Destination> targets = new LinkedHashSet<>();
+            routes.forEach((pattern, routeTargets) -> {
+                boolean matches = pattern.endsWith("*")
+                        ? type.startsWith(pattern.substring(0, pattern.length() - 1))
+                        : type.equals(pattern);
+                if (matches) {
+                    targets.addAll(routeTargets);
+                }
+            });
+            return List.copyOf(targets);
+        });
+    }
+
+    private boolean acquire(Destination destination) {
+        try {
+            return destination.permits.tryAcquire(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Send the events from {@code offset} on in consecutive requests, stopping at the first
+     * request that fails or is only partly accepted so no later event overtakes it.
+     */
+    private CompletableFuture<Void> sendFrom(Destination destination, List<OutboxEvent> events, int offset,
+                                             Outcome outcome) {
+        if (offset >= events.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int end = Math.min(offset + maxBatchSize, events.size());
+        return sendRequest(destination, events.subList(offset, end), outcome)
+                .thenCompose(sent -> sent
+                        ? sendFrom(destination, events, end, outcome)
+                        : CompletableFuture.completedFuture(null));
+    }
+
+    private CompletableFuture<Boolean> sendRequest(Destination destination, List<OutboxEvent> events, Outcome outcome) {
+        HttpRequest request;
+        try {
+            request = buildRequest(destination, events);
+        } catch (IOException e) {
+            outcome.fail(events, new OutboxDeliveryException("Could not encode outbox events", e));
+            return CompletableFuture.completedFuture(false);
+        }
+
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    String result;
+                    boolean sent;
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        logger.warn("Sending {} outbox events to {} failed: {}",
+                                events.size(), destination.name, cause.toString());
+                        outcome.fail(events, new OutboxDeliveryException(
+                                "Sending to " + destination.name + " failed", cause));
+                        result = "error";
+                        sent = false;
+                    } else if (response.statusCode() / 100 == 2) {
+                        // Events left unacknowledged must not be overtaken by the next request either
+                        sent = acknowledge(destination, events, response.body(), outcome);
+                        result = sent ? "success" : "partial";
+                    } else {
+                        logger.warn("Outbox destination {} answered HTTP {} to {} events",
+                                destination.name, response.statusCode(), events.size());
+                        outcome.fail(events, new OutboxDeliveryException(
+                                destination.name + " answered HTTP " + response.statusCode()));
+                        result = "error";
+                        sent = false;
+                    }
+                    Timer.builder("outbox.http.requests")
+                            .tag("destination", destination.name)
+                            .tag("result", result)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return sent;
+                });
+    }
+
+    private HttpRequest buildRequest(Destination destination, List<OutboxEvent> events) throws IOException {
+        List<Map<String, Object>> messages = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("id", event.getId());
+            message.put("type", event.getEventType());
+            message.put("aggregateType", event.getAggregateType());
+            message.put("aggregateId", event.getAggregateId());
+            message.put("createdAt", event.getCreatedAt());
+            message.put("payload", event.getPayload());
+            messages.add(message);
+        }
+        byte[] json = objectMapper.writeValueAsBytes(Map.of("events", messages));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(destination.uri)
+                .version(destination.version)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json");
+        if (signingSecret != null) {
+            builder.header(SIGNATURE_HEADER, sign(signingSecret, json));
+        }
+        byte[] body = json;
+        if (json.length >= compressMinBytes) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            body = compressed.toByteArray();
+            builder.header("Content-Encoding", "gzip");
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    /**
+     * Record the events a 2xx response accepted.
+     *
+     * @return Whether all events of the request were accepted
+     */
+    private boolean acknowledge(Destination destination, List<OutboxEvent> events, String body, Outcome outcome) {
+        if (body == null || body.isBlank()) {
+            events.forEach(event -> outcome.acknowledge(event.getId()));
+            return true;
+        }
+        JsonNode response;
+        try {
+            response = objectMapper.readTree(body);
+        } catch (IOException e) {
+            outcome.fail(events, new OutboxDeliveryException("Unreadable response from " + destination.name, e));
+            return false;
+        }
+        JsonNode accepted = response.get("accepted");
+        if (accepted == null || !accepted.isArray()) {
+            events.forEach(event -> outcome.acknowledge(event.getId()));
+            return true;
+        }
+
+        Set<String> acceptedIds = new HashSet<>();
+        accepted.forEach(id -> acceptedIds.add(id.asText()));
+        JsonNode rejected = response.path("rejected");
+        int acknowledged = 0;
+        for (OutboxEvent event : events) {
+            String id = event.getId().toString();
+            if (acceptedIds.contains(id)) {
+                outcome.acknowledge(event.getId());
+                acknowledged++;
+            } else if (rejected.has(id)) {
+                outcome.fail(List.of(event), new OutboxDeliveryException(
+                        destination.name + " rejected the event: " + rejected.get(id).asText()));
+            }
+        }
+        return acknowledged == events.size();
+    }
+
+    /**
+     * A webhook endpoint with its own concurrency limit.
+     */
+    static final class Destination {
+        private final String name;
+        private final URI uri;
+        // HTTP/2 where it can be negotiated, so requests to one host share a connection
+        private final HttpClient.Version version;
+        private final Semaphore permits;
+
+        private Destination(String name, URI uri, int maxConcurrency) {
+            this.name = name;
+            this.uri = uri;
+            this.version = "https".equalsIgnoreCase(uri.getScheme())
+                    ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+    }
+
+    /**
+     * Results of one batch, filled in as the responses of its destinations arrive.
+     */
+    private static final class Outcome {
+        // Destinations per event that have yet to accept it
+        private final Map<UUID, AtomicInteger> pending = new ConcurrentHashMap<>();
+        private final Set<UUID> acknowledged = ConcurrentHashMap.newKeySet();
+        private final Map<UUID, Exception> failures = new ConcurrentHashMap<>();
+
+        private void acknowledge(UUID eventId) {
+            if (pending.get(eventId).decrementAndGet() == 0 && !failures.containsKey(eventId)) {
+                acknowledged.add(eventId);
+            }
+        }
+
+        private void fail(List<OutboxEvent> events, Exception cause) {
+            for (OutboxEvent event : events) {
+                failures.putIfAbsent(event.getId(), cause);
+            }
+        }
+    }
+}
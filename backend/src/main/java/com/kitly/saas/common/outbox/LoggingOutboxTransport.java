@@ -0,0 +1,37 @@
+package com.kitly.saas.common.outbox;
+
+import com.kitly.saas.entity.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Transport that only logs events, for local development and deployments without consumers.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.transport", havingValue = "log", matchIfMissing = true)
+public class LoggingOutboxTransport implements OutboxTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingOutboxTransport.class);
+
+    @Override
+    public Delivery send(List<OutboxEvent> events) {
+        Set<UUID> acknowledged = new HashSet<>();
+        for (OutboxEvent event : events) {
+            logger.info("OUTBOX EVENT [{}] - Aggregate: {}/{}, Payload: {}",
+                    event.getEventType(),
+                    event.getAggregateType(),
+                    event.getAggregateId(),
+                    event.getPayload());
+            acknowledged.add(event.getId());
+        }
+        return new Delivery(acknowledged, Map.of());
+    }
+}
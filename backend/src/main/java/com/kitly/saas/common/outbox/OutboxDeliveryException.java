@@ -0,0 +1,15 @@
+package com.kitly.saas.common.outbox;
+
+/**
+ * An outbox event was rejected by its destination or could not be sent to it.
+ */
+public class OutboxDeliveryException extends RuntimeException {
+
+    public OutboxDeliveryException(String message) {
+        super(message);
+    }
+
+    public OutboxDeliveryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
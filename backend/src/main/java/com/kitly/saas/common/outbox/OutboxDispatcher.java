@@ -0,0 +1,299 @@
+package com.kitly.saas.common.outbox;
+
+import com.kitly.saas.entity.OutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The single drain of the outbox: claims pending events and publishes them on parallel lanes.
+ *
+ * <p>Each event goes to the lane its {@code aggregateId} hashes to. A lane is one thread working
+ * through its events in claim order, so events of one aggregate are published in order while
+ * different aggregates proceed in parallel. Whatever has queued up on a lane is handed to the
+ * {@link OutboxTransport} as one batch and completed in one short transaction, so a slow sink
+ * only holds up its own lane.
+ *
+ * <p>At most {@code max-in-flight} events are claimed and not yet completed on this node, and at
+ * most {@code max-per-lane} of them on one lane. Events that do not fit are handed back right
+ * away, as are queued events whose lease ran out before their turn. When an event is not
+ * delivered, the later events of its aggregate on the lane are handed back too, even if the
+ * transport acknowledged them. The claim query holds them back until the failed event has been
+ * retried.
+ *
+ * <p>Claim rounds run on a dedicated dispatcher thread, so draining a large backlog does not hold
+ * up the shared scheduler thread.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxDispatcher implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxService outboxService;
+    private final OutboxTransport outboxTransport;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final int maxPerLane;
+    private final Lane[] lanes;
+    private final ExecutorService dispatcher;
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rounds = new AtomicLong();
+    private volatile boolean stopping;
+
+    @Autowired
+    public OutboxDispatcher(OutboxService outboxService,
+                            OutboxTransport outboxTransport,
+                            MeterRegistry meterRegistry,
+                            @Value("${outbox.dispatcher.lanes:0}") int lanes,
+                            @Value("${outbox.dispatcher.batch-size:100}") int batchSize,
+                            @Value("${outbox.dispatcher.max-in-flight:1000}") int maxInFlight,
+                            @Value("${outbox.dispatcher.max-per-lane:50}") int maxPerLane) {
+        this(outboxService, outboxTransport, lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors(),
+                batchSize, maxInFlight, maxPerLane);
+        meterRegistry.gauge("outbox.dispatcher.in-flight", inFlight);
+    }
+
+    OutboxDispatcher(OutboxService outboxService, OutboxTransport outboxTransport,
+                     int lanes, int batchSize, int maxInFlight, int maxPerLane) {
+        this.outboxService = outboxService;
+        this.outboxTransport = outboxTransport;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.maxPerLane = maxPerLane;
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(i);
+        }
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hand a dispatch to the dispatcher thread, unless it is still busy with the previous one.
+     */
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.poll-interval:1000}", initialDelay = 5000)
+    public void poll() {
+        if (stopping || !dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            try {
+                dispatch();
+            } catch (Exception e) {
+                logger.error("Dispatching outbox events failed", e);
+            } finally {
+                dispatching.set(false);
+            }
+        });
+    }
+
+    /**
+     * Claim and hand out pending events until the outbox is drained or this node is at capacity.
+     */
+    void dispatch() {
+        int claimed;
+        int limit;
+        do {
+            limit = Math.min(batchSize, maxInFlight - inFlight.get());
+            if (limit <= 0 || stopping) {
+                return;
+            }
+            long round = rounds.incrementAndGet();
+            List<OutboxEvent> batch = outboxService.claimPendingEvents(limit);
+            claimed = batch.size();
+
+            List<UUID> overflow = new ArrayList<>();
+            Set<UUID> overflowAggregates = new HashSet<>();
+            for (OutboxEvent event : batch) {
+                Lane lane = laneFor(event.getAggregateId());
+                // Once an event of an aggregate is handed back, so are all its later ones
+                if (overflowAggregates.contains(event.getAggregateId()) || !lane.offer(event)) {
+                    overflowAggregates.add(event.getAggregateId());
+                    overflow.add(event.getId());
+                }
+            }
+            outboxService.release(overflow);
+            for (Lane lane : lanes) {
+                lane.forgetFailures(round);
+            }
+        } while (claimed == limit && inFlight.get() < maxInFlight);
+    }
+
+    /**
+     * Events claimed and not yet completed on this node
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Stop claiming and hand back queued events instead of publishing them.
+     * Events being published when the lanes stop are re-published once their lease expires.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+        for (Lane lane : lanes) {
+            lane.executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    Lane laneFor(UUID aggregateId) {
+        return lanes[Math.floorMod(aggregateId.hashCode(), lanes.length)];
+    }
+
+    /**
+     * One worker thread and the bookkeeping of the events queued on it.
+     */
+    final class Lane {
+        private final ExecutorService executor;
+        private final Queue<OutboxEvent> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        // Events queued per aggregate, to know when a failure no longer affects queued events
+        private final Map<UUID, Integer> queued = new ConcurrentHashMap<>();
+        // Aggregates with an event that was not delivered, and the dispatch round in which it happened
+        private final Map<UUID, Long> failed = new ConcurrentHashMap<>();
+
+        private Lane(int index) {
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "outbox-lane-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private boolean offer(OutboxEvent event) {
+            if (size.incrementAndGet() > maxPerLane) {
+                size.decrementAndGet();
+                return false;
+            }
+            inFlight.incrementAndGet();
+            queued.merge(event.getAggregateId(), 1, Integer::sum);
+            queue.add(event);
+            executor.execute(this::drain);
+            return true;
+        }
+
+        /**
+         * Deliver everything queued so far as one batch. Later drains find the queue empty.
+         */
+        private void drain() {
+            List<OutboxEvent> batch = new ArrayList<>();
+            for (OutboxEvent event = queue.poll(); event != null; event = queue.poll()) {
+                batch.add(event);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                deliver(batch);
+            } catch (RuntimeException e) {
+                // Completion failed, the events are re-published once their lease expires
+                logger.error("Error completing {} outbox events", batch.size(), e);
+            } finally {
+                for (OutboxEvent event : batch) {
+                    queued.computeIfPresent(event.getAggregateId(), (id, count) -> count == 1 ? null : count - 1);
+                }
+                size.addAndGet(-batch.size());
+                inFlight.addAndGet(-batch.size());
+            }
+        }
+
+        private void deliver(List<OutboxEvent> batch) {
+            List<OutboxEvent> deliverable = new ArrayList<>(batch.size());
+            List<UUID> released = new ArrayList<>();
+            for (OutboxEvent event : batch) {
+                // An expired lease may already have been taken over by another node
+                if (stopping || failed.containsKey(event.getAggregateId()) || isLeaseExpired(event)) {
+                    holdBack(event, released);
+                } else {
+                    deliverable.add(event);
+                }
+            }
+
+            OutboxTransport.Delivery delivery;
+            try {
+                delivery = deliverable.isEmpty()
+                        ? new OutboxTransport.Delivery(Set.of(), Map.of())
+                        : outboxTransport.send(deliverable);
+            } catch (RuntimeException e) {
+                logger.error("Error publishing {} outbox events", deliverable.size(), e);
+                delivery = OutboxTransport.Delivery.failed(deliverable, e);
+            }
+
+            List<UUID> processed = new ArrayList<>(deliverable.size());
+            for (OutboxEvent event : deliverable) {
+                if (failed.containsKey(event.getAggregateId())) {
+                    // An earlier event of the aggregate was not delivered, this one must not overtake it
+                    holdBack(event, released);
+                } else if (delivery.isAcknowledged(event.getId())) {
+                    processed.add(event.getId());
+                } else {
+                    Exception failure = delivery.failures().get(event.getId());
+                    if (failure != null) {
+                        logger.debug("Outbox event {} was not delivered: {}", event.getId(), failure.getMessage());
+                        outboxService.markFailed(event, failure);
+                        failed.put(event.getAggregateId(), rounds.get());
+                    } else {
+                        holdBack(event, released);
+                    }
+                }
+            }
+            outboxService.markProcessed(processed);
+            outboxService.release(released);
+        }
+
+        /**
+         * Hand an event back and hold back the later events of its aggregate queued here.
+         */
+        private void holdBack(OutboxEvent event, List<UUID> released) {
+            released.add(event.getId());
+            failed.put(event.getAggregateId(), rounds.get());
+        }
+
+        private boolean isLeaseExpired(OutboxEvent event) {
+            return event.getLockedUntil() != null && LocalDateTime.now().isAfter(event.getLockedUntil());
+        }
+
+        /**
+         * Drop failures that can no longer reorder anything: none of the aggregate's events are
+         * queued here, and a later claim has seen the failed event and held the rest back.
+         */
+        private void forgetFailures(long round) {
+            failed.entrySet().removeIf(entry -> entry.getValue() < round && !queued.containsKey(entry.getKey()));
+        }
+    }
+}
@@ -4,10 +4,13 @@ import com.kitly.saas.entity.OutboxEvent;
 import com.kitly.saas.repository.OutboxEventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,16 +21,38 @@ import java.util.UUID;
  * Events are written to the outbox_events table within the same transaction
  * as the business logic, ensuring atomicity. This service also handles
  * processing, retrying, and cleanup of outbox events.
+ *
+ * <p>Pending events are claimed in batches with {@code FOR UPDATE SKIP LOCKED}, each claim in its
+ * own short transaction, and carry a lease while they are being published by the
+ * {@link OutboxDispatcher}. Any number of nodes can drain the outbox concurrently without
+ * publishing an event twice, and an event whose node died mid-publish becomes pending again
+ * once its lease expires.
  */
 @Service
 public class OutboxService {
     
     private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
     
+    /**
+     * Publishing attempts before a failed event is given up on and stops holding back its aggregate
+     */
+    public static final int MAX_RETRIES = 3;
+    
+    // First key of the per-aggregate pg_try_advisory_xact_lock taken by claims ("outb")
+    private static final int CLAIM_LOCK_CLASS = 0x6F757462;
+    
+    // Oldest pending events per claimed event to pick aggregates from, so that concurrent claims
+    // find aggregates the other nodes have not locked
+    private static final int CLAIM_WINDOW_FACTOR = 4;
+    
     private final OutboxEventRepository outboxEventRepository;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
     
-    public OutboxService(OutboxEventRepository outboxEventRepository) {
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         @Value("${outbox.claim.lease:60000}") long leaseMillis) {
         this.outboxEventRepository = outboxEventRepository;
+        this.leaseMillis = leaseMillis;
     }
     
     /**
@@ -79,62 +104,69 @@ public class OutboxService {
     }
     
     /**
-     * Process pending outbox events.
-     * This is called by the scheduled task to process events in batches.
+     * Claim up to {@code limit} of the oldest pending events for this node.
+     * Events whose lease expired are returned to PENDING first. The aggregates to claim from are
+     * locked before the claim, so nodes take turns per aggregate and claim different aggregates
+     * in parallel.
+     * 
+     * @param limit Maximum number of events to claim
+     * @return Claimed events, oldest first, leased to this node for {@code outbox.claim.lease}
      */
     @Transactional
-    public void processPendingEvents() {
-        List<OutboxEvent> pendingEvents = outboxEventRepository.findByStatus(OutboxEvent.OutboxStatus.PENDING);
-        logger.info("Processing {} pending outbox events", pendingEvents.size());
-        
-        for (OutboxEvent event : pendingEvents) {
-            processEvent(event);
+    public List<OutboxEvent> claimPendingEvents(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        int released = outboxEventRepository.releaseExpiredLeases(now);
+        if (released > 0) {
+            logger.warn("Released {} outbox events whose lease expired", released);
         }
+        // Separate statement: the claim must see what was committed before the locks were granted
+        List<UUID> aggregateIds = outboxEventRepository.lockPendingAggregates(
+                CLAIM_LOCK_CLASS, limit * CLAIM_WINDOW_FACTOR, limit);
+        if (aggregateIds.isEmpty()) {
+            return List.of();
+        }
+        List<OutboxEvent> claimed = new ArrayList<>(outboxEventRepository.claimPending(
+                owner, now, now.plusNanos(leaseMillis * 1_000_000L), MAX_RETRIES, aggregateIds, limit));
+        claimed.sort(Comparator.comparing(OutboxEvent::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return claimed;
     }
     
     /**
-     * Process a single outbox event.
-     * Marks event as processing, publishes to external system, then marks as processed.
+     * Mark events claimed by this node as processed and release their lease.
+     * 
+     * @param eventIds IDs of the published events
      */
-    @Transactional
-    public void processEvent(OutboxEvent event) {
-        try {
-            event.setStatus(OutboxEvent.OutboxStatus.PROCESSING);
-            outboxEventRepository.save(event);
-            
-            // Publish to external system (e.g., message queue, webhook endpoint)
-            publishToExternalSystem(event);
-            
-            event.setStatus(OutboxEvent.OutboxStatus.PROCESSED);
-            event.setProcessedAt(LocalDateTime.now());
-            outboxEventRepository.save(event);
-            
-            logger.info("Successfully processed outbox event: {}", event.getId());
-        } catch (Exception e) {
-            logger.error("Error processing outbox event: {}", event.getId(), e);
-            event.setStatus(OutboxEvent.OutboxStatus.FAILED);
-            event.setErrorMessage(e.getMessage());
-            event.setRetryCount(event.getRetryCount() + 1);
-            outboxEventRepository.save(event);
+    public void markProcessed(List<UUID> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        int marked = outboxEventRepository.markProcessed(eventIds, owner, LocalDateTime.now());
+        if (marked < eventIds.size()) {
+            // Another node re-claimed them after the lease ran out and will publish them again
+            logger.warn("{} outbox events outlived their lease before being marked processed",
+                    eventIds.size() - marked);
         }
     }
     
     /**
-     * Publish event to external system.
-     * This is a placeholder implementation that logs the event.
+     * Mark an event claimed by this node as failed and release its lease.
      * 
-     * In a production system, implement actual publishing logic here to:
-     * - Publish to message queue (RabbitMQ, Kafka)
-     * - Send to external webhook endpoint
-     * - Forward to analytics service
-     * - Trigger email notifications
-     * - etc.
+     * @param event The event that could not be published
+     * @param error The cause
      */
-    private void publishToExternalSystem(OutboxEvent event) {
-        logger.info("Publishing event to external system: {} - {}", event.getEventType(), event.getId());
-        
-        // Placeholder: Currently logs the event. 
-        // Replace with actual integration code for production use.
+    public void markFailed(OutboxEvent event, Exception error) {
+        outboxEventRepository.markFailed(event.getId(), owner, error.getMessage(), LocalDateTime.now());
+    }
+    
+    /**
+     * Hand events claimed by this node back to PENDING without publishing them.
+     * 
+     * @param eventIds IDs of the events to release
+     */
+    public void release(List<UUID> eventIds) {
+        if (!eventIds.isEmpty()) {
+            outboxEventRepository.release(eventIds, owner, LocalDateTime.now());
+        }
     }
     
     /**
@@ -0,0 +1,84 @@
+package com.kitly.saas.common.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local webhook endpoint that accepts outbox batches the way a consumer would, for trying out
+ * and load testing {@link HttpOutboxTransport} without a real consumer. Point a destination at
+ * {@code /api/dev/outbox-sink} of any node. Disabled unless {@code outbox.http.stub.enabled}.
+ */
+@RestController
+@RequestMapping("/api/dev/outbox-sink")
+@ConditionalOnProperty(name = "outbox.http.stub.enabled", havingValue = "true")
+public class OutboxSinkStubController {
+
+    private final ObjectMapper objectMapper;
+    private final String signingSecret;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+
+    public OutboxSinkStubController(ObjectMapper objectMapper,
+                                    @Value("${outbox.http.signing-secret:}") String signingSecret) {
+        this.objectMapper = objectMapper;
+        this.signingSecret = signingSecret;
+    }
+
+    /**
+     * Accept every event of a batch, after checking the signature if a secret is configured.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> receive(
+            HttpServletRequest request,
+            @RequestHeader(value = "Content-Encoding", required = false) String contentEncoding,
+            @RequestHeader(value = HttpOutboxTransport.SIGNATURE_HEADER, required = false) String signature)
+            throws IOException {
+        byte[] body;
+        try (InputStream in = "gzip".equalsIgnoreCase(contentEncoding)
+                ? new GZIPInputStream(request.getInputStream()) : request.getInputStream()) {
+            body = in.readAllBytes();
+        }
+
+        if (signingSecret != null && !signingSecret.isBlank() && (signature == null
+                || !MessageDigest.isEqual(HttpOutboxTransport.sign(signingSecret, body).getBytes(StandardCharsets.UTF_8),
+                        signature.getBytes(StandardCharsets.UTF_8)))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid signature"));
+        }
+
+        List<String> accepted = new ArrayList<>();
+        for (JsonNode event : objectMapper.readTree(body).path("events")) {
+            accepted.add(event.path("id").asText());
+        }
+        batches.incrementAndGet();
+        events.addAndGet(accepted.size());
+        return ResponseEntity.ok(Map.of("accepted", accepted));
+    }
+
+    /**
+     * Batches and events received by this node since startup
+     */
+    @GetMapping
+    public Map<String, Object> getStats() {
+        return Map.of("batches", batches.get(), "events", events.get());
+    }
+}
@@ -0,0 +1,50 @@
+package com.kitly.saas.common.outbox;
+
+import com.kitly.saas.entity.OutboxEvent;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Delivers claimed outbox events to external systems.
+ *
+ * <p>The {@link OutboxDispatcher} hands each lane's queued events to the transport as one batch,
+ * oldest first. The transport may deliver them in any grouping, but must keep the order of the
+ * events of one aggregate. Exactly one transport is active, selected by {@code outbox.transport}.
+ */
+public interface OutboxTransport {
+
+    /**
+     * Deliver a batch of events.
+     *
+     * @param events Events in claim order
+     * @return Which events were delivered; the others are published again later
+     */
+    Delivery send(List<OutboxEvent> events);
+
+    /**
+     * Outcome of one batch. Events that are neither acknowledged nor failed, e.g. because their
+     * destination was busy, are handed back without counting as a failed attempt.
+     *
+     * @param acknowledged IDs of the events every destination has accepted
+     * @param failures Cause per event that a destination rejected or could not be sent
+     */
+    record Delivery(Set<UUID> acknowledged, Map<UUID, Exception> failures) {
+
+        public static Delivery failed(Collection<OutboxEvent> events, Exception cause) {
+            Map<UUID, Exception> failures = new HashMap<>();
+            for (OutboxEvent event : events) {
+                failures.put(event.getId(), cause);
+            }
+            return new Delivery(Set.of(), failures);
+        }
+
+        public boolean isAcknowledged(UUID eventId) {
+            return acknowledged.contains(eventId);
+        }
+    }
+}
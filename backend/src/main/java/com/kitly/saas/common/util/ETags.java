@@ -0,0 +1,76 @@
+package com.kitly.saas.common.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Helpers for conditional GETs driven by version columns instead of response bodies.
+ * Callers derive the ETag from whatever cheaply identifies the current state (a version
+ * number, a max(updated_at) plus row count, a catalog fingerprint) and only build the body
+ * when {@link #matches} is false.
+ */
+public final class ETags {
+    
+    /**
+     * Responses are per-user and must be revalidated on every use.
+     */
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    
+    private ETags() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Build a strong ETag from the given state markers.
+     *
+     * @param parts Values identifying the current state, e.g. tenant ID and version
+     * @return Quoted ETag value
+     */
+    public static String of(Object... parts) {
+        StringJoiner joiner = new StringJoiner("|");
+        for (Object part : parts) {
+            joiner.add(Objects.toString(part));
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(joiner.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+    
+    /**
+     * Check an If-None-Match header against the current ETag (weak comparison, as
+     * required for If-None-Match).
+     *
+     * @param ifNoneMatch Header value, may be null
+     * @param etag Current quoted ETag
+     * @return true if the client's copy is current
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 304 response carrying the current ETag.
+     */
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(REVALIDATE)
+                .build();
+    }
+}
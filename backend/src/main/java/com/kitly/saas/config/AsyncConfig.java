@@ -0,0 +1,25 @@
+package com.kitly.saas.config;
+
+import com.kitly.saas.common.context.TenantContextTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables {@code @Async} on Spring Boot's application task executor.
+ *
+ * <p>The executor is a bounded platform thread pool by default. With
+ * {@code spring.threads.virtual.enabled=true} on a Java 21+ runtime, Boot switches both
+ * Tomcat request handling and this executor to virtual threads. Either way the decorator
+ * below propagates tenant and security context into submitted tasks.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+    
+    @Bean
+    public TaskDecorator tenantContextTaskDecorator() {
+        return new TenantContextTaskDecorator();
+    }
+}
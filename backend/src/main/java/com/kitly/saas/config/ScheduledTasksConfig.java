@@ -11,7 +11,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 /**
  * Configuration for scheduled tasks.
  * - WebhookProcessor handles its own webhook processing schedule
- * - OutboxPublisher handles event publishing schedule
+ * - OutboxDispatcher handles event publishing schedule
  * - This config handles outbox retry and cleanup tasks
  */
 @Configuration
@@ -23,20 +23,6 @@ public class ScheduledTasksConfig {
     
     private final OutboxService outboxService;
     
-    /**
-     * Process pending outbox events every 30 seconds.
-     * This is a fallback in addition to OutboxPublisher for redundancy.
-     */
-    @Scheduled(fixedDelay = 30000, initialDelay = 15000)
-    public void processPendingOutboxEvents() {
-        log.debug("Running scheduled task: processPendingOutboxEvents");
-        try {
-            outboxService.processPendingEvents();
-        } catch (Exception e) {
-            log.error("Error processing pending outbox events", e);
-        }
-    }
-    
     /**
      * Retry failed outbox events every 5 minutes
      */
@@ -44,7 +30,7 @@ public class ScheduledTasksConfig {
     public void retryFailedOutboxEvents() {
         log.debug("Running scheduled task: retryFailedOutboxEvents");
         try {
-            outboxService.retryFailedEvents(3);
+            outboxService.retryFailedEvents(OutboxService.MAX_RETRIES);
         } catch (Exception e) {
             log.error("Error retrying failed outbox events", e);
         }
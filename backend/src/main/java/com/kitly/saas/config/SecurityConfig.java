@@ -1,6 +1,10 @@
 package com.kitly.saas.config;
 
+import com.kitly.saas.entitlement.metering.ApiMeteringFilter;
+import com.kitly.saas.security.BoundedPasswordEncoder;
 import com.kitly.saas.security.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,16 +38,34 @@ public class SecurityConfig {
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
 
+    @Value("${security.password-hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${security.password-hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${security.password-hashing.max-wait:2000}")
+    private long hashingMaxWait;
+
+    @Value("${outbox.http.stub.enabled:false}")
+    private boolean outboxSinkStubEnabled;
+
     private final UserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final com.kitly.saas.security.TenantContextFilter tenantContextFilter;
+    private final ApiMeteringFilter apiMeteringFilter;
+    private final MeterRegistry meterRegistry;
 
     public SecurityConfig(UserDetailsService userDetailsService,
                           JwtAuthenticationFilter jwtAuthenticationFilter,
-                          com.kitly.saas.security.TenantContextFilter tenantContextFilter) {
+                          com.kitly.saas.security.TenantContextFilter tenantContextFilter,
+                          ApiMeteringFilter apiMeteringFilter,
+                          MeterRegistry meterRegistry) {
         this.userDetailsService = userDetailsService;
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.tenantContextFilter = tenantContextFilter;
+        this.apiMeteringFilter = apiMeteringFilter;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -53,17 +75,25 @@ public class SecurityConfig {
                 // CSRF is disabled because we use JWT tokens for stateless authentication
                 // CSRF protection is primarily needed for session-based authentication
                 .csrf(AbstractHttpConfigurer::disable)
-                .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                        .requestMatchers("/api/auth/**", "/api/health", "/api/invites/accept", "/api/plans", "/api/webhooks/**", "/api/billing/webhooks/**").permitAll()
-                        .anyRequest().authenticated()
-                )
+                .authorizeHttpRequests(auth -> {
+                    auth
+                            .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                            // Re-dispatches of already authorized async requests (event streams)
+                            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                            .requestMatchers("/api/auth/**", "/api/health", "/.well-known/jwks.json", "/api/invites/accept", "/api/plans", "/api/plans/entitlement-keys", "/api/webhooks/**", "/api/billing/webhooks/**").permitAll();
+                    if (outboxSinkStubEnabled) {
+                        // Local outbox sink, only mapped while the stub is enabled
+                        auth.requestMatchers("/api/dev/outbox-sink").permitAll();
+                    }
+                    auth.anyRequest().authenticated();
+                })
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authenticationProvider(authenticationProvider())
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterAfter(tenantContextFilter, JwtAuthenticationFilter.class)
+                .addFilterAfter(apiMeteringFilter, com.kitly.saas.security.TenantContextFilter.class)
                 .headers(headers -> headers.frameOptions(HeadersConfigurer.FrameOptionsConfig::sameOrigin));
 
         return http.build();
@@ -97,8 +127,14 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
+    /**
+     * BCrypt on a dedicated bounded pool, so hashing bursts get rejected with 429/503
+     * instead of tying up request threads. Threads default to the number of CPUs.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, hashingQueueCapacity,
+                hashingMaxWait, meterRegistry);
     }
 }
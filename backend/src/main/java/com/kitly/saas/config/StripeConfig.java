@@ -1,5 +1,6 @@
 package com.kitly.saas.config;
 
+import com.kitly.saas.common.invalidation.InvalidationHandler;
 import com.kitly.saas.service.PlatformSettingService;
 import com.stripe.Stripe;
 import jakarta.annotation.PostConstruct;
@@ -11,18 +12,19 @@ import org.springframework.context.annotation.Configuration;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @Configuration
 @Getter
 @Setter
 @Slf4j
-public class StripeConfig {
+public class StripeConfig implements InvalidationHandler {
 
-    private String apiKey;
-    private String webhookSecret;
+    private volatile String apiKey;
+    private volatile String webhookSecret;
 
-    // Dynamic plan to price ID mapping
-    private Map<String, String> planPriceMap = new HashMap<>();
+    // Dynamic plan to price ID mapping, replaced as a whole on refresh
+    private volatile Map<String, String> planPriceMap = new HashMap<>();
 
     @Autowired(required = false)
     private PlatformSettingService platformSettingService;
@@ -32,9 +34,12 @@ public class StripeConfig {
         refreshStripeConfig();
     }
 
-    public void refreshStripeConfig() {
-        // Clear the map before refreshing
-        planPriceMap.clear();
+    /**
+     * Reload the Stripe settings on this node. Other nodes reload when the settings change,
+     * see {@link #invalidate(Set)}.
+     */
+    public synchronized void refreshStripeConfig() {
+        Map<String, String> prices = new HashMap<>();
 
         if (platformSettingService != null) {
             try {
@@ -53,7 +58,7 @@ public class StripeConfig {
 
                 // Load dynamic plan prices
                 // Format: stripe.{mode}.plan.{PLAN_NAME} = price_id
-                loadDynamicPlanPrices(mode);
+                loadDynamicPlanPrices(mode, prices);
 
             } catch (Exception e) {
                 log.warn("Could not load platform settings, using default configuration", e);
@@ -61,6 +66,7 @@ public class StripeConfig {
         }
 
 
+        planPriceMap = prices;
         Stripe.apiKey = apiKey;
         log.info("Stripe configured successfully with {} plan price mappings", planPriceMap.size());
     }
@@ -69,7 +75,7 @@ public class StripeConfig {
      * Load dynamic plan prices from platform settings
      * Format: stripe.{mode}.plan.{PLAN_NAME} = price_id
      */
-    private void loadDynamicPlanPrices(String mode) {
+    private void loadDynamicPlanPrices(String mode, Map<String, String> prices) {
         if (platformSettingService == null) {
             return;
         }
@@ -86,7 +92,7 @@ public class StripeConfig {
                 String priceId = platformSettingService.getSettingValue(settingKey, null);
 
                 if (priceId != null && !priceId.isEmpty()) {
-                    planPriceMap.put(planName.toUpperCase(), priceId);
+                    prices.put(planName.toUpperCase(), priceId);
                     log.debug("Loaded dynamic plan price: {} -> {}", planName, priceId);
                 }
             }
@@ -132,6 +138,26 @@ public class StripeConfig {
         return Map.copyOf(planPriceMap);
     }
 
+    @Override
+    public String getTopic() {
+        return PlatformSettingService.TOPIC;
+    }
+
+    /**
+     * Reload if Stripe settings were changed on another node
+     */
+    @Override
+    public void invalidate(Set<String> keys) {
+        if (keys.stream().anyMatch(key -> key.startsWith("stripe."))) {
+            refreshStripeConfig();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        refreshStripeConfig();
+    }
+
     public String getCurrentMode() {
         if (platformSettingService != null) {
             return platformSettingService.getSettingValue("stripe.mode", "test");
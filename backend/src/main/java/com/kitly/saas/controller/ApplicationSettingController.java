@@ -1,5 +1,6 @@
 package com.kitly.saas.controller;
 
+import com.kitly.saas.common.util.ETags;
 import com.kitly.saas.dto.ApplicationSettingDTO;
 import com.kitly.saas.dto.ApplicationSettingRequest;
 import com.kitly.saas.entity.User;
@@ -28,9 +29,15 @@ public class ApplicationSettingController {
     @GetMapping
     @PreAuthorize("hasAnyRole('OWNER', 'ADMIN', 'MEMBER')")
     @TenantAccessCheck
-    public ResponseEntity<List<ApplicationSettingDTO>> getAllSettings(@PathVariable UUID tenantId) {
+    public ResponseEntity<List<ApplicationSettingDTO>> getAllSettings(
+            @PathVariable UUID tenantId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = settingService.getAllSettingsETag(tenantId);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
         List<ApplicationSettingDTO> settings = settingService.getAllSettings(tenantId);
-        return ResponseEntity.ok(settings);
+        return ResponseEntity.ok().eTag(etag).cacheControl(ETags.REVALIDATE).body(settings);
     }
 
     @GetMapping("/{key}")
@@ -1,5 +1,6 @@
 package com.kitly.saas.controller;
 
+import com.kitly.saas.common.util.ETags;
 import com.kitly.saas.dto.CheckoutRequest;
 import com.kitly.saas.dto.SubscriptionResponse;
 import com.kitly.saas.entity.Invoice;
@@ -43,13 +44,21 @@ public class BillingController {
     @GetMapping("/subscription/{tenantId}")
     @PreAuthorize("hasAnyRole('OWNER', 'ADMIN', 'MEMBER')")
     @TenantAccessCheck
-    public ResponseEntity<?> getSubscription(@PathVariable java.util.UUID tenantId) {
+    public ResponseEntity<?> getSubscription(@PathVariable java.util.UUID tenantId,
+                                             @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            String etag = subscriptionService.getCurrentSubscriptionETag(tenantId);
+            if (etag != null && ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
             SubscriptionResponse response = subscriptionService.getCurrentSubscription(tenantId);
             if (response == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(response);
+            if (etag == null) {
+                return ResponseEntity.ok(response);
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(ETags.REVALIDATE).body(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -0,0 +1,50 @@
+package com.kitly.saas.controller;
+
+import com.kitly.saas.security.SessionSigningKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Publishes the public keys for asymmetric session tokens so downstream services can
+ * verify tokens locally. The document only changes on redeploy, so it is served from a
+ * precomputed string with a strong ETag and a public Cache-Control.
+ */
+@RestController
+public class JwksController {
+    
+    private final String jwksJson;
+    private final String etag;
+    private final CacheControl cacheControl;
+    
+    public JwksController(SessionSigningKeys sessionSigningKeys,
+                          @Value("${jwt.session.signing.jwks-max-age:3600}") long maxAgeSeconds) {
+        this.jwksJson = sessionSigningKeys.getJwksJson();
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(jwksJson.getBytes(StandardCharsets.UTF_8)) + "\"";
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+    
+    /**
+     * GET /.well-known/jwks.json - Public keys for verifying session tokens
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<String> getJwks(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType("application/jwk-set+json"))
+                .body(jwksJson);
+    }
+}
@@ -1,5 +1,6 @@
 package com.kitly.saas.controller;
 
+import com.kitly.saas.common.invalidation.InvalidationBus;
 import com.kitly.saas.config.StripeConfig;
 import com.kitly.saas.dto.PlatformSettingDTO;
 import com.kitly.saas.dto.PlatformSettingRequest;
@@ -27,6 +28,7 @@ public class PlatformAdminController {
     private final PlatformSettingService platformSettingService;
     private final StripeConfig stripeConfig;
     private final UserRepository userRepository;
+    private final InvalidationBus invalidationBus;
 
     @GetMapping
     @PreAuthorize("hasRole('PLATFORM_ADMIN')")
@@ -129,6 +131,8 @@ public class PlatformAdminController {
     @PreAuthorize("hasRole('PLATFORM_ADMIN')")
     public ResponseEntity<Map<String, Object>> refreshStripeConfig() {
         stripeConfig.refreshStripeConfig();
+        // Settings may have been changed directly in the database, reload them on every node
+        invalidationBus.publish(PlatformSettingService.TOPIC, InvalidationBus.ALL_KEYS);
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Stripe configuration refreshed successfully");
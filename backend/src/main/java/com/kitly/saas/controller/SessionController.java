@@ -1,25 +1,34 @@
 package com.kitly.saas.controller;
 
+import com.kitly.saas.common.context.TenantContextHolder;
 import com.kitly.saas.common.exception.BadRequestException;
 import com.kitly.saas.dto.CurrentSessionResponse;
 import com.kitly.saas.dto.RefreshTokenResponse;
 import com.kitly.saas.dto.SessionResponse;
 import com.kitly.saas.dto.SwitchTenantRequest;
+import com.kitly.saas.entitlement.stream.SessionEventHub;
+import com.kitly.saas.security.VerifiedToken;
 import com.kitly.saas.service.SessionService;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/sessions")
 public class SessionController {
     
     private final SessionService sessionService;
+    private final SessionEventHub sessionEventHub;
     
-    public SessionController(SessionService sessionService) {
+    public SessionController(SessionService sessionService, SessionEventHub sessionEventHub) {
         this.sessionService = sessionService;
+        this.sessionEventHub = sessionEventHub;
     }
     
     /**
@@ -43,31 +52,57 @@ public class SessionController {
      * Extends the token validity and updates the entitlement version.
      *
      * @param authHeader Authorization header with current JWT
+     * @param verifiedToken Token already verified by the authentication filter, if any
      * @return RefreshTokenResponse with new token
      */
     @PostMapping("/refresh")
-    public ResponseEntity<RefreshTokenResponse> refreshSession(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<RefreshTokenResponse> refreshSession(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE, required = false) VerifiedToken verifiedToken) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
         
-        String token = extractTokenFromHeader(authHeader);
-        RefreshTokenResponse response = sessionService.refreshSession(token, username);
+        RefreshTokenResponse response = verifiedToken != null
+                ? sessionService.refreshSession(verifiedToken, username)
+                : sessionService.refreshSession(extractTokenFromHeader(authHeader), username);
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Stream changes relevant to the current tenant session as Server-Sent Events:
+     * {@code entitlements} with the tenant's new entitlement version, and {@code membership}
+     * when the current user's role or status in the tenant changes.
+     *
+     * @return Emitter kept open until the client disconnects or the stream times out
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+        UUID tenantId = TenantContextHolder.getTenantId();
+        if (tenantId == null) {
+            throw new BadRequestException("A tenant-scoped session token is required");
+        }
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return sessionEventHub.subscribe(tenantId, authentication.getName());
+    }
+    
     /**
      * Get information about the current session.
      *
      * @param authHeader Authorization header with current JWT
+     * @param verifiedToken Token already verified by the authentication filter, if any
      * @return CurrentSessionResponse with session details
      */
     @GetMapping("/current")
-    public ResponseEntity<CurrentSessionResponse> getCurrentSession(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<CurrentSessionResponse> getCurrentSession(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE, required = false) VerifiedToken verifiedToken) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
         
-        String token = extractTokenFromHeader(authHeader);
-        CurrentSessionResponse response = sessionService.getCurrentSession(token, username);
+        CurrentSessionResponse response = verifiedToken != null
+                ? sessionService.getCurrentSession(verifiedToken, username)
+                : sessionService.getCurrentSession(extractTokenFromHeader(authHeader), username);
         return ResponseEntity.ok(response);
     }
     
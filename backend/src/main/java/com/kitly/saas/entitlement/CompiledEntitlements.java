@@ -0,0 +1,106 @@
+package com.kitly.saas.entitlement;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, array-backed form of a tenant's entitlements for single-key checks.
+ *
+ * <p>Keys are mapped to ids by {@link EntitlementKeys}. Boolean features live in a bitset
+ * ({@code long[]} words), limits in a {@code long[]} indexed by key id. All lookups are
+ * array reads and never allocate.
+ */
+public final class CompiledEntitlements {
+    
+    /**
+     * Limit value meaning "no limit", same convention as {@code entitlements.limit_value}.
+     */
+    public static final long UNLIMITED = EntitlementValue.UNLIMITED;
+    
+    /**
+     * Limit value returned for keys that are not a limit for this tenant.
+     */
+    public static final long NOT_SET = Long.MIN_VALUE;
+    
+    private final long version;
+    private final long[] booleanKeys;
+    private final long[] enabled;
+    private final long[] limits;
+    
+    private CompiledEntitlements(long version, long[] booleanKeys, long[] enabled, long[] limits) {
+        this.version = version;
+        this.booleanKeys = booleanKeys;
+        this.enabled = enabled;
+        this.limits = limits;
+    }
+    
+    /**
+     * Compile the merged entitlement items of a tenant.
+     * Values other than booleans, integers and "unlimited" are not compiled.
+     */
+    public static CompiledEntitlements compile(long version, List<EntitlementResponse.EntitlementItem> items) {
+        if (items == null) {
+            items = List.of();
+        }
+        int[] ids = new int[items.size()];
+        int maxId = -1;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = EntitlementKeys.intern(items.get(i).getKey());
+            maxId = Math.max(maxId, ids[i]);
+        }
+        
+        int words = (maxId >> 6) + 1;
+        long[] booleanKeys = new long[words];
+        long[] enabled = new long[words];
+        long[] limits = new long[maxId + 1];
+        Arrays.fill(limits, NOT_SET);
+        
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            EntitlementValue value = EntitlementValue.parse(items.get(i).getValue());
+            if (value.getKind() == EntitlementValue.Kind.BOOLEAN) {
+                booleanKeys[id >> 6] |= 1L << id;
+                if (value.isEnabled()) {
+                    enabled[id >> 6] |= 1L << id;
+                }
+            } else if (value.getKind() == EntitlementValue.Kind.LIMIT) {
+                limits[id] = value.getLimit();
+            }
+            // Free-form values are only available through the full entitlement response
+        }
+        return new CompiledEntitlements(version, booleanKeys, enabled, limits);
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Whether the key is a boolean feature for this tenant.
+     */
+    public boolean isFeature(int keyId) {
+        return keyId >= 0 && (keyId >> 6) < booleanKeys.length && (booleanKeys[keyId >> 6] & (1L << keyId)) != 0;
+    }
+    
+    /**
+     * Whether a boolean feature is enabled. Unknown keys and limits are not enabled.
+     */
+    public boolean isEnabled(int keyId) {
+        return keyId >= 0 && (keyId >> 6) < enabled.length && (enabled[keyId >> 6] & (1L << keyId)) != 0;
+    }
+    
+    /**
+     * Limit value for a key, {@link #UNLIMITED} for no limit, or {@link #NOT_SET}.
+     */
+    public long getLimit(int keyId) {
+        return keyId >= 0 && keyId < limits.length ? limits[keyId] : NOT_SET;
+    }
+    
+    public boolean isEnabled(String key) {
+        return isEnabled(EntitlementKeys.idOf(key));
+    }
+    
+    public long getLimit(String key) {
+        return getLimit(EntitlementKeys.idOf(key));
+    }
+}
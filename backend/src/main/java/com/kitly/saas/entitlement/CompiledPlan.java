@@ -0,0 +1,84 @@
+package com.kitly.saas.entitlement;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable, pre-typed form of a {@link PlanCatalog.PlanDefinition}.
+ *
+ * <p>Keys are interned through {@link EntitlementKeys} and values parsed into
+ * {@link EntitlementValue}s once, so merging a plan with overrides is an array walk
+ * with no string parsing. {@link #indexOf(int)} maps a key id to its position in O(1).
+ */
+public final class CompiledPlan {
+
+    private final String code;
+    private final String name;
+    private final String[] keys;
+    private final EntitlementValue[] values;
+    private final int[] positionByKeyId;
+
+    private CompiledPlan(String code, String name, String[] keys, EntitlementValue[] values, int[] positionByKeyId) {
+        this.code = code;
+        this.name = name;
+        this.keys = keys;
+        this.values = values;
+        this.positionByKeyId = positionByKeyId;
+    }
+
+    /**
+     * Compile a plan definition. Entries are ordered by key so that every node produces the
+     * same item order for the same catalog.
+     */
+    public static CompiledPlan compile(PlanCatalog.PlanDefinition definition) {
+        Map<String, String> entries = new TreeMap<>(definition.getEntitlements());
+
+        String[] keys = entries.keySet().toArray(new String[0]);
+        EntitlementValue[] values = new EntitlementValue[keys.length];
+        int[] ids = new int[keys.length];
+        int maxId = -1;
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = EntitlementValue.parse(entries.get(keys[i]));
+            ids[i] = EntitlementKeys.intern(keys[i]);
+            maxId = Math.max(maxId, ids[i]);
+        }
+
+        int[] positionByKeyId = new int[maxId + 1];
+        Arrays.fill(positionByKeyId, -1);
+        for (int i = 0; i < ids.length; i++) {
+            positionByKeyId[ids[i]] = i;
+        }
+        return new CompiledPlan(definition.getCode(), definition.getName(), keys, values, positionByKeyId);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    public EntitlementValue getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Position of a key in this plan.
+     *
+     * @param keyId Id from {@link EntitlementKeys}
+     * @return The position, or -1 if the plan does not define the key
+     */
+    public int indexOf(int keyId) {
+        return keyId >= 0 && keyId < positionByKeyId.length ? positionByKeyId[keyId] : -1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.kitly.saas.entitlement;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Response DTO for single-key entitlement checks.
+ * Values are typed: booleans for features, numbers for limits (-1 = unlimited),
+ * null for keys the tenant has no compiled value for.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntitlementCheckResponse {
+    
+    private UUID tenantId;
+    private Long entitlementVersion;
+    private Map<String, Object> values;
+}
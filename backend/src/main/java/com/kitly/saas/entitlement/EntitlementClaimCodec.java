@@ -0,0 +1,219 @@
+package com.kitly.saas.entitlement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Compact encoding of a tenant's entitlements for the {@code ent} claim of session tokens.
+ *
+ * <p>The keys are not part of the claim. They come from a {@link KeyTable} per catalog
+ * version: every boolean and limit key of the catalog's plans, sorted. The claim holds the
+ * catalog version {@code cv}, a bitset {@code f} of the enabled features in table order, and
+ * the limits {@code l} as unsigned varints in table order (0 = not set, 1 = unlimited,
+ * n + 2 = limit n), both base64url. Keys that exist only as tenant overrides and free-text
+ * values are not included. An encoding larger than {@code max-bytes} is not issued at all.
+ */
+@Component
+public class EntitlementClaimCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitlementClaimCodec.class);
+
+    public static final String CLAIM = "ent";
+
+    private static final int RETAINED_TABLES = 16;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final int maxBytes;
+    // Tables of recent catalog versions, so tokens issued just before a change stay decodable
+    private final Map<Long, KeyTable> tables = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, KeyTable> eldest) {
+            return size() > RETAINED_TABLES;
+        }
+    };
+    private volatile KeyTable current;
+
+    public EntitlementClaimCodec(@Value("${jwt.session.entitlements-claim.max-bytes:256}") int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Key table of the installed catalog
+     */
+    public KeyTable getKeyTable() {
+        KeyTable table = current;
+        if (table == null || table.catalogVersion != PlanCatalog.getVersion()) {
+            table = buildKeyTable();
+        }
+        return table;
+    }
+
+    /**
+     * Key table of a recent catalog version, empty if it is older than this node remembers
+     */
+    public Optional<KeyTable> getKeyTable(long catalogVersion) {
+        KeyTable table = getKeyTable();
+        if (table.catalogVersion == catalogVersion) {
+            return Optional.of(table);
+        }
+        synchronized (tables) {
+            return Optional.ofNullable(tables.get(catalogVersion));
+        }
+    }
+
+    /**
+     * Encode compiled entitlements against the current key table.
+     *
+     * @return Claim value, or null if the encoding would exceed {@code max-bytes}
+     */
+    public Map<String, Object> encode(CompiledEntitlements compiled) {
+        KeyTable table = getKeyTable();
+
+        byte[] features = new byte[(table.featureIds.length + 7) / 8];
+        for (int i = 0; i < table.featureIds.length; i++) {
+            int id = table.featureIds[i];
+            if (compiled.isFeature(id) && compiled.isEnabled(id)) {
+                features[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+
+        ByteArrayOutputStream limits = new ByteArrayOutputStream(table.limitIds.length * 2);
+        for (int id : table.limitIds) {
+            long limit = compiled.getLimit(id);
+            writeVarint(limits, limit == CompiledEntitlements.UNLIMITED ? 1 : limit >= 0 ? limit + 2 : 0);
+        }
+
+        if (features.length + limits.size() > maxBytes) {
+            logger.debug("Entitlements claim of {} bytes exceeds {} bytes, not issued",
+                    features.length + limits.size(), maxBytes);
+            return null;
+        }
+
+        Map<String, Object> claim = new LinkedHashMap<>();
+        claim.put("cv", table.catalogVersion);
+        claim.put("f", ENCODER.encodeToString(features));
+        claim.put("l", ENCODER.encodeToString(limits.toByteArray()));
+        return claim;
+    }
+
+    /**
+     * Decode a claim with the key table of its catalog version, for consumers of session tokens.
+     *
+     * @return Features as booleans and limits as longs ({@link CompiledEntitlements#UNLIMITED}
+     *         for unlimited) in table order; limits that are not set are omitted
+     */
+    public static Map<String, Object> decode(Map<String, ?> claim, KeyTable table) {
+        byte[] features = DECODER.decode((String) claim.get("f"));
+        byte[] limits = DECODER.decode((String) claim.get("l"));
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < table.features.size(); i++) {
+            values.put(table.features.get(i), (features[i >> 3] & (1 << (i & 7))) != 0);
+        }
+        int position = 0;
+        for (String key : table.limits) {
+            long code = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = limits[position++];
+                code |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (code == 1) {
+                values.put(key, CompiledEntitlements.UNLIMITED);
+            } else if (code > 1) {
+                values.put(key, code - 2);
+            }
+        }
+        return values;
+    }
+
+    private synchronized KeyTable buildKeyTable() {
+        KeyTable table = current;
+        long version = PlanCatalog.getVersion();
+        if (table != null && table.catalogVersion == version) {
+            return table;
+        }
+
+        // Sorted by key, the first plan that defines a key decides whether it is a feature or a limit
+        Map<String, EntitlementValue.Kind> kinds = new TreeMap<>();
+        Map<String, PlanCatalog.PlanDefinition> plans;
+        do {
+            version = PlanCatalog.getVersion();
+            plans = PlanCatalog.getAllPlans();
+        } while (version != PlanCatalog.getVersion());
+        for (PlanCatalog.PlanDefinition plan : new TreeMap<>(plans).values()) {
+            plan.getEntitlements().forEach((key, value) ->
+                    kinds.putIfAbsent(key, EntitlementValue.parse(value).getKind()));
+        }
+        List<String> features = new ArrayList<>();
+        List<String> limits = new ArrayList<>();
+        kinds.forEach((key, kind) -> {
+            if (kind == EntitlementValue.Kind.BOOLEAN) {
+                features.add(key);
+            } else if (kind == EntitlementValue.Kind.LIMIT) {
+                limits.add(key);
+            }
+        });
+
+        table = new KeyTable(version, features, limits);
+        synchronized (tables) {
+            tables.put(version, table);
+        }
+        current = table;
+        return table;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Positions of the keys in the claim for one catalog version.
+     */
+    public static final class KeyTable {
+        private final long catalogVersion;
+        private final List<String> features;
+        private final List<String> limits;
+        private final int[] featureIds;
+        private final int[] limitIds;
+
+        public KeyTable(long catalogVersion, List<String> features, List<String> limits) {
+            this.catalogVersion = catalogVersion;
+            this.features = Collections.unmodifiableList(new ArrayList<>(features));
+            this.limits = Collections.unmodifiableList(new ArrayList<>(limits));
+            this.featureIds = this.features.stream().mapToInt(EntitlementKeys::intern).toArray();
+            this.limitIds = this.limits.stream().mapToInt(EntitlementKeys::intern).toArray();
+        }
+
+        public long getCatalogVersion() {
+            return catalogVersion;
+        }
+
+        public List<String> getFeatures() {
+            return features;
+        }
+
+        public List<String> getLimits() {
+            return limits;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.kitly.saas.entitlement;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide interning of entitlement feature keys to dense integer ids.
+ * Ids are assigned on first sight and never reused, so compiled entitlements of all
+ * tenants share one id space and can be indexed by plain array offsets.
+ */
+public final class EntitlementKeys {
+    
+    /**
+     * Id returned for keys that no tenant has ever been compiled with.
+     */
+    public static final int UNKNOWN = -1;
+    
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    
+    private EntitlementKeys() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Id of a key, assigning a new one if the key has not been seen before.
+     */
+    public static int intern(String key) {
+        Integer id = IDS.get(key);
+        if (id != null) {
+            return id;
+        }
+        return IDS.computeIfAbsent(key, k -> NEXT_ID.getAndIncrement());
+    }
+    
+    /**
+     * Id of a key without assigning one.
+     *
+     * @return The key's id, or {@link #UNKNOWN}
+     */
+    public static int idOf(String key) {
+        Integer id = IDS.get(key);
+        return id != null ? id : UNKNOWN;
+    }
+}
@@ -1,8 +1,12 @@
 package com.kitly.saas.entitlement;
 
+import com.kitly.saas.common.exception.NoActiveSubscriptionException;
 import com.kitly.saas.common.exception.ResourceNotFoundException;
+import com.kitly.saas.entitlement.listener.EntitlementsChangedEvent;
 import com.kitly.saas.entity.*;
 import com.kitly.saas.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,23 +20,33 @@ import java.util.stream.Collectors;
 @Service
 public class EntitlementService {
     
+    // Metadata marking rows written by syncEntitlements, as opposed to manual overrides
+    static final String SOURCE_METADATA = "source";
+    static final String PLAN_SOURCE = "PLAN";
+    
+    private static final List<Subscription.SubscriptionStatus> CURRENT_STATUSES = List.of(
+            Subscription.SubscriptionStatus.ACTIVE, Subscription.SubscriptionStatus.TRIALING);
+    
     private final SubscriptionRepository subscriptionRepository;
     private final EntitlementRepository entitlementRepository;
     private final EntitlementVersionRepository entitlementVersionRepository;
     private final MembershipRepository membershipRepository;
     private final TenantRepository tenantRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public EntitlementService(
             SubscriptionRepository subscriptionRepository,
             EntitlementRepository entitlementRepository,
             EntitlementVersionRepository entitlementVersionRepository,
             MembershipRepository membershipRepository,
-            TenantRepository tenantRepository) {
+            TenantRepository tenantRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.subscriptionRepository = subscriptionRepository;
         this.entitlementRepository = entitlementRepository;
         this.entitlementVersionRepository = entitlementVersionRepository;
         this.membershipRepository = membershipRepository;
         this.tenantRepository = tenantRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -48,81 +62,177 @@ public class EntitlementService {
         // Get active subscription
         Subscription subscription = getActiveSubscription(tenantId);
         
+        // Apply overrides from entitlements table
+        List<Entitlement> overrides = entitlementRepository.findByTenantAndEnabled(tenant, true);
+        
+        // Get active seats count
+        long activeSeats = membershipRepository.countByTenantIdAndStatus(
+                tenantId, Membership.MembershipStatus.ACTIVE);
+        
+        // Get or create entitlement version
+        long version = getOrCreateEntitlementVersion(tenantId);
+
+        return buildResponse(tenantId, subscription, overrides, activeSeats, version);
+    }
+    
+    /**
+     * Compute entitlements for many tenants at once. Subscriptions, overrides, seat counts
+     * and versions are each read with one set-based query for the whole batch, and plans
+     * are merged in memory, so the number of round trips does not grow with the batch.
+     *
+     * <p>Read-only: a tenant without an entitlement version row is reported at version 1,
+     * the version its first single-tenant computation creates. Tenants without an active
+     * or trialing subscription are left out of the result.
+     *
+     * @param tenantIds Tenant IDs; callers should keep batches to a few hundred IDs
+     * @return Entitlements in the iteration order of {@code tenantIds}
+     */
+    @Transactional(readOnly = true)
+    public List<EntitlementResponse> computeEntitlementsBulk(Collection<UUID> tenantIds) {
+        if (tenantIds.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<UUID, Subscription> subscriptions = new HashMap<>();
+        for (Subscription subscription : subscriptionRepository.findByTenantIdInAndStatusIn(tenantIds, CURRENT_STATUSES)) {
+            // ACTIVE wins over TRIALING, as in getActiveSubscription
+            subscriptions.merge(subscription.getTenant().getId(), subscription,
+                    (existing, candidate) -> existing.getStatus() == Subscription.SubscriptionStatus.ACTIVE
+                            ? existing : candidate);
+        }
+        if (subscriptions.isEmpty()) {
+            return List.of();
+        }
+        
+        Set<UUID> subscribed = subscriptions.keySet();
+        Map<UUID, List<Entitlement>> overrides = entitlementRepository.findByTenantIdInAndEnabled(subscribed, true)
+                .stream()
+                .collect(Collectors.groupingBy(e -> e.getTenant().getId()));
+        Map<UUID, Long> activeSeats = membershipRepository.countByTenantIdInAndStatus(
+                        subscribed, Membership.MembershipStatus.ACTIVE)
+                .stream()
+                .collect(Collectors.toMap(TenantCount::getTenantId, TenantCount::getTotal));
+        Map<UUID, Long> versions = entitlementVersionRepository.findVersionsByTenantIdIn(subscribed)
+                .stream()
+                .collect(Collectors.toMap(TenantVersion::getTenantId, TenantVersion::getVersion));
+        
+        List<EntitlementResponse> responses = new ArrayList<>(subscriptions.size());
+        for (UUID tenantId : tenantIds) {
+            Subscription subscription = subscriptions.get(tenantId);
+            if (subscription == null) {
+                continue;
+            }
+            responses.add(buildResponse(tenantId, subscription,
+                    overrides.getOrDefault(tenantId, List.of()),
+                    activeSeats.getOrDefault(tenantId, 0L),
+                    versions.getOrDefault(tenantId, 1L)));
+        }
+        return responses;
+    }
+    
+    /**
+     * Merge the subscription's plan with the tenant's overrides into a response.
+     * Plan values come pre-typed from the compiled catalog and overrides replace them by
+     * key id, so the merge does no string parsing.
+     */
+    private EntitlementResponse buildResponse(UUID tenantId, Subscription subscription,
+                                              List<Entitlement> overrides, long activeSeats, long version) {
         // Get plan entitlements
-        String planCode = mapSubscriptionPlanToPlanCode(subscription.getPlan());
-        PlanCatalog.PlanDefinition plan = PlanCatalog.getPlan(planCode);
+        CompiledPlan plan = PlanCatalog.getCompiledPlan(subscription.getPlan());
         if (plan == null) {
-            throw new IllegalStateException("Invalid plan code: " + planCode);
+            throw new IllegalStateException("No plan in catalog for: " + subscription.getPlan());
         }
         
         // Start with plan entitlements
-        Map<String, EntitlementResponse.EntitlementItem> mergedEntitlements = new LinkedHashMap<>();
-        for (Map.Entry<String, String> entry : plan.getEntitlements().entrySet()) {
-            mergedEntitlements.put(entry.getKey(), EntitlementResponse.EntitlementItem.builder()
-                    .key(entry.getKey())
-                    .value(entry.getValue())
-                    .source("PLAN")
-                    .build());
+        List<EntitlementResponse.EntitlementItem> items = new ArrayList<>(plan.size() + overrides.size());
+        for (int i = 0; i < plan.size(); i++) {
+            items.add(item(plan.getKey(i), plan.getValue(i), "PLAN"));
         }
         
-        // Apply overrides from entitlements table
-        List<Entitlement> overrides = entitlementRepository.findByTenantAndEnabled(tenant, true);
+        // Apply overrides
         for (Entitlement override : overrides) {
-            String value = getEntitlementValue(override);
-            mergedEntitlements.put(override.getFeatureKey(), EntitlementResponse.EntitlementItem.builder()
-                    .key(override.getFeatureKey())
-                    .value(value)
-                    .source("OVERRIDE")
-                    .build());
+            EntitlementResponse.EntitlementItem item = item(override.getFeatureKey(), EntitlementValue.of(override), "OVERRIDE");
+            int index = plan.indexOf(EntitlementKeys.intern(override.getFeatureKey()));
+            if (index >= 0) {
+                items.set(index, item);
+            } else {
+                items.add(item);
+            }
         }
-        
-        // Get active seats count
-        long activeSeats = membershipRepository.countByTenantIdAndStatus(
-                tenantId, Membership.MembershipStatus.ACTIVE);
-        
-        // Get or create entitlement version (with retry on duplicate)
-        EntitlementVersion version = getOrCreateEntitlementVersion(tenant);
 
         // Build response
         return EntitlementResponse.builder()
                 .tenantId(tenantId)
-                .planCode(planCode)
+                .planCode(plan.getCode())
                 .status(subscription.getStatus().name())
                 .seatsQuantity(subscription.getMaxSeats())
                 .activeSeats(activeSeats)
-                .entitlementVersion(version.getVersion())
-                .items(new ArrayList<>(mergedEntitlements.values()))
+                .entitlementVersion(version)
+                .items(items)
+                .build();
+    }
+    
+    private static EntitlementResponse.EntitlementItem item(String key, EntitlementValue value, String source) {
+        return EntitlementResponse.EntitlementItem.builder()
+                .key(key)
+                .value(value.asString())
+                .source(source)
                 .build();
     }
     
     /**
-     * Bump entitlement version for cache invalidation
+     * Bump entitlement version for cache invalidation.
+     * A single atomic upsert, so concurrent bumps never lose an increment.
+     *
+     * @return The new version
      */
     @Transactional
-    public void bumpEntitlementVersion(UUID tenantId) {
-        Tenant tenant = tenantRepository.findById(tenantId)
-                .orElseThrow(() -> new ResourceNotFoundException("Tenant not found"));
+    public long bumpEntitlementVersion(UUID tenantId) {
+        long version;
+        try {
+            version = entitlementVersionRepository.incrementVersion(tenantId);
+        } catch (DataIntegrityViolationException e) {
+            // Foreign key violation: there is no such tenant
+            throw new ResourceNotFoundException("Tenant not found");
+        }
         
-        EntitlementVersion version = getOrCreateEntitlementVersion(tenant);
-        version.setVersion(version.getVersion() + 1);
-        entitlementVersionRepository.save(version);
+        eventPublisher.publishEvent(new EntitlementsChangedEvent(tenantId, version));
+        return version;
+    }
+    
+    /**
+     * Current entitlement version for a tenant, or empty if none has been created yet.
+     * Single-column read used to validate cached snapshots.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getCurrentVersion(UUID tenantId) {
+        return entitlementVersionRepository.findVersionByTenantId(tenantId);
     }
 
     /**
      * Sync entitlements from the current subscription plan to the database.
      * This ensures the entitlements table reflects the current plan's features.
+     *
+     * <p>Only rows that are missing or differ from the plan are written, in one batched
+     * flush, and the version is bumped only if at least one row changed. Replaying the same
+     * subscription event is therefore a read-only no-op that leaves caches intact.
+     *
+     * <p>Rows of plan keys are marked as plan rows. Plan rows whose key is no longer in the
+     * plan are deleted, so they are not served as overrides afterwards. Rows of other keys
+     * are overrides and left alone.
+     *
+     * @return true if any entitlement row was inserted, updated or deleted
      */
     @Transactional
-    public void syncEntitlements(UUID tenantId) {
+    public boolean syncEntitlements(UUID tenantId) {
         Tenant tenant = tenantRepository.findById(tenantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Tenant not found"));
 
         Subscription subscription = getActiveSubscription(tenantId);
-        String planCode = mapSubscriptionPlanToPlanCode(subscription.getPlan());
-        PlanCatalog.PlanDefinition plan = PlanCatalog.getPlan(planCode);
+        CompiledPlan plan = PlanCatalog.getCompiledPlan(subscription.getPlan());
 
         if (plan == null) {
-            return;
+            return false;
         }
 
         // Get existing entitlements
@@ -130,75 +240,103 @@ public class EntitlementService {
         Map<String, Entitlement> existingMap = existingEntitlements.stream()
                 .collect(Collectors.toMap(Entitlement::getFeatureKey, e -> e));
 
-        // Sync plan entitlements
-        for (Map.Entry<String, String> entry : plan.getEntitlements().entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
+        // Diff plan entitlements against the stored rows
+        List<Entitlement> changed = new ArrayList<>();
+        boolean valuesChanged = false;
+        Set<String> planKeys = new HashSet<>();
+        for (int i = 0; i < plan.size(); i++) {
+            String key = plan.getKey(i);
+            EntitlementValue value = plan.getValue(i);
+            planKeys.add(key);
 
             Entitlement entitlement = existingMap.get(key);
-            if (entitlement == null) {
+            boolean isNew = entitlement == null;
+            if (isNew) {
                 entitlement = Entitlement.builder()
                         .tenant(tenant)
                         .featureKey(key)
-                        .featureType(inferFeatureType(value))
+                        .featureType(value.getFeatureType())
                         .build();
             }
 
-            updateEntitlementValue(entitlement, value);
-            entitlementRepository.save(entitlement);
+            boolean valueChanged = updateEntitlementValue(entitlement, value) || isNew;
+            // Also marks rows synced before plan rows were marked; that alone needs no bump
+            if (markPlanSourced(entitlement) || valueChanged) {
+                changed.add(entitlement);
+            }
+            valuesChanged |= valueChanged;
         }
 
+        List<Entitlement> removed = existingEntitlements.stream()
+                .filter(e -> !planKeys.contains(e.getFeatureKey()) && isPlanSourced(e))
+                .toList();
+
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return false;
+        }
+
+        // Inserts and updates go out as JDBC batches (hibernate.jdbc.batch_size)
+        if (!changed.isEmpty()) {
+            entitlementRepository.saveAll(changed);
+        }
+        if (!removed.isEmpty()) {
+            entitlementRepository.deleteAll(removed);
+        }
+        if (!valuesChanged && removed.isEmpty()) {
+            return false;
+        }
         bumpEntitlementVersion(tenantId);
+        return true;
     }
 
-    private Entitlement.FeatureType inferFeatureType(String value) {
-        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
-            return Entitlement.FeatureType.BOOLEAN;
-        }
-        return Entitlement.FeatureType.LIMIT;
+    private static boolean isPlanSourced(Entitlement entitlement) {
+        return entitlement.getMetadata() != null
+                && PLAN_SOURCE.equals(entitlement.getMetadata().get(SOURCE_METADATA));
     }
 
-    private void updateEntitlementValue(Entitlement entitlement, String value) {
-        if (entitlement.getFeatureType() == Entitlement.FeatureType.BOOLEAN) {
-            entitlement.setEnabled(Boolean.parseBoolean(value));
-        } else {
-            if ("unlimited".equalsIgnoreCase(value)) {
-                entitlement.setLimitValue(-1L);
-            } else {
-                try {
-                    entitlement.setLimitValue(Long.parseLong(value));
-                } catch (NumberFormatException e) {
-                    entitlement.setLimitValue(0L);
-                }
-            }
-            entitlement.setEnabled(true);
+    /**
+     * @return true if the row was not marked as a plan row yet
+     */
+    private static boolean markPlanSourced(Entitlement entitlement) {
+        if (isPlanSourced(entitlement)) {
+            return false;
         }
+        Map<String, Object> metadata = entitlement.getMetadata() != null
+                ? new HashMap<>(entitlement.getMetadata()) : new HashMap<>();
+        metadata.put(SOURCE_METADATA, PLAN_SOURCE);
+        entitlement.setMetadata(metadata);
+        return true;
     }
 
     /**
-     * Get or create EntitlementVersion with retry logic to handle race conditions
+     * Apply a plan value to an entitlement row.
+     *
+     * @return true if the row's value actually changed
      */
-    private EntitlementVersion getOrCreateEntitlementVersion(Tenant tenant) {
-        // Try to find existing version first
-        Optional<EntitlementVersion> existingVersion = entitlementVersionRepository.findByTenant(tenant);
-        if (existingVersion.isPresent()) {
-            return existingVersion.get();
+    private boolean updateEntitlementValue(Entitlement entitlement, EntitlementValue value) {
+        if (entitlement.getFeatureType() == Entitlement.FeatureType.BOOLEAN) {
+            return setIfChanged(entitlement, value.isEnabled(), entitlement.getLimitValue());
         }
+        return setIfChanged(entitlement, true, value.getLimit());
+    }
 
-        // If not found, try to create - this may fail if another thread created it
-        try {
-            EntitlementVersion newVersion = EntitlementVersion.builder()
-                    .tenant(tenant)
-                    .version(1L)
-                    .build();
-            return entitlementVersionRepository.save(newVersion);
-        } catch (Exception e) {
-            // If save failed due to duplicate, try to fetch again
-            // Another thread likely created it between our check and insert
-            return entitlementVersionRepository.findByTenant(tenant)
-                    .orElseThrow(() -> new IllegalStateException(
-                            "Failed to get or create EntitlementVersion for tenant: " + tenant.getId(), e));
+    private boolean setIfChanged(Entitlement entitlement, boolean enabled, Long limitValue) {
+        if (Objects.equals(entitlement.getEnabled(), enabled)
+                && Objects.equals(entitlement.getLimitValue(), limitValue)) {
+            return false;
         }
+        entitlement.setEnabled(enabled);
+        entitlement.setLimitValue(limitValue);
+        return true;
+    }
+
+    /**
+     * Get the tenant's entitlement version, creating it on first use. Concurrent creators
+     * converge on the same row through the upsert, so no retry is needed.
+     */
+    private long getOrCreateEntitlementVersion(UUID tenantId) {
+        return entitlementVersionRepository.findVersionByTenantId(tenantId)
+                .orElseGet(() -> entitlementVersionRepository.initializeVersion(tenantId));
     }
     
     /**
@@ -209,36 +347,6 @@ public class EntitlementService {
                 tenantId, Subscription.SubscriptionStatus.ACTIVE)
                 .or(() -> subscriptionRepository.findByTenantIdAndStatus(
                         tenantId, Subscription.SubscriptionStatus.TRIALING))
-                .orElseThrow(() -> new ResourceNotFoundException("No active subscription found"));
-    }
-    
-    /**
-     * Map Subscription.SubscriptionPlan enum to plan catalog code
-     * Note: FREE plan maps to 'starter' as it uses the same entitlements
-     */
-    private String mapSubscriptionPlanToPlanCode(Subscription.SubscriptionPlan plan) {
-        return switch (plan) {
-            case STARTER -> "starter";
-            case BUSINESS -> "business";
-            case ENTERPRISE -> "enterprise";
-            case FREE -> "starter"; // FREE uses starter entitlements
-        };
-    }
-    
-    /**
-     * Get string value from Entitlement entity
-     */
-    private String getEntitlementValue(Entitlement entitlement) {
-        return switch (entitlement.getFeatureType()) {
-            case BOOLEAN -> entitlement.getEnabled() ? "true" : "false";
-            case LIMIT, QUOTA -> {
-                if (entitlement.getLimitValue() != null && entitlement.getLimitValue() == -1) {
-                    yield "unlimited";
-                }
-                yield entitlement.getLimitValue() != null
-                        ? entitlement.getLimitValue().toString()
-                        : "0";
-            }
-        };
+                .orElseThrow(() -> new NoActiveSubscriptionException(tenantId));
     }
 }
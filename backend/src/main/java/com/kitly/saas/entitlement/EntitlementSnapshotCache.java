@@ -0,0 +1,167 @@
+package com.kitly.saas.entitlement;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kitly.saas.entitlement.listener.EntitlementsChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cache of computed entitlements, keyed by tenant and entitlement version.
+ *
+ * <p>Every change that affects entitlements bumps the tenant's entitlement version, so a
+ * snapshot stays valid for as long as the version is unchanged. A snapshot verified within
+ * the last {@code verify-interval} is served without touching the database. After that a
+ * single-column version read decides whether it can still be used. Bumps made by this node
+ * evict the tenant's snapshot as soon as they commit. Bumps made by other nodes are noticed
+ * within {@code verify-interval}.
+ */
+@Component
+public class EntitlementSnapshotCache {
+
+    private final EntitlementService entitlementService;
+    private final Cache<UUID, Snapshot> cache;
+    private final long verifyIntervalNanos;
+
+    public EntitlementSnapshotCache(EntitlementService entitlementService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${entitlements.snapshot-cache.max-size:10000}") long maxSize,
+                                    @Value("${entitlements.snapshot-cache.ttl:3600000}") long ttlMillis,
+                                    @Value("${entitlements.snapshot-cache.verify-interval:2000}") long verifyIntervalMillis) {
+        this.entitlementService = entitlementService;
+        this.verifyIntervalNanos = TimeUnit.MILLISECONDS.toNanos(verifyIntervalMillis);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "entitlement-snapshots");
+    }
+
+    /**
+     * Get the entitlements for a tenant, recomputing only if the version has moved on.
+     *
+     * @param tenantId Tenant ID
+     * @return Entitlements for the tenant's current version
+     */
+    public EntitlementResponse get(UUID tenantId) {
+        return snapshot(tenantId).response;
+    }
+
+    /**
+     * Get the entitlements for a tenant whose current version the caller has just read
+     * via {@link #currentVersion(UUID)}.
+     *
+     * @param tenantId Tenant ID
+     * @param currentVersion Version read before this call, empty if the tenant has none yet
+     * @return Entitlements at least as new as {@code currentVersion}
+     */
+    public EntitlementResponse get(UUID tenantId, Optional<Long> currentVersion) {
+        return snapshot(tenantId, currentVersion).response;
+    }
+
+    /**
+     * Get the compiled form of a tenant's entitlements for single-key lookups.
+     * Compiled once per snapshot, so steady-state checks only read arrays.
+     */
+    public CompiledEntitlements getCompiled(UUID tenantId) {
+        return snapshot(tenantId).compiled;
+    }
+
+    /**
+     * Get the compiled entitlements of a tenant, at least as new as a version the caller
+     * already knows about, e.g. the {@code ent_v} claim of the session token. A cached
+     * snapshot older than that is never served, even within {@code verify-interval}.
+     */
+    public CompiledEntitlements getCompiled(UUID tenantId, long minimumVersion) {
+        Snapshot snapshot = cache.getIfPresent(tenantId);
+        if (snapshot != null && snapshot.version >= minimumVersion && isFresh(snapshot)) {
+            return snapshot.compiled;
+        }
+        return snapshot(tenantId, entitlementService.getCurrentVersion(tenantId)).compiled;
+    }
+
+    private Snapshot snapshot(UUID tenantId) {
+        Snapshot snapshot = cache.getIfPresent(tenantId);
+        if (snapshot != null && isFresh(snapshot)) {
+            return snapshot;
+        }
+        return snapshot(tenantId, entitlementService.getCurrentVersion(tenantId));
+    }
+
+    private Snapshot snapshot(UUID tenantId, Optional<Long> currentVersion) {
+        long now = System.nanoTime();
+        Snapshot snapshot = cache.getIfPresent(tenantId);
+        if (snapshot != null && currentVersion.isPresent() && snapshot.version == currentVersion.get()) {
+            if (!isFresh(snapshot)) {
+                snapshot = snapshot.verifiedAt(now);
+                cache.put(tenantId, snapshot);
+            }
+            return snapshot;
+        }
+
+        // The version was read before the data: a snapshot computed now is at least as
+        // new as that version, so storing it under that version is always safe
+        EntitlementResponse response = entitlementService.computeEntitlements(tenantId);
+        long version = currentVersion.orElse(response.getEntitlementVersion() != null ? response.getEntitlementVersion() : 0L);
+        Snapshot computed = new Snapshot(version, response,
+                CompiledEntitlements.compile(version, response.getItems()), now);
+        if (currentVersion.isPresent()) {
+            cache.put(tenantId, computed);
+        }
+        return computed;
+    }
+
+    /**
+     * Current entitlement version for a tenant, answered from a recently verified snapshot
+     * when possible. Used to derive ETags without computing the entitlements.
+     */
+    public Optional<Long> currentVersion(UUID tenantId) {
+        Snapshot snapshot = cache.getIfPresent(tenantId);
+        if (snapshot != null && isFresh(snapshot)) {
+            return Optional.of(snapshot.version);
+        }
+
+        Optional<Long> version = entitlementService.getCurrentVersion(tenantId);
+        if (snapshot != null && version.isPresent() && snapshot.version == version.get()) {
+            cache.put(tenantId, snapshot.verifiedAt(System.nanoTime()));
+        }
+        return version;
+    }
+
+    /**
+     * Drop the cached snapshot once a version bump has committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntitlementsChanged(EntitlementsChangedEvent event) {
+        invalidate(event.getTenantId());
+    }
+
+    public void invalidate(UUID tenantId) {
+        cache.invalidate(tenantId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return System.nanoTime() - snapshot.verifiedAt < verifyIntervalNanos;
+    }
+
+    private record Snapshot(long version, EntitlementResponse response, CompiledEntitlements compiled,
+                            long verifiedAt) {
+
+        private Snapshot verifiedAt(long time) {
+            return new Snapshot(version, response, compiled, time);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.kitly.saas.entitlement;
+
+import com.kitly.saas.entity.Entitlement;
+
+import java.util.Objects;
+
+/**
+ * Immutable, pre-typed entitlement value: a boolean flag, a limit ({@link #UNLIMITED} for
+ * no limit) or free-form text. Plan values are parsed into this form once when the catalog
+ * is compiled; override rows are converted from their typed columns without any parsing.
+ */
+public final class EntitlementValue {
+
+    /**
+     * Limit meaning "no limit", same convention as {@code entitlements.limit_value}.
+     */
+    public static final long UNLIMITED = -1L;
+
+    public static final EntitlementValue TRUE = new EntitlementValue(Kind.BOOLEAN, true, 0L, "true");
+    public static final EntitlementValue FALSE = new EntitlementValue(Kind.BOOLEAN, false, 0L, "false");
+    public static final EntitlementValue UNLIMITED_LIMIT = new EntitlementValue(Kind.LIMIT, false, UNLIMITED, "unlimited");
+
+    public enum Kind {
+        BOOLEAN,
+        LIMIT,
+        TEXT
+    }
+
+    private final Kind kind;
+    private final boolean enabled;
+    private final long limit;
+    private final String text;
+
+    private EntitlementValue(Kind kind, boolean enabled, long limit, String text) {
+        this.kind = kind;
+        this.enabled = enabled;
+        this.limit = limit;
+        this.text = text;
+    }
+
+    public static EntitlementValue of(boolean enabled) {
+        return enabled ? TRUE : FALSE;
+    }
+
+    public static EntitlementValue ofLimit(long limit) {
+        return limit == UNLIMITED ? UNLIMITED_LIMIT : new EntitlementValue(Kind.LIMIT, false, limit, Long.toString(limit));
+    }
+
+    /**
+     * Value of an override row, read from its typed columns. A limit row without a value counts as 0.
+     */
+    public static EntitlementValue of(Entitlement entitlement) {
+        return switch (entitlement.getFeatureType()) {
+            case BOOLEAN -> of(Boolean.TRUE.equals(entitlement.getEnabled()));
+            case LIMIT, QUOTA -> ofLimit(entitlement.getLimitValue() != null ? entitlement.getLimitValue() : 0L);
+        };
+    }
+
+    /**
+     * Parse a catalog value: "true"/"false", "unlimited" or an integer; anything else is kept as text.
+     */
+    public static EntitlementValue parse(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return FALSE;
+        }
+        if ("unlimited".equalsIgnoreCase(value)) {
+            return UNLIMITED_LIMIT;
+        }
+        if (value != null) {
+            try {
+                return ofLimit(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                // Free-form value
+            }
+        }
+        return new EntitlementValue(Kind.TEXT, false, 0L, value);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Whether a boolean value is true. Always false for limits and text.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The limit, {@link #UNLIMITED} for no limit. 0 for booleans and text.
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Column type used when the value is stored as an entitlement row.
+     */
+    public Entitlement.FeatureType getFeatureType() {
+        return kind == Kind.BOOLEAN ? Entitlement.FeatureType.BOOLEAN : Entitlement.FeatureType.LIMIT;
+    }
+
+    /**
+     * String form used in API responses.
+     */
+    public String asString() {
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntitlementValue other)) {
+            return false;
+        }
+        return kind == other.kind && enabled == other.enabled && limit == other.limit
+                && (kind != Kind.TEXT || Objects.equals(text, other.text));
+    }
+
+    @Override
+    public int hashCode() {
+        return kind == Kind.TEXT ? Objects.hashCode(text) : Long.hashCode(limit) * 31 + (enabled ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
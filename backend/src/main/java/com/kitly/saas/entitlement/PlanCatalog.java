@@ -1,50 +1,87 @@
 package com.kitly.saas.entitlement;
 
+import com.kitly.saas.entity.Subscription;
+
 import java.util.*;
 
 /**
- * Static catalog of subscription plans and their entitlements.
+ * Catalog of subscription plans and their entitlements.
  * Plans define feature flags, limits, and quotas for tenants.
+ *
+ * <p>The catalog is held as one immutable snapshot: plan definitions for the API, and
+ * {@link CompiledPlan}s with interned keys and pre-typed values, indexed by
+ * {@link Subscription.SubscriptionPlan} ordinal for evaluation. It starts with the built-in
+ * plans below; the plans stored in the database replace it through {@link #install} and every
+ * reader sees either the old or the new snapshot, never a mix.
  */
 public class PlanCatalog {
     
-    private static final Map<String, PlanDefinition> PLANS = new HashMap<>();
+    private static volatile Snapshot current = Snapshot.of(builtInPlans(), 0L);
     
-    static {
-        // Starter Plan
-        PLANS.put("starter", PlanDefinition.builder()
-                .code("starter")
-                .name("Starter")
-                .entitlements(Map.of(
-                    "features.ai_assistant", "false",
-                    "limits.projects", "10",
-                    "limits.api_calls_per_month", "1000"
-                ))
-                .build());
-        
-        // Pro Plan
-        PLANS.put("business", PlanDefinition.builder()
-                .code("business")
-                .name("Business")
-                .entitlements(Map.of(
-                    "features.ai_assistant", "true",
-                    "app.nim.access", "true",
-                    "limits.projects", "100",
-                    "limits.api_calls_per_month", "10000"
-                ))
-                .build());
-        
-        // Enterprise Plan
-        PLANS.put("enterprise", PlanDefinition.builder()
-                .code("enterprise")
-                .name("Enterprise")
-                .entitlements(Map.of(
-                    "features.ai_assistant", "true",
-                    "app.nim.access", "true",
-                    "limits.projects", "unlimited",
-                    "limits.api_calls_per_month", "unlimited"
-                ))
-                .build());
+    private static Collection<PlanDefinition> builtInPlans() {
+        return List.of(
+                // Starter Plan
+                PlanDefinition.builder()
+                        .code("starter")
+                        .name("Starter")
+                        .entitlements(Map.of(
+                            "features.ai_assistant", "false",
+                            "limits.projects", "10",
+                            "limits.api_calls_per_month", "1000"
+                        ))
+                        .build(),
+                
+                // Pro Plan
+                PlanDefinition.builder()
+                        .code("business")
+                        .name("Business")
+                        .entitlements(Map.of(
+                            "features.ai_assistant", "true",
+                            "app.nim.access", "true",
+                            "limits.projects", "100",
+                            "limits.api_calls_per_month", "10000"
+                        ))
+                        .build(),
+                
+                // Enterprise Plan
+                PlanDefinition.builder()
+                        .code("enterprise")
+                        .name("Enterprise")
+                        .entitlements(Map.of(
+                            "features.ai_assistant", "true",
+                            "app.nim.access", "true",
+                            "limits.projects", "unlimited",
+                            "limits.api_calls_per_month", "unlimited"
+                        ))
+                        .build());
+    }
+    
+    /**
+     * Replace the catalog with a newer version. Older or equal versions are ignored, so
+     * concurrent reloads can never move the catalog backwards.
+     *
+     * @return true if the catalog was replaced
+     */
+    public static synchronized boolean install(Collection<PlanDefinition> plans, long version) {
+        if (version <= current.version) {
+            return false;
+        }
+        current = Snapshot.of(plans, version);
+        return true;
+    }
+    
+    /**
+     * Go back to the built-in plans at version 0, for tests that install a catalog.
+     */
+    static synchronized void reset() {
+        current = Snapshot.of(builtInPlans(), 0L);
+    }
+    
+    /**
+     * Version of the installed catalog, 0 for the built-in plans.
+     */
+    public static long getVersion() {
+        return current.version;
     }
     
     /**
@@ -54,21 +91,112 @@ public class PlanCatalog {
         if (planCode == null) {
             return null;
         }
-        return PLANS.get(planCode.toLowerCase());
+        Map<String, PlanDefinition> plans = current.plans;
+        PlanDefinition plan = plans.get(planCode);
+        return plan != null ? plan : plans.get(planCode.toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * Compiled plan for a subscription plan, a single array read.
+     *
+     * @return The compiled plan, or null if the catalog has no plan for it
+     */
+    public static CompiledPlan getCompiledPlan(Subscription.SubscriptionPlan subscriptionPlan) {
+        return current.bySubscriptionPlan[subscriptionPlan.ordinal()];
+    }
+    
+    /**
+     * Map Subscription.SubscriptionPlan enum to plan catalog code
+     * Note: FREE plan maps to 'starter' as it uses the same entitlements
+     */
+    public static String planCodeFor(Subscription.SubscriptionPlan subscriptionPlan) {
+        return switch (subscriptionPlan) {
+            case STARTER -> "starter";
+            case BUSINESS -> "business";
+            case ENTERPRISE -> "enterprise";
+            case FREE -> "starter"; // FREE uses starter entitlements
+        };
+    }
+    
+    /**
+     * Subscription plans whose tenants get the entitlements of a plan code.
+     */
+    public static List<Subscription.SubscriptionPlan> subscriptionPlansFor(String planCode) {
+        List<Subscription.SubscriptionPlan> subscriptionPlans = new ArrayList<>();
+        for (Subscription.SubscriptionPlan subscriptionPlan : Subscription.SubscriptionPlan.values()) {
+            if (planCodeFor(subscriptionPlan).equalsIgnoreCase(planCode)) {
+                subscriptionPlans.add(subscriptionPlan);
+            }
+        }
+        return subscriptionPlans;
     }
     
     /**
      * Get all available plans
      */
     public static Map<String, PlanDefinition> getAllPlans() {
-        return Collections.unmodifiableMap(PLANS);
+        return current.plans;
+    }
+    
+    /**
+     * Stable fingerprint of the catalog contents, identical on every node running the
+     * same catalog. Used as the plans ETag.
+     */
+    public static String getFingerprint() {
+        return current.fingerprint;
     }
     
     /**
      * Check if a plan code exists
      */
     public static boolean planExists(String planCode) {
-        return planCode != null && PLANS.containsKey(planCode.toLowerCase());
+        return getPlan(planCode) != null;
+    }
+    
+    /**
+     * One immutable version of the catalog.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final Map<String, PlanDefinition> plans;
+        private final CompiledPlan[] bySubscriptionPlan;
+        private final String fingerprint;
+        
+        private Snapshot(long version, Map<String, PlanDefinition> plans, CompiledPlan[] bySubscriptionPlan,
+                         String fingerprint) {
+            this.version = version;
+            this.plans = plans;
+            this.bySubscriptionPlan = bySubscriptionPlan;
+            this.fingerprint = fingerprint;
+        }
+        
+        private static Snapshot of(Collection<PlanDefinition> definitions, long version) {
+            Map<String, PlanDefinition> plans = new LinkedHashMap<>();
+            Map<String, CompiledPlan> compiled = new HashMap<>();
+            for (PlanDefinition definition : definitions) {
+                String code = definition.getCode().toLowerCase(Locale.ROOT);
+                plans.put(code, definition);
+                compiled.put(code, CompiledPlan.compile(definition));
+            }
+            
+            Subscription.SubscriptionPlan[] subscriptionPlans = Subscription.SubscriptionPlan.values();
+            CompiledPlan[] bySubscriptionPlan = new CompiledPlan[subscriptionPlans.length];
+            for (Subscription.SubscriptionPlan subscriptionPlan : subscriptionPlans) {
+                bySubscriptionPlan[subscriptionPlan.ordinal()] = compiled.get(planCodeFor(subscriptionPlan));
+            }
+            return new Snapshot(version, Collections.unmodifiableMap(plans), bySubscriptionPlan, fingerprint(plans));
+        }
+        
+        private static String fingerprint(Map<String, PlanDefinition> plans) {
+            StringBuilder builder = new StringBuilder();
+            for (PlanDefinition plan : new TreeMap<>(plans).values()) {
+                builder.append(plan.getCode()).append(':').append(plan.getName());
+                new TreeMap<>(plan.getEntitlements()).forEach((key, value) ->
+                        builder.append(';').append(key).append('=').append(value));
+                builder.append('\n');
+            }
+            return Integer.toHexString(builder.toString().hashCode());
+        }
     }
     
     /**
@@ -82,7 +210,7 @@ public class PlanCatalog {
         private PlanDefinition(Builder builder) {
             this.code = builder.code;
             this.name = builder.name;
-            this.entitlements = Collections.unmodifiableMap(builder.entitlements);
+            this.entitlements = Collections.unmodifiableMap(new LinkedHashMap<>(builder.entitlements));
         }
         
         public String getCode() {
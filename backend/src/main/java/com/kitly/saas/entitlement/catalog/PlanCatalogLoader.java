@@ -0,0 +1,102 @@
+package com.kitly.saas.entitlement.catalog;
+
+import com.kitly.saas.common.invalidation.InvalidationBus;
+import com.kitly.saas.common.invalidation.InvalidationHandler;
+import com.kitly.saas.entitlement.PlanCatalog;
+import com.kitly.saas.entitlement.listener.PlanCatalogChangedEvent;
+import com.kitly.saas.entity.Plan;
+import com.kitly.saas.repository.PlanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps {@link PlanCatalog} in line with the {@code plans} table.
+ *
+ * <p>Polls the catalog version (a single MAX over a handful of rows) and, when it has moved,
+ * loads all plans and installs them as a new immutable snapshot. Changes made on this node
+ * are installed as soon as they commit. Other nodes are told over the {@code plan-catalog}
+ * invalidation topic and install them right away, or within {@code refresh-interval} at the latest.
+ */
+@Component
+public class PlanCatalogLoader implements InvalidationHandler {
+
+    public static final String TOPIC = "plan-catalog";
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanCatalogLoader.class);
+
+    private final PlanRepository planRepository;
+    private final InvalidationBus invalidationBus;
+
+    public PlanCatalogLoader(PlanRepository planRepository, InvalidationBus invalidationBus) {
+        this.planRepository = planRepository;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @Scheduled(fixedDelayString = "${plans.catalog.refresh-interval:10000}", initialDelay = 0)
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Reload the catalog if the stored version is newer than the installed one.
+     *
+     * @return The installed catalog version afterwards
+     */
+    public long refresh() {
+        try {
+            Optional<Long> stored = planRepository.findCatalogVersion();
+            if (stored.isPresent() && stored.get() > PlanCatalog.getVersion()) {
+                load();
+            }
+        } catch (Exception e) {
+            // Keep serving the installed catalog
+            logger.error("Failed to refresh plan catalog", e);
+        }
+        return PlanCatalog.getVersion();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPlanCatalogChanged(PlanCatalogChangedEvent event) {
+        refresh();
+        invalidationBus.publish(TOPIC, String.valueOf(event.getVersion()));
+    }
+
+    @Override
+    public String getTopic() {
+        return TOPIC;
+    }
+
+    @Override
+    public void invalidate(Set<String> versions) {
+        refresh();
+    }
+
+    @Override
+    public void invalidateAll() {
+        refresh();
+    }
+
+    private void load() {
+        List<Plan> plans = planRepository.findAll();
+        long version = plans.stream().mapToLong(Plan::getVersion).max().orElse(0L);
+        List<PlanCatalog.PlanDefinition> definitions = plans.stream()
+                .map(plan -> PlanCatalog.PlanDefinition.builder()
+                        .code(plan.getCode())
+                        .name(plan.getName())
+                        .entitlements(plan.getEntitlements())
+                        .build())
+                .toList();
+
+        if (PlanCatalog.install(definitions, version)) {
+            logger.info("Installed plan catalog version {} with {} plans", version, definitions.size());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.kitly.saas.entitlement.catalog;
+
+import com.kitly.saas.common.exception.BadRequestException;
+import com.kitly.saas.common.exception.ResourceNotFoundException;
+import com.kitly.saas.entitlement.listener.PlanCatalogChangedEvent;
+import com.kitly.saas.entity.Plan;
+import com.kitly.saas.entity.PlanResyncJob;
+import com.kitly.saas.repository.PlanRepository;
+import com.kitly.saas.repository.PlanResyncJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service for changing plans of the catalog.
+ * A change takes a new catalog version and queues a re-sync of every tenant on the plan.
+ */
+@Service
+public class PlanCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanCatalogService.class);
+
+    // pg_advisory_xact_lock key serializing plan updates across nodes ("plans")
+    private static final long UPDATE_LOCK_KEY = 0x706C616E73L;
+
+    private final PlanRepository planRepository;
+    private final PlanResyncJobRepository planResyncJobRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PlanCatalogService(PlanRepository planRepository,
+                              PlanResyncJobRepository planResyncJobRepository,
+                              ApplicationEventPublisher eventPublisher) {
+        this.planRepository = planRepository;
+        this.planResyncJobRepository = planResyncJobRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Change the name and entitlements of an existing plan.
+     *
+     * @return The queued re-sync job, or null if the plan was already identical
+     */
+    @Transactional
+    public PlanResyncJobResponse updatePlan(String planCode, PlanUpdateRequest request) {
+        // The catalog is reloaded when MAX(version) grows. Without the lock a version taken
+        // first but committed last would sit below the loaded maximum and never be loaded.
+        // Taken before reading the plan, so the comparison below sees the latest commit.
+        planRepository.lockPlanUpdates(UPDATE_LOCK_KEY);
+
+        Plan plan = planRepository.findById(planCode.toLowerCase(Locale.ROOT))
+                .orElseThrow(() -> new ResourceNotFoundException("Plan not found: " + planCode));
+
+        Map<String, String> entitlements = new HashMap<>(request.getEntitlements());
+        for (Map.Entry<String, String> entry : entitlements.entrySet()) {
+            if (entry.getKey() == null || entry.getKey().isBlank() || entry.getValue() == null) {
+                throw new BadRequestException("Entitlement keys and values must not be empty");
+            }
+        }
+
+        if (plan.getName().equals(request.getName()) && plan.getEntitlements().equals(entitlements)) {
+            return null;
+        }
+
+        long version = planRepository.nextVersion();
+        plan.setName(request.getName());
+        plan.setEntitlements(entitlements);
+        plan.setVersion(version);
+        planRepository.save(plan);
+
+        // The new job re-syncs every tenant, so older unfinished ones for this plan can stop
+        planResyncJobRepository.supersede(plan.getCode(), LocalDateTime.now(), PlanResyncJob.ResyncStatus.SUPERSEDED,
+                List.of(PlanResyncJob.ResyncStatus.PENDING, PlanResyncJob.ResyncStatus.RUNNING));
+        PlanResyncJob job = planResyncJobRepository.save(PlanResyncJob.builder()
+                .planCode(plan.getCode())
+                .planVersion(version)
+                .build());
+
+        eventPublisher.publishEvent(new PlanCatalogChangedEvent(plan.getCode(), version));
+        logger.info("Plan {} changed to catalog version {}, queued re-sync job {}", plan.getCode(), version, job.getId());
+        return PlanResyncJobResponse.from(job);
+    }
+
+    /**
+     * Most recent re-sync jobs with their progress
+     */
+    @Transactional(readOnly = true)
+    public List<PlanResyncJobResponse> getResyncJobs() {
+        return planResyncJobRepository.findTop20ByOrderByCreatedAtDesc().stream()
+                .map(PlanResyncJobResponse::from)
+                .toList();
+    }
+}
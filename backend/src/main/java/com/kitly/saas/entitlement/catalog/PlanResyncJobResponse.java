@@ -0,0 +1,48 @@
+package com.kitly.saas.entitlement.catalog;
+
+import com.kitly.saas.entity.PlanResyncJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Response DTO for the progress of a plan re-sync job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanResyncJobResponse {
+    
+    private UUID id;
+    private String planCode;
+    private Long planVersion;
+    private String status;
+    private long totalTenants;
+    private long processedTenants;
+    private long changedTenants;
+    private long failedTenants;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+    
+    public static PlanResyncJobResponse from(PlanResyncJob job) {
+        return PlanResyncJobResponse.builder()
+                .id(job.getId())
+                .planCode(job.getPlanCode())
+                .planVersion(job.getPlanVersion())
+                .status(job.getStatus().name())
+                .totalTenants(job.getTotalTenants())
+                .processedTenants(job.getProcessedTenants())
+                .changedTenants(job.getChangedTenants())
+                .failedTenants(job.getFailedTenants())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,242 @@
+package com.kitly.saas.entitlement.catalog;
+
+import com.kitly.saas.common.exception.ResourceNotFoundException;
+import com.kitly.saas.entitlement.EntitlementService;
+import com.kitly.saas.entitlement.PlanCatalog;
+import com.kitly.saas.entity.PlanResyncJob;
+import com.kitly.saas.entity.PlanResyncJob.ResyncStatus;
+import com.kitly.saas.entity.Subscription;
+import com.kitly.saas.repository.PlanResyncJobRepository;
+import com.kitly.saas.repository.SubscriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs plan re-sync jobs: re-applies a changed plan to the entitlement rows of every tenant on it.
+ *
+ * <p>Tenants are walked in tenant id order, one page of {@code chunk-size * parallelism} at a
+ * time, with the page split into chunks synced in parallel. Each tenant is synced in its own
+ * transaction and only bumps its entitlement version if its rows changed. Progress and the
+ * keyset cursor are persisted after every page, so a job resumes where it stopped after a
+ * restart or when another node takes over a job whose owner stopped heartbeating. The job is
+ * throttled to {@code max-tenants-per-second} to keep the database load flat. Jobs run on a
+ * dedicated runner thread, so a long job does not hold up the shared scheduler thread.
+ */
+@Component
+public class PlanResyncService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanResyncService.class);
+
+    static final UUID FIRST = new UUID(0L, 0L);
+
+    private static final List<ResyncStatus> UNFINISHED = List.of(ResyncStatus.PENDING, ResyncStatus.RUNNING);
+    private static final List<Subscription.SubscriptionStatus> CURRENT_STATUSES = List.of(
+            Subscription.SubscriptionStatus.ACTIVE, Subscription.SubscriptionStatus.TRIALING);
+
+    private final PlanResyncJobRepository planResyncJobRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final EntitlementService entitlementService;
+    private final PlanCatalogLoader planCatalogLoader;
+    private final ExecutorService executor;
+    private final ExecutorService runner;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final String owner = UUID.randomUUID().toString();
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxTenantsPerSecond;
+    private final long staleAfterMillis;
+
+    public PlanResyncService(PlanResyncJobRepository planResyncJobRepository,
+                             SubscriptionRepository subscriptionRepository,
+                             EntitlementService entitlementService,
+                             PlanCatalogLoader planCatalogLoader,
+                             @Value("${plans.resync.chunk-size:100}") int chunkSize,
+                             @Value("${plans.resync.parallelism:4}") int parallelism,
+                             @Value("${plans.resync.max-tenants-per-second:500}") int maxTenantsPerSecond,
+                             @Value("${plans.resync.stale-after:60000}") long staleAfterMillis) {
+        this.planResyncJobRepository = planResyncJobRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.entitlementService = entitlementService;
+        this.planCatalogLoader = planCatalogLoader;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.maxTenantsPerSecond = maxTenantsPerSecond;
+        this.staleAfterMillis = staleAfterMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "plan-resync-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plan-resync-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hand unfinished jobs to the runner thread, unless it is still busy with the previous poll.
+     */
+    @Scheduled(fixedDelayString = "${plans.resync.poll-interval:5000}", initialDelay = 10000)
+    public void pollPendingJobs() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        runner.execute(() -> {
+            try {
+                runPendingJobs();
+            } catch (Exception e) {
+                logger.error("Polling plan re-sync jobs failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * Pick up unfinished jobs, oldest first, including jobs abandoned by a stopped node.
+     */
+    void runPendingJobs() {
+        for (PlanResyncJob job : planResyncJobRepository.findByStatusInOrderByCreatedAtAsc(UNFINISHED)) {
+            LocalDateTime now = LocalDateTime.now();
+            int claimed = planResyncJobRepository.claim(job.getId(), owner, now,
+                    now.minus(staleAfterMillis, ChronoUnit.MILLIS), ResyncStatus.RUNNING, UNFINISHED);
+            if (claimed == 1) {
+                try {
+                    run(job);
+                } catch (Exception e) {
+                    // Progress is persisted per page; the job resumes on the next poll
+                    logger.error("Plan re-sync job {} failed, will resume", job.getId(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a job this node has claimed, starting after its persisted cursor.
+     */
+    void run(PlanResyncJob job) throws InterruptedException {
+        if (PlanCatalog.getVersion() < job.getPlanVersion() && planCatalogLoader.refresh() < job.getPlanVersion()) {
+            logger.warn("Plan re-sync job {} waits for catalog version {}", job.getId(), job.getPlanVersion());
+            return;
+        }
+
+        List<Subscription.SubscriptionPlan> plans = PlanCatalog.subscriptionPlansFor(job.getPlanCode());
+        UUID cursor = job.getLastTenantId() != null ? job.getLastTenantId() : FIRST;
+        if (job.getLastTenantId() == null) {
+            job.setTotalTenants(subscriptionRepository.countTenantsByPlan(plans, CURRENT_STATUSES));
+            planResyncJobRepository.updateTotal(job.getId(), job.getTotalTenants());
+        }
+        logger.info("Running plan re-sync job {} for plan {} ({} tenants, {} done)",
+                job.getId(), job.getPlanCode(), job.getTotalTenants(), job.getProcessedTenants());
+
+        long processed = job.getProcessedTenants();
+        int pageSize = chunkSize * parallelism;
+        while (true) {
+            List<UUID> page = plans.isEmpty() ? List.of() : subscriptionRepository.findTenantIdsByPlanAfter(
+                    plans, CURRENT_STATUSES, cursor, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                planResyncJobRepository.complete(job.getId(), owner, LocalDateTime.now(),
+                        ResyncStatus.RUNNING, ResyncStatus.COMPLETED);
+                logger.info("Plan re-sync job {} for plan {} completed", job.getId(), job.getPlanCode());
+                return;
+            }
+
+            long startedAt = System.nanoTime();
+            long[] counts = syncPage(page);
+            cursor = page.get(page.size() - 1);
+            int updated = planResyncJobRepository.recordProgress(job.getId(), owner, cursor,
+                    page.size(), counts[0], counts[1], LocalDateTime.now(), ResyncStatus.RUNNING);
+            if (updated == 0) {
+                logger.info("Plan re-sync job {} was superseded or taken over, stopping", job.getId());
+                return;
+            }
+
+            processed += page.size();
+            logger.info("Plan re-sync job {}: {}/{} tenants ({} changed, {} failed in last page)",
+                    job.getId(), processed, job.getTotalTenants(), counts[0], counts[1]);
+            throttle(page.size(), startedAt);
+        }
+    }
+
+    /**
+     * Sync one page in parallel chunks.
+     *
+     * @return Number of tenants whose rows changed and number that failed
+     */
+    private long[] syncPage(List<UUID> page) throws InterruptedException {
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int from = 0; from < page.size(); from += chunkSize) {
+            List<UUID> chunk = page.subList(from, Math.min(from + chunkSize, page.size()));
+            futures.add(executor.submit(() -> syncChunk(chunk)));
+        }
+
+        long[] counts = new long[2];
+        for (Future<long[]> future : futures) {
+            try {
+                long[] chunkCounts = future.get();
+                counts[0] += chunkCounts[0];
+                counts[1] += chunkCounts[1];
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Plan re-sync chunk failed", e.getCause());
+            }
+        }
+        return counts;
+    }
+
+    private long[] syncChunk(List<UUID> tenantIds) {
+        long changed = 0;
+        long failed = 0;
+        for (UUID tenantId : tenantIds) {
+            try {
+                if (entitlementService.syncEntitlements(tenantId)) {
+                    changed++;
+                }
+            } catch (ResourceNotFoundException e) {
+                // Subscription ended since the page was read; nothing to sync
+                logger.debug("Skipping re-sync of tenant {}: {}", tenantId, e.getMessage());
+            } catch (Exception e) {
+                failed++;
+                logger.warn("Failed to re-sync entitlements of tenant {}", tenantId, e);
+            }
+        }
+        return new long[] {changed, failed};
+    }
+
+    private void throttle(int tenants, long startedAt) throws InterruptedException {
+        if (maxTenantsPerSecond <= 0) {
+            return;
+        }
+        long minimumNanos = TimeUnit.SECONDS.toNanos(tenants) / maxTenantsPerSecond;
+        long remainingNanos = minimumNanos - (System.nanoTime() - startedAt);
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,25 @@
+package com.kitly.saas.entitlement.catalog;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Request DTO for changing a plan of the catalog
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanUpdateRequest {
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    @NotNull(message = "Entitlements are required")
+    private Map<String, String> entitlements;
+}
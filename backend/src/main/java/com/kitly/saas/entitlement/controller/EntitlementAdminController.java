@@ -0,0 +1,104 @@
+package com.kitly.saas.entitlement.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kitly.saas.common.exception.BadRequestException;
+import com.kitly.saas.entitlement.EntitlementResponse;
+import com.kitly.saas.entitlement.EntitlementService;
+import com.kitly.saas.entitlement.catalog.PlanCatalogService;
+import com.kitly.saas.entitlement.catalog.PlanResyncJobResponse;
+import com.kitly.saas.entitlement.catalog.PlanUpdateRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Platform admin endpoints for entitlements across tenants and the plan catalog
+ */
+@RestController
+@RequestMapping("/api/platform")
+public class EntitlementAdminController {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final EntitlementService entitlementService;
+    private final PlanCatalogService planCatalogService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxTenants;
+
+    public EntitlementAdminController(EntitlementService entitlementService,
+                                      PlanCatalogService planCatalogService,
+                                      ObjectMapper objectMapper,
+                                      @Value("${entitlements.bulk.batch-size:500}") int batchSize,
+                                      @Value("${entitlements.bulk.max-tenants:10000}") int maxTenants) {
+        this.entitlementService = entitlementService;
+        this.planCatalogService = planCatalogService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxTenants = maxTenants;
+    }
+
+    /**
+     * POST /api/platform/entitlements/bulk - Effective entitlements for a set of tenants.
+     * Computed in batches of {@code batch-size} tenants and streamed as newline-delimited JSON,
+     * one {@link EntitlementResponse} per line, flushed after every batch.
+     */
+    @PostMapping("/entitlements/bulk")
+    @PreAuthorize("hasRole('PLATFORM_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> bulkEntitlements(@RequestBody List<UUID> tenantIds) {
+        Set<UUID> distinct = new LinkedHashSet<>(tenantIds);
+        distinct.remove(null);
+        if (distinct.size() > maxTenants) {
+            throw new BadRequestException("At most " + maxTenants + " tenant ids can be requested at once");
+        }
+
+        List<UUID> ids = new ArrayList<>(distinct);
+        StreamingResponseBody body = out -> {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<UUID> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                for (EntitlementResponse response : entitlementService.computeEntitlementsBulk(batch)) {
+                    out.write(objectMapper.writeValueAsBytes(response));
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * PUT /api/platform/plans/{planCode} - Change a plan's name and entitlements.
+     * Takes effect on all nodes within the catalog refresh interval; existing tenants'
+     * entitlement rows are re-synced by a background job whose progress is returned.
+     */
+    @PutMapping("/plans/{planCode}")
+    @PreAuthorize("hasRole('PLATFORM_ADMIN')")
+    public ResponseEntity<PlanResyncJobResponse> updatePlan(@PathVariable String planCode,
+                                                            @Valid @RequestBody PlanUpdateRequest request) {
+        PlanResyncJobResponse job = planCatalogService.updatePlan(planCode, request);
+        if (job == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * GET /api/platform/plans/resync-jobs - Progress of the most recent plan re-sync jobs
+     */
+    @GetMapping("/plans/resync-jobs")
+    @PreAuthorize("hasRole('PLATFORM_ADMIN')")
+    public ResponseEntity<List<PlanResyncJobResponse>> getResyncJobs() {
+        return ResponseEntity.ok(planCatalogService.getResyncJobs());
+    }
+}
@@ -1,15 +1,27 @@
 package com.kitly.saas.entitlement.controller;
 
 import com.kitly.saas.common.context.TenantContextHolder;
+import com.kitly.saas.common.exception.BadRequestException;
+import com.kitly.saas.common.exception.ResourceNotFoundException;
+import com.kitly.saas.common.util.ETags;
+import com.kitly.saas.entitlement.CompiledEntitlements;
+import com.kitly.saas.entitlement.EntitlementClaimCodec;
+import com.kitly.saas.entitlement.EntitlementCheckResponse;
+import com.kitly.saas.entitlement.EntitlementKeys;
 import com.kitly.saas.entitlement.EntitlementResponse;
-import com.kitly.saas.entitlement.EntitlementService;
+import com.kitly.saas.entitlement.EntitlementSnapshotCache;
 import com.kitly.saas.entitlement.PlanCatalog;
 import com.kitly.saas.security.annotation.TenantAccessCheck;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -20,18 +32,44 @@ import java.util.stream.Collectors;
 @RequestMapping("/api")
 public class EntitlementController {
     
-    private final EntitlementService entitlementService;
+    private static final int MAX_CHECK_KEYS = 50;
     
-    public EntitlementController(EntitlementService entitlementService) {
-        this.entitlementService = entitlementService;
+    private final EntitlementSnapshotCache entitlementSnapshotCache;
+    private final EntitlementClaimCodec entitlementClaimCodec;
+    
+    public EntitlementController(EntitlementSnapshotCache entitlementSnapshotCache,
+                                 EntitlementClaimCodec entitlementClaimCodec) {
+        this.entitlementSnapshotCache = entitlementSnapshotCache;
+        this.entitlementClaimCodec = entitlementClaimCodec;
     }
     
     /**
      * GET /api/plans - Get catalog of available plans
      */
     @GetMapping("/plans")
-    public ResponseEntity<Map<String, PlanCatalog.PlanDefinition>> getPlanCatalog() {
-        return ResponseEntity.ok(PlanCatalog.getAllPlans());
+    public ResponseEntity<Map<String, PlanCatalog.PlanDefinition>> getPlanCatalog(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = ETags.of("plans", PlanCatalog.getFingerprint());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(ETags.REVALIDATE).body(PlanCatalog.getAllPlans());
+    }
+    
+    /**
+     * GET /api/plans/entitlement-keys - Key table for decoding the {@code ent} claim of session tokens.
+     * Without {@code catalogVersion} the table of the installed catalog is returned.
+     */
+    @GetMapping("/plans/entitlement-keys")
+    public ResponseEntity<EntitlementClaimCodec.KeyTable> getEntitlementKeyTable(
+            @RequestParam(value = "catalogVersion", required = false) Long catalogVersion) {
+        if (catalogVersion == null) {
+            return ResponseEntity.ok().cacheControl(ETags.REVALIDATE).body(entitlementClaimCodec.getKeyTable());
+        }
+        // The table of a given catalog version never changes
+        return entitlementClaimCodec.getKeyTable(catalogVersion)
+                .map(table -> ResponseEntity.ok().cacheControl(CacheControl.maxAge(Duration.ofDays(1))).body(table))
+                .orElseThrow(() -> new ResourceNotFoundException("Unknown catalog version: " + catalogVersion));
     }
     
     /**
@@ -40,9 +78,10 @@ public class EntitlementController {
     @GetMapping("/tenants/{tenantId}/entitlements")
     @PreAuthorize("hasAnyRole('OWNER', 'ADMIN', 'MEMBER')")
     @TenantAccessCheck
-    public ResponseEntity<EntitlementResponse> getTenantEntitlements(@PathVariable UUID tenantId) {
-        EntitlementResponse entitlements = entitlementService.computeEntitlements(tenantId);
-        return ResponseEntity.ok(entitlements);
+    public ResponseEntity<EntitlementResponse> getTenantEntitlements(
+            @PathVariable UUID tenantId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return conditionalEntitlements(tenantId, ifNoneMatch);
     }
     
     /**
@@ -50,13 +89,66 @@ public class EntitlementController {
      */
     @GetMapping("/entitlements/me")
     @PreAuthorize("hasAnyRole('OWNER', 'ADMIN', 'MEMBER')")
-    public ResponseEntity<EntitlementResponse> getMyEntitlements() {
+    public ResponseEntity<EntitlementResponse> getMyEntitlements(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         UUID tenantId = TenantContextHolder.getTenantId();
         if (tenantId == null) {
             return ResponseEntity.badRequest().build();
         }
         
-        EntitlementResponse entitlements = entitlementService.computeEntitlements(tenantId);
-        return ResponseEntity.ok(entitlements);
+        return conditionalEntitlements(tenantId, ifNoneMatch);
+    }
+    
+    /**
+     * GET /api/entitlements/me/check?key=... - Look up one or a few entitlement keys for the current tenant
+     */
+    @GetMapping("/entitlements/me/check")
+    @PreAuthorize("hasAnyRole('OWNER', 'ADMIN', 'MEMBER')")
+    public ResponseEntity<EntitlementCheckResponse> checkMyEntitlements(@RequestParam("key") List<String> keys) {
+        UUID tenantId = TenantContextHolder.getTenantId();
+        if (tenantId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (keys.isEmpty() || keys.size() > MAX_CHECK_KEYS) {
+            throw new BadRequestException("Between 1 and " + MAX_CHECK_KEYS + " keys can be checked at once");
+        }
+        
+        CompiledEntitlements compiled = entitlementSnapshotCache.getCompiled(tenantId);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String key : keys) {
+            int id = EntitlementKeys.idOf(key);
+            if (compiled.isFeature(id)) {
+                values.put(key, compiled.isEnabled(id));
+            } else {
+                long limit = compiled.getLimit(id);
+                values.put(key, limit != CompiledEntitlements.NOT_SET ? limit : null);
+            }
+        }
+        
+        return ResponseEntity.ok(EntitlementCheckResponse.builder()
+                .tenantId(tenantId)
+                .entitlementVersion(compiled.getVersion())
+                .values(values)
+                .build());
+    }
+    
+    /**
+     * The ETag is derived from the entitlement version alone, so a matching client is
+     * answered without computing or serializing the entitlements.
+     */
+    private ResponseEntity<EntitlementResponse> conditionalEntitlements(UUID tenantId, String ifNoneMatch) {
+        Optional<Long> version = entitlementSnapshotCache.currentVersion(tenantId);
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(entitlementSnapshotCache.get(tenantId, version));
+        }
+        
+        String etag = ETags.of("entitlements", tenantId, version.get());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(ETags.REVALIDATE)
+                .body(entitlementSnapshotCache.get(tenantId, version));
     }
 }
@@ -0,0 +1,73 @@
+package com.kitly.saas.entitlement.listener;
+
+import com.kitly.saas.common.invalidation.InvalidationBus;
+import com.kitly.saas.common.invalidation.InvalidationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Relays entitlement version bumps between nodes over the {@link InvalidationBus}.
+ *
+ * <p>Committed local bumps are sent as {@code tenantId:version}. Bumps received from other nodes
+ * are re-published as remote {@link EntitlementsChangedEvent}s, so snapshot caches, quota limits
+ * and session streams of this node react to them as to local ones instead of on their next poll.
+ */
+@Component
+public class EntitlementInvalidationRelay implements InvalidationHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitlementInvalidationRelay.class);
+
+    public static final String TOPIC = "entitlements";
+
+    private final InvalidationBus invalidationBus;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EntitlementInvalidationRelay(InvalidationBus invalidationBus, ApplicationEventPublisher eventPublisher) {
+        this.invalidationBus = invalidationBus;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntitlementsChanged(EntitlementsChangedEvent event) {
+        if (!event.isRemote()) {
+            invalidationBus.publish(TOPIC, event.getTenantId() + ":" + event.getVersion());
+        }
+    }
+
+    @Override
+    public String getTopic() {
+        return TOPIC;
+    }
+
+    @Override
+    public void invalidate(Set<String> keys) {
+        // Only the newest of several bumps of a tenant matters
+        Map<UUID, Long> versions = new HashMap<>();
+        for (String key : keys) {
+            int separator = key.indexOf(':');
+            try {
+                versions.merge(UUID.fromString(key.substring(0, separator)),
+                        Long.parseLong(key.substring(separator + 1)), Math::max);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                logger.warn("Ignoring malformed entitlement invalidation: {}", key);
+            }
+        }
+        versions.forEach((tenantId, version) ->
+                eventPublisher.publishEvent(new EntitlementsChangedEvent(tenantId, version, true)));
+    }
+
+    @Override
+    public void invalidateAll() {
+        // Snapshots are verified against the stored version within verify-interval and
+        // session streams reconcile on their heartbeat, so missed bumps heal on their own
+    }
+}
@@ -1,14 +1,16 @@
 package com.kitly.saas.entitlement.listener;
 
 import com.kitly.saas.entitlement.EntitlementService;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
- * Listener that handles entitlement version bump events
+ * Listener that handles entitlement version bump events.
+ * The bump runs after the triggering transaction commits, so a reader can never
+ * observe the new version together with the old data.
  */
 @Component
 public class EntitlementVersionBumpListener {
@@ -19,7 +21,7 @@ public class EntitlementVersionBumpListener {
         this.entitlementService = entitlementService;
     }
     
-    @EventListener
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void handleVersionBump(EntitlementVersionBumpEvent event) {
         try {
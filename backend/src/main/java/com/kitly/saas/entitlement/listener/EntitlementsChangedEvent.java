@@ -0,0 +1,36 @@
+package com.kitly.saas.entitlement.listener;
+
+import java.util.UUID;
+
+/**
+ * Event published when a tenant's entitlement version has been bumped.
+ * Delivered to transactional listeners after the bump commits.
+ * Bumps committed on other nodes are re-published locally with {@code remote} set.
+ */
+public class EntitlementsChangedEvent {
+    private final UUID tenantId;
+    private final long version;
+    private final boolean remote;
+    
+    public EntitlementsChangedEvent(UUID tenantId, long version) {
+        this(tenantId, version, false);
+    }
+    
+    public EntitlementsChangedEvent(UUID tenantId, long version, boolean remote) {
+        this.tenantId = tenantId;
+        this.version = version;
+        this.remote = remote;
+    }
+    
+    public UUID getTenantId() {
+        return tenantId;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public boolean isRemote() {
+        return remote;
+    }
+}
@@ -0,0 +1,37 @@
+package com.kitly.saas.entitlement.listener;
+
+import java.util.UUID;
+
+/**
+ * Event published when a member's role or status in a tenant has been changed.
+ * Delivered to transactional listeners after the change commits.
+ */
+public class MembershipChangedEvent {
+    private final UUID tenantId;
+    private final String username;
+    private final String role;
+    private final String status;
+    
+    public MembershipChangedEvent(UUID tenantId, String username, String role, String status) {
+        this.tenantId = tenantId;
+        this.username = username;
+        this.role = role;
+        this.status = status;
+    }
+    
+    public UUID getTenantId() {
+        return tenantId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,23 @@
+package com.kitly.saas.entitlement.listener;
+
+/**
+ * Event published when a plan of the catalog has been changed in the database.
+ * Delivered to transactional listeners after the change commits.
+ */
+public class PlanCatalogChangedEvent {
+    private final String planCode;
+    private final long version;
+    
+    public PlanCatalogChangedEvent(String planCode, long version) {
+        this.planCode = planCode;
+        this.version = version;
+    }
+    
+    public String getPlanCode() {
+        return planCode;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+}
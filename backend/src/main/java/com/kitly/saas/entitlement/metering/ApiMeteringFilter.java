@@ -0,0 +1,79 @@
+package com.kitly.saas.entitlement.metering;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kitly.saas.common.context.TenantContextHolder;
+import com.kitly.saas.common.exception.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Filter that meters authenticated, tenant-scoped API calls and rejects them with
+ * {@code 429 API_QUOTA_EXCEEDED} once the tenant's monthly quota is used up.
+ * Runs after the tenant context is set; the check itself is in-memory only.
+ */
+@Component
+public class ApiMeteringFilter extends OncePerRequestFilter {
+
+    private final ApiUsageMeter apiUsageMeter;
+    private final ObjectMapper objectMapper;
+
+    public ApiMeteringFilter(ApiUsageMeter apiUsageMeter, ObjectMapper objectMapper) {
+        this.apiUsageMeter = apiUsageMeter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        UUID tenantId = TenantContextHolder.getTenantId();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (tenantId != null && authentication != null && authentication.isAuthenticated()
+                && !apiUsageMeter.tryAcquire(tenantId)) {
+            reject(response);
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        long retryAfterSeconds = Math.max(1, (apiUsageMeter.getPeriodEndMillis() - System.currentTimeMillis()) / 1000);
+        Map<String, Object> details = new HashMap<>();
+        details.put("limitKey", ApiUsageMeter.QUOTA_KEY);
+
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error(HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase())
+                .message("Monthly API call quota exceeded")
+                .code("API_QUOTA_EXCEEDED")
+                .details(details)
+                .build();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
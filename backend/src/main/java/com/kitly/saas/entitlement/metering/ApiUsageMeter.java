@@ -0,0 +1,291 @@
+package com.kitly.saas.entitlement.metering;
+
+import com.kitly.saas.common.exception.NoActiveSubscriptionException;
+import com.kitly.saas.entitlement.CompiledEntitlements;
+import com.kitly.saas.entitlement.EntitlementSnapshotCache;
+import com.kitly.saas.entitlement.listener.EntitlementsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts API calls per tenant and enforces {@code limits.api_calls_per_month}.
+ *
+ * <p>Calls are counted in a {@link LongAdder} per tenant, so concurrent requests of one tenant
+ * do not contend on a single counter. A scheduled flush writes the aggregated deltas to
+ * {@code api_usage} in one transaction and takes back the total across all nodes. The quota
+ * check compares that total plus the unflushed local calls with the tenant's limit, which is
+ * cached here and reloaded by the flush after an entitlement change or every
+ * {@code limit-refresh}. A request therefore only touches the database the first time a
+ * tenant is seen in a month. Several nodes together can overshoot a quota by at most the
+ * calls they accept within one flush interval.
+ */
+@Component
+public class ApiUsageMeter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiUsageMeter.class);
+
+    static final String QUOTA_KEY = "limits.api_calls_per_month";
+
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final ApiUsageService apiUsageService;
+    private final EntitlementSnapshotCache entitlementSnapshotCache;
+    private final Clock clock;
+    private final Map<UUID, TenantUsage> usages = new ConcurrentHashMap<>();
+    // Counters replaced by a new month or evicted while idle, flushed once more and dropped
+    private final Queue<TenantUsage> retired = new ConcurrentLinkedQueue<>();
+    private final long limitRefreshMillis;
+    private final int evictAfterIdleFlushes;
+    private volatile Period period;
+
+    public ApiUsageMeter(ApiUsageService apiUsageService,
+                         EntitlementSnapshotCache entitlementSnapshotCache,
+                         @Value("${metering.limit-refresh:60000}") long limitRefreshMillis,
+                         @Value("${metering.evict-after-idle-flushes:60}") int evictAfterIdleFlushes) {
+        this(apiUsageService, entitlementSnapshotCache, limitRefreshMillis, evictAfterIdleFlushes, Clock.systemUTC());
+    }
+
+    ApiUsageMeter(ApiUsageService apiUsageService,
+                  EntitlementSnapshotCache entitlementSnapshotCache,
+                  long limitRefreshMillis,
+                  int evictAfterIdleFlushes,
+                  Clock clock) {
+        this.apiUsageService = apiUsageService;
+        this.entitlementSnapshotCache = entitlementSnapshotCache;
+        this.limitRefreshMillis = limitRefreshMillis;
+        this.evictAfterIdleFlushes = evictAfterIdleFlushes;
+        this.clock = clock;
+        this.period = Period.of(YearMonth.now(clock));
+    }
+
+    /**
+     * Count a call for a tenant unless its monthly quota is used up.
+     *
+     * @return false if the call must be rejected; rejected calls are not counted
+     */
+    public boolean tryAcquire(UUID tenantId) {
+        YearMonth currentPeriod = currentPeriod();
+        TenantUsage usage = usages.get(tenantId);
+        if (usage == null || !usage.period.equals(currentPeriod)) {
+            usage = load(tenantId, currentPeriod);
+        }
+
+        long limit = usage.limit;
+        if (limit >= 0 && usage.used() >= limit) {
+            return false;
+        }
+        usage.recorded.increment();
+        return true;
+    }
+
+    /**
+     * Calls of a tenant this month as seen by this node, including unflushed ones.
+     */
+    public long getUsage(UUID tenantId) {
+        TenantUsage usage = usages.get(tenantId);
+        return usage != null && usage.period.equals(currentPeriod()) ? usage.used() : 0L;
+    }
+
+    /**
+     * First day of the next month (UTC) in epoch millis, when quotas start over
+     */
+    public long getPeriodEndMillis() {
+        return currentPeriodHolder().endsAtMillis;
+    }
+
+    /**
+     * Reload the cached limit with the next flush once a version bump has committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntitlementsChanged(EntitlementsChangedEvent event) {
+        TenantUsage usage = usages.get(event.getTenantId());
+        if (usage != null) {
+            usage.limitStale = true;
+        }
+    }
+
+    /**
+     * Write the calls counted since the last flush and refresh totals and limits.
+     * A failed write is retried with the next flush, as only written deltas are marked flushed.
+     */
+    @Scheduled(fixedDelayString = "${metering.flush-interval:5000}", initialDelay = 5000)
+    public void flush() {
+        long now = clock.millis();
+        Map<YearMonth, Map<UUID, Long>> deltas = new HashMap<>();
+        Map<YearMonth, Map<UUID, TenantUsage>> pending = new HashMap<>();
+        List<TenantUsage> flushedRetired = new ArrayList<>();
+        List<TenantUsage> refresh = new ArrayList<>();
+
+        for (TenantUsage usage = retired.poll(); usage != null; usage = retired.poll()) {
+            if (collect(usage, deltas, pending)) {
+                flushedRetired.add(usage);
+            }
+        }
+        for (TenantUsage usage : usages.values()) {
+            if (collect(usage, deltas, pending)) {
+                usage.idleFlushes = 0;
+            } else if (++usage.idleFlushes >= evictAfterIdleFlushes && usages.remove(usage.tenantId, usage)) {
+                // A call that raced with the eviction is picked up from the retired queue
+                retired.add(usage);
+                continue;
+            }
+            if (usage.limitStale || now - usage.refreshedAt >= limitRefreshMillis) {
+                refresh.add(usage);
+            }
+        }
+
+        for (Map.Entry<YearMonth, Map<UUID, Long>> periodDeltas : deltas.entrySet()) {
+            Map<UUID, TenantUsage> periodUsages = pending.get(periodDeltas.getKey());
+            try {
+                Map<UUID, Long> totals = apiUsageService.addCalls(periodDeltas.getKey(), periodDeltas.getValue());
+                for (Map.Entry<UUID, Long> delta : periodDeltas.getValue().entrySet()) {
+                    TenantUsage usage = periodUsages.get(delta.getKey());
+                    usage.flushed += delta.getValue();
+                    Long total = totals.get(delta.getKey());
+                    if (total != null) {
+                        usage.offset = total - usage.flushed;
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to flush API usage of {} tenants, retrying with next flush",
+                        periodDeltas.getValue().size(), e);
+                for (TenantUsage usage : periodUsages.values()) {
+                    if (flushedRetired.contains(usage)) {
+                        retired.add(usage);
+                    }
+                }
+            }
+        }
+
+        refresh(refresh, now);
+    }
+
+    private boolean collect(TenantUsage usage, Map<YearMonth, Map<UUID, Long>> deltas,
+                            Map<YearMonth, Map<UUID, TenantUsage>> pending) {
+        long delta = usage.recorded.sum() - usage.flushed;
+        if (delta <= 0) {
+            return false;
+        }
+        deltas.computeIfAbsent(usage.period, p -> new HashMap<>()).put(usage.tenantId, delta);
+        pending.computeIfAbsent(usage.period, p -> new HashMap<>()).put(usage.tenantId, usage);
+        return true;
+    }
+
+    /**
+     * Pick up calls counted on other nodes and reload limits, one query per 1000 tenants.
+     */
+    private void refresh(List<TenantUsage> refresh, long now) {
+        YearMonth currentPeriod = currentPeriod();
+        List<TenantUsage> current = refresh.stream().filter(usage -> usage.period.equals(currentPeriod)).toList();
+        for (int from = 0; from < current.size(); from += REFRESH_BATCH_SIZE) {
+            List<TenantUsage> batch = current.subList(from, Math.min(from + REFRESH_BATCH_SIZE, current.size()));
+            try {
+                Map<UUID, Long> totals = apiUsageService.getCallCounts(
+                        batch.stream().map(usage -> usage.tenantId).toList(), currentPeriod);
+                for (TenantUsage usage : batch) {
+                    // Only read on the flush thread, so the flushed count cannot move meanwhile
+                    usage.offset = Math.max(usage.offset, totals.getOrDefault(usage.tenantId, 0L) - usage.flushed);
+                    usage.limitStale = false;
+                    usage.limit = loadLimit(usage.tenantId);
+                    usage.refreshedAt = now;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to refresh API usage of {} tenants", batch.size(), e);
+            }
+        }
+    }
+
+    private TenantUsage load(UUID tenantId, YearMonth currentPeriod) {
+        TenantUsage loaded = new TenantUsage(tenantId, currentPeriod,
+                apiUsageService.getCallCount(tenantId, currentPeriod), loadLimit(tenantId), clock.millis());
+        TenantUsage[] replaced = new TenantUsage[1];
+        TenantUsage usage = usages.compute(tenantId, (id, existing) -> {
+            if (existing != null && existing.period.equals(currentPeriod)) {
+                return existing;
+            }
+            replaced[0] = existing;
+            return loaded;
+        });
+        if (replaced[0] != null) {
+            retired.add(replaced[0]);
+        }
+        return usage;
+    }
+
+    private long loadLimit(UUID tenantId) {
+        long limit;
+        try {
+            limit = entitlementSnapshotCache.getCompiled(tenantId).getLimit(QUOTA_KEY);
+        } catch (NoActiveSubscriptionException e) {
+            // Past due or cancelled: nothing is granted, as in the entitlement checks. The limit
+            // is re-read like any other once the status changes.
+            return 0;
+        }
+        // Counted but not enforced without a numeric limit
+        return limit == CompiledEntitlements.NOT_SET ? CompiledEntitlements.UNLIMITED : limit;
+    }
+
+    private YearMonth currentPeriod() {
+        return currentPeriodHolder().month;
+    }
+
+    private Period currentPeriodHolder() {
+        Period current = period;
+        if (clock.millis() >= current.endsAtMillis) {
+            current = Period.of(YearMonth.now(clock));
+            period = current;
+        }
+        return current;
+    }
+
+    private record Period(YearMonth month, long endsAtMillis) {
+
+        private static Period of(YearMonth month) {
+            return new Period(month, month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    private static final class TenantUsage {
+        private final UUID tenantId;
+        private final YearMonth period;
+        private final LongAdder recorded = new LongAdder();
+        // Calls counted elsewhere, i.e. stored total minus what this node flushed; only written by the flush
+        private volatile long offset;
+        private volatile long limit;
+        private volatile boolean limitStale;
+        // Only accessed by the flush
+        private long flushed;
+        private long refreshedAt;
+        private int idleFlushes;
+
+        private TenantUsage(UUID tenantId, YearMonth period, long storedTotal, long limit, long refreshedAt) {
+            this.tenantId = tenantId;
+            this.period = period;
+            this.offset = storedTotal;
+            this.limit = limit;
+            this.refreshedAt = refreshedAt;
+        }
+
+        private long used() {
+            return offset + recorded.sum();
+        }
+    }
+}
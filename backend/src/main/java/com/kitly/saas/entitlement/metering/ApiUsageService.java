@@ -0,0 +1,65 @@
+package com.kitly.saas.entitlement.metering;
+
+import com.kitly.saas.repository.ApiUsageRepository;
+import com.kitly.saas.repository.TenantCount;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Service for reading and writing the monthly API call counters of tenants.
+ */
+@Service
+public class ApiUsageService {
+    
+    private final ApiUsageRepository apiUsageRepository;
+    
+    public ApiUsageService(ApiUsageRepository apiUsageRepository) {
+        this.apiUsageRepository = apiUsageRepository;
+    }
+    
+    /**
+     * Calls counted for a tenant in a month, across all nodes, as of their last flush.
+     */
+    @Transactional(readOnly = true)
+    public long getCallCount(UUID tenantId, YearMonth period) {
+        return apiUsageRepository.findCallCount(tenantId, period.atDay(1)).orElse(0L);
+    }
+    
+    /**
+     * Calls counted in a month for a set of tenants; tenants without calls are omitted.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, Long> getCallCounts(Collection<UUID> tenantIds, YearMonth period) {
+        Map<UUID, Long> counts = new HashMap<>();
+        for (TenantCount count : apiUsageRepository.findCallCounts(tenantIds, period.atDay(1))) {
+            counts.put(count.getTenantId(), count.getTotal());
+        }
+        return counts;
+    }
+    
+    /**
+     * Add aggregated call deltas to the tenants' counters in one transaction.
+     * Rows are written in tenant id order so concurrent flushes from several nodes
+     * lock them in the same order and cannot deadlock.
+     *
+     * @return New totals per tenant; tenants that no longer exist are omitted
+     */
+    @Transactional
+    public Map<UUID, Long> addCalls(YearMonth period, Map<UUID, Long> deltas) {
+        Map<UUID, Long> totals = new HashMap<>();
+        for (Map.Entry<UUID, Long> delta : new TreeMap<>(deltas).entrySet()) {
+            Long total = apiUsageRepository.addCalls(delta.getKey(), period.atDay(1), delta.getValue());
+            if (total != null) {
+                totals.put(delta.getKey(), total);
+            }
+        }
+        return totals;
+    }
+}
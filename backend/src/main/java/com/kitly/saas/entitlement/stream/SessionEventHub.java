@@ -0,0 +1,448 @@
+package com.kitly.saas.entitlement.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kitly.saas.common.exception.ServiceOverloadedException;
+import com.kitly.saas.entitlement.listener.EntitlementsChangedEvent;
+import com.kitly.saas.entitlement.listener.MembershipChangedEvent;
+import com.kitly.saas.entity.Membership;
+import com.kitly.saas.repository.EntitlementVersionRepository;
+import com.kitly.saas.repository.TenantVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes entitlement and membership changes to connected tenant sessions over Server-Sent Events.
+ *
+ * <p>Connections are grouped into one channel per tenant. A version bump costs one map lookup
+ * when nobody of the tenant is connected. Otherwise the event is serialized once and written to
+ * every connection of the tenant from a small dispatch pool, so the committing thread never
+ * waits on client sockets. Bumps that arrive while a channel is still being written are
+ * coalesced into the newest version, and each connection only ever sees increasing versions.
+ *
+ * <p>Every connection has its own queue, written by one dispatch task at a time, so a slow
+ * client only holds up itself. A client more than {@code max-queued-events} behind, or stuck
+ * in one write for longer than {@code send-timeout}, is dropped and reconnects later.
+ *
+ * <p>Idle connections hold no request thread and no database connection, only an async
+ * request and a set entry. A periodic heartbeat keeps proxies from closing them, drops clients that went away, and picks
+ * up bumps committed on other nodes with one batched version query per 1000 tenants.
+ */
+@Component
+public class SessionEventHub implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionEventHub.class);
+
+    static final String ENTITLEMENTS_EVENT = "entitlements";
+    static final String MEMBERSHIP_EVENT = "membership";
+
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    // Queued after the last event of a stream that is to be closed once written
+    private static final SseEmitter.SseEventBuilder CLOSE = SseEmitter.event();
+
+    private final EntitlementVersionRepository entitlementVersionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final Map<UUID, TenantChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final long timeoutMillis;
+    private final long reconnectMillis;
+    private final int maxConnections;
+    private final int maxQueuedEvents;
+    private final long sendTimeoutNanos;
+
+    @Autowired
+    public SessionEventHub(EntitlementVersionRepository entitlementVersionRepository,
+                           DataSource dataSource,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${sessions.events.timeout:1800000}") long timeoutMillis,
+                           @Value("${sessions.events.reconnect-delay:5000}") long reconnectMillis,
+                           @Value("${sessions.events.max-connections:50000}") int maxConnections,
+                           @Value("${sessions.events.max-queued-events:16}") int maxQueuedEvents,
+                           @Value("${sessions.events.send-timeout:10000}") long sendTimeoutMillis,
+                           @Value("${sessions.events.dispatch-threads:4}") int dispatchThreads) {
+        this(entitlementVersionRepository, new JdbcTemplate(dataSource), objectMapper, meterRegistry, timeoutMillis,
+                reconnectMillis, maxConnections, maxQueuedEvents, sendTimeoutMillis, newDispatchPool(dispatchThreads));
+    }
+
+    SessionEventHub(EntitlementVersionRepository entitlementVersionRepository,
+                    JdbcTemplate jdbcTemplate,
+                    ObjectMapper objectMapper,
+                    MeterRegistry meterRegistry,
+                    long timeoutMillis,
+                    long reconnectMillis,
+                    int maxConnections,
+                    int maxQueuedEvents,
+                    long sendTimeoutMillis,
+                    Executor executor) {
+        this.entitlementVersionRepository = entitlementVersionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.reconnectMillis = reconnectMillis;
+        this.maxConnections = maxConnections;
+        this.maxQueuedEvents = maxQueuedEvents;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.executor = executor;
+        meterRegistry.gauge("sessions.events.connections", connectionCount);
+        meterRegistry.gauge("sessions.events.tenants", channels, Map::size);
+    }
+
+    /**
+     * Open an event stream for a user's session in a tenant.
+     * The first event carries the tenant's current entitlement version, so a reconnecting
+     * client learns about anything it missed without a separate request.
+     *
+     * @throws ServiceOverloadedException if this node already holds {@code max-connections} streams
+     */
+    public SseEmitter subscribe(UUID tenantId, String username) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            throw new ServiceOverloadedException("Too many open event streams", true, RETRY_AFTER_SECONDS);
+        }
+
+        long currentVersion;
+        try {
+            currentVersion = findCurrentVersion(tenantId).orElse(1L);
+        } catch (RuntimeException e) {
+            connectionCount.decrementAndGet();
+            throw e;
+        }
+
+        SseEmitter emitter = newEmitter(timeoutMillis);
+        Connection connection = new Connection(username, emitter);
+        TenantChannel channel = channels.compute(tenantId, (id, existing) -> {
+            TenantChannel target = existing != null ? existing : new TenantChannel(id, currentVersion);
+            target.connections.add(connection);
+            return target;
+        });
+        emitter.onCompletion(() -> remove(tenantId, connection));
+        emitter.onTimeout(() -> remove(tenantId, connection));
+        emitter.onError(e -> remove(tenantId, connection));
+
+        // Under the channel lock so the first event cannot overtake a newer one being fanned out
+        synchronized (channel) {
+            long version = Math.max(currentVersion, channel.sentVersion);
+            enqueue(tenantId, connection, entitlementsEvent(tenantId, version).reconnectTime(reconnectMillis));
+        }
+        return emitter;
+    }
+
+    /**
+     * Read the tenant's version over plain JDBC. A repository call would go through the
+     * request's open-in-view EntityManager, which then holds on to its JDBC connection for
+     * as long as the stream stays open.
+     */
+    Optional<Long> findCurrentVersion(UUID tenantId) {
+        return jdbcTemplate.queryForList("SELECT version FROM entitlement_versions WHERE tenant_id = ?",
+                Long.class, tenantId).stream().findFirst();
+    }
+
+    /**
+     * Fan out a committed version bump to the tenant's connections.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntitlementsChanged(EntitlementsChangedEvent event) {
+        publishVersion(event.getTenantId(), event.getVersion());
+    }
+
+    /**
+     * Tell the affected user's connections about a committed role or status change.
+     * Streams of a member who is no longer active are closed after the event.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        TenantChannel channel = channels.get(event.getTenantId());
+        if (channel == null) {
+            return;
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("tenantId", event.getTenantId());
+        payload.put("role", event.getRole());
+        payload.put("status", event.getStatus());
+        String data = toJson(payload);
+        boolean active = Membership.MembershipStatus.ACTIVE.name().equals(event.getStatus());
+
+        for (Connection connection : channel.connections) {
+            if (connection.username.equals(event.getUsername())) {
+                enqueue(channel.tenantId, connection, SseEmitter.event().name(MEMBERSHIP_EVENT).data(data));
+                if (!active) {
+                    enqueue(channel.tenantId, connection, CLOSE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keep idle connections alive, drop stuck ones and deliver bumps that were committed on
+     * other nodes.
+     */
+    @Scheduled(fixedDelayString = "${sessions.events.heartbeat-interval:30000}", initialDelay = 30000)
+    public void heartbeat() {
+        if (channels.isEmpty()) {
+            return;
+        }
+
+        List<UUID> tenantIds = new ArrayList<>(channels.keySet());
+        try {
+            for (int from = 0; from < tenantIds.size(); from += RECONCILE_BATCH_SIZE) {
+                List<UUID> batch = tenantIds.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, tenantIds.size()));
+                for (TenantVersion version : entitlementVersionRepository.findVersionsByTenantIdIn(batch)) {
+                    publishVersion(version.getTenantId(), version.getVersion());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to reconcile entitlement versions of streamed tenants", e);
+        }
+
+        long now = System.nanoTime();
+        for (TenantChannel channel : channels.values()) {
+            for (Connection connection : channel.connections) {
+                long writeStartedAt = connection.writeStartedAt;
+                if (writeStartedAt != 0 && now - writeStartedAt > sendTimeoutNanos) {
+                    // The stuck writer holds the emitter's lock; it completes the stream once its write returns
+                    logger.debug("Dropping stalled event stream of {} in tenant {}", connection.username, channel.tenantId);
+                    remove(channel.tenantId, connection);
+                } else {
+                    enqueue(channel.tenantId, connection, SseEmitter.event().comment("keepalive"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of open streams on this node
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    void publishVersion(UUID tenantId, long version) {
+        TenantChannel channel = channels.get(tenantId);
+        if (channel == null) {
+            return;
+        }
+        channel.pendingVersion.accumulateAndGet(version, Math::max);
+        if (channel.scheduled.compareAndSet(false, true)) {
+            dispatch(() -> drain(channel));
+        }
+    }
+
+    private void drain(TenantChannel channel) {
+        synchronized (channel) {
+            channel.scheduled.set(false);
+            long version = channel.pendingVersion.get();
+            if (version <= channel.sentVersion) {
+                return;
+            }
+            channel.sentVersion = version;
+
+            // Serialized once per bump; the event builders only wrap the shared string
+            String data = versionPayload(channel.tenantId, version);
+            for (Connection connection : channel.connections) {
+                enqueue(channel.tenantId, connection, SseEmitter.event()
+                        .name(ENTITLEMENTS_EVENT).id(Long.toString(version)).data(data));
+            }
+        }
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private SseEmitter.SseEventBuilder entitlementsEvent(UUID tenantId, long version) {
+        return SseEmitter.event()
+                .name(ENTITLEMENTS_EVENT)
+                .id(Long.toString(version))
+                .data(versionPayload(tenantId, version));
+    }
+
+    private String versionPayload(UUID tenantId, long version) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("tenantId", tenantId);
+        payload.put("entitlementVersion", version);
+        return toJson(payload);
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize session event", e);
+        }
+    }
+
+    /**
+     * Queue an event for a connection and start its writer if none is running.
+     */
+    private void enqueue(UUID tenantId, Connection connection, SseEmitter.SseEventBuilder event) {
+        if (connection.closed.get()) {
+            return;
+        }
+        if (connection.queued.incrementAndGet() > maxQueuedEvents) {
+            // Only possible while its writer is busy; the writer completes the stream
+            logger.debug("Dropping event stream of {} in tenant {}: too far behind", connection.username, tenantId);
+            remove(tenantId, connection);
+            return;
+        }
+        connection.queue.add(event);
+        if (connection.writing.compareAndSet(false, true)) {
+            dispatch(() -> write(tenantId, connection));
+        }
+    }
+
+    /**
+     * Write a connection's queued events in order. Runs on one dispatch thread at a time.
+     */
+    private void write(UUID tenantId, Connection connection) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = connection.queue.poll()) != null) {
+                connection.queued.decrementAndGet();
+                if (event == CLOSE || connection.closed.get()) {
+                    close(tenantId, connection);
+                    connection.queue.clear();
+                    break;
+                }
+                connection.writeStartedAt = System.nanoTime();
+                try {
+                    send(tenantId, connection, event);
+                } finally {
+                    connection.writeStartedAt = 0;
+                }
+            }
+            connection.writing.set(false);
+            // An event queued after the last poll but before the flag was cleared needs a writer
+        } while (!connection.queue.isEmpty() && connection.writing.compareAndSet(false, true));
+    }
+
+    private void send(UUID tenantId, Connection connection, SseEmitter.SseEventBuilder event) {
+        if (connection.closed.get()) {
+            return;
+        }
+        try {
+            connection.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container completes the async request on its own
+            logger.debug("Dropping event stream of {} in tenant {}: {}", connection.username, tenantId, e.getMessage());
+            remove(tenantId, connection);
+        }
+    }
+
+    private void close(UUID tenantId, Connection connection) {
+        try {
+            connection.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed
+        }
+        remove(tenantId, connection);
+    }
+
+    private void remove(UUID tenantId, Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connectionCount.decrementAndGet();
+        channels.computeIfPresent(tenantId, (id, channel) -> {
+            channel.connections.remove(connection);
+            return channel.connections.isEmpty() ? null : channel;
+        });
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Session event dropped during shutdown");
+        }
+    }
+
+    private static ExecutorService newDispatchPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "session-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        // Completing the streams makes clients reconnect to a node that is still running
+        for (TenantChannel channel : channels.values()) {
+            for (Connection connection : channel.connections) {
+                close(channel.tenantId, connection);
+            }
+        }
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static final class TenantChannel {
+        private final UUID tenantId;
+        private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+        private final AtomicLong pendingVersion;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Guarded by the channel's monitor
+        private long sentVersion;
+
+        private TenantChannel(UUID tenantId, long version) {
+            this.tenantId = tenantId;
+            this.pendingVersion = new AtomicLong(version);
+            this.sentVersion = version;
+        }
+    }
+
+    private static final class Connection {
+        private final String username;
+        private final SseEmitter emitter;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean writing = new AtomicBoolean();
+        // System.nanoTime() when the current write started, 0 while not writing
+        private volatile long writeStartedAt;
+
+        private Connection(String username, SseEmitter emitter) {
+            this.username = username;
+            this.emitter = emitter;
+        }
+    }
+}
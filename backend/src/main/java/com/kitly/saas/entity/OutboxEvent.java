@@ -54,6 +54,12 @@ public class OutboxEvent {
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
     
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+    
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+    
     @Column(name = "retry_count", nullable = false)
     @Builder.Default
     private Integer retryCount = 0;
@@ -0,0 +1,63 @@
+package com.kitly.saas.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A subscription plan of the catalog with its entitlement values (key to "true"/"false",
+ * a number or "unlimited"). The version comes from plan_version_seq and grows on every change.
+ */
+@Entity
+@Table(name = "plans")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Plan {
+    
+    @Id
+    @NotBlank
+    @Size(max = 50)
+    private String code;
+    
+    @NotBlank
+    @Size(max = 100)
+    @Column(nullable = false)
+    private String name;
+    
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb", nullable = false)
+    @Builder.Default
+    private Map<String, String> entitlements = new HashMap<>();
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
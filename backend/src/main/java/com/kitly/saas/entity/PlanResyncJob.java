@@ -0,0 +1,90 @@
+package com.kitly.saas.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Background re-sync of every tenant on a plan after the plan changed.
+ * Progress is persisted after each page so the job resumes from lastTenantId after a restart.
+ */
+@Entity
+@Table(name = "plan_resync_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanResyncJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    
+    @Column(name = "plan_code", nullable = false, length = 50)
+    private String planCode;
+    
+    @Column(name = "plan_version", nullable = false)
+    private Long planVersion;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private ResyncStatus status = ResyncStatus.PENDING;
+    
+    @Column(name = "total_tenants", nullable = false)
+    @Builder.Default
+    private long totalTenants = 0;
+    
+    @Column(name = "processed_tenants", nullable = false)
+    @Builder.Default
+    private long processedTenants = 0;
+    
+    @Column(name = "changed_tenants", nullable = false)
+    @Builder.Default
+    private long changedTenants = 0;
+    
+    @Column(name = "failed_tenants", nullable = false)
+    @Builder.Default
+    private long failedTenants = 0;
+    
+    @Column(name = "last_tenant_id")
+    private UUID lastTenantId;
+    
+    @Column(length = 100)
+    private String owner;
+    
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    public enum ResyncStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        SUPERSEDED
+    }
+}
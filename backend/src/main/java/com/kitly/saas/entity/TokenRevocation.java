@@ -0,0 +1,53 @@
+package com.kitly.saas.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A revoked token (by jti) or a revoked user/tenant pair (all tokens issued before revokedBefore).
+ */
+@Entity
+@Table(name = "token_revocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevocation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    
+    @Size(max = 64)
+    private String jti;
+    
+    @Size(max = 50)
+    private String username;
+    
+    @Column(name = "tenant_id")
+    private UUID tenantId;
+    
+    @Column(name = "revoked_before")
+    private LocalDateTime revokedBefore;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Size(max = 255)
+    private String reason;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
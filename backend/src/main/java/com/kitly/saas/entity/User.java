@@ -1,5 +1,6 @@
 package com.kitly.saas.entity;
 
+import com.kitly.saas.security.PrincipalCacheInvalidationListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -16,6 +17,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(PrincipalCacheInvalidationListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
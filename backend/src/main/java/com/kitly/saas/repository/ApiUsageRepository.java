@@ -0,0 +1,38 @@
+package com.kitly.saas.repository;
+
+import com.kitly.saas.entity.ApiUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ApiUsageRepository extends JpaRepository<ApiUsage, UUID> {
+    
+    @Query("SELECT u.callCount FROM ApiUsage u WHERE u.tenant.id = :tenantId AND u.periodStart = :periodStart")
+    Optional<Long> findCallCount(@Param("tenantId") UUID tenantId, @Param("periodStart") LocalDate periodStart);
+    
+    @Query("SELECT u.tenant.id AS tenantId, u.callCount AS total FROM ApiUsage u "
+            + "WHERE u.tenant.id IN :tenantIds AND u.periodStart = :periodStart")
+    List<TenantCount> findCallCounts(@Param("tenantIds") Collection<UUID> tenantIds,
+                                     @Param("periodStart") LocalDate periodStart);
+    
+    /**
+     * Add calls to a tenant's counter for a period in one statement, creating the row if needed,
+     * and return the new total across all nodes. Returns null if the tenant no longer exists,
+     * so one deleted tenant cannot abort a whole flush.
+     */
+    @Query(value = "INSERT INTO api_usage (tenant_id, period_start, call_count, updated_at) "
+            + "SELECT t.id, :periodStart, :delta, CURRENT_TIMESTAMP FROM tenants t WHERE t.id = :tenantId "
+            + "ON CONFLICT (tenant_id, period_start) DO UPDATE "
+            + "SET call_count = api_usage.call_count + EXCLUDED.call_count, updated_at = CURRENT_TIMESTAMP "
+            + "RETURNING call_count", nativeQuery = true)
+    Long addCalls(@Param("tenantId") UUID tenantId, @Param("periodStart") LocalDate periodStart,
+                  @Param("delta") long delta);
+}
@@ -3,6 +3,8 @@ package com.kitly.saas.repository;
 import com.kitly.saas.entity.ApplicationSetting;
 import com.kitly.saas.entity.Tenant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,6 +19,9 @@ public interface ApplicationSettingRepository extends JpaRepository<ApplicationS
     List<ApplicationSetting> findByTenantAndIsPublic(Tenant tenant, Boolean isPublic);
 
     Optional<ApplicationSetting> findByTenantAndKey(Tenant tenant, String key);
+    
+    @Query("SELECT MAX(a.updatedAt) AS lastUpdated, COUNT(a) AS rowCount FROM ApplicationSetting a WHERE a.tenant.id = :tenantId")
+    ChangeStamp findChangeStampByTenantId(@Param("tenantId") UUID tenantId);
 
     boolean existsByTenantAndKey(Tenant tenant, String key);
 
@@ -0,0 +1,14 @@
+package com.kitly.saas.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap change detector for a set of rows: the newest updated_at and the row count.
+ * Inserts and updates move the timestamp, deletes change the count.
+ */
+public interface ChangeStamp {
+    
+    LocalDateTime getLastUpdated();
+    
+    long getRowCount();
+}
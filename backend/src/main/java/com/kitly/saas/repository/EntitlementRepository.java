@@ -5,6 +5,7 @@ import com.kitly.saas.entity.Tenant;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,6 +17,8 @@ public interface EntitlementRepository extends JpaRepository<Entitlement, UUID>
     
     List<Entitlement> findByTenantAndEnabled(Tenant tenant, Boolean enabled);
     
+    List<Entitlement> findByTenantIdInAndEnabled(Collection<UUID> tenantIds, Boolean enabled);
+    
     Optional<Entitlement> findByTenantAndFeatureKey(Tenant tenant, String featureKey);
     
     List<Entitlement> findByFeatureKey(String featureKey);
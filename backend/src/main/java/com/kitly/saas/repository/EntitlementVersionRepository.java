@@ -3,8 +3,12 @@ package com.kitly.saas.repository;
 import com.kitly.saas.entity.EntitlementVersion;
 import com.kitly.saas.entity.Tenant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +16,32 @@ import java.util.UUID;
 public interface EntitlementVersionRepository extends JpaRepository<EntitlementVersion, UUID> {
     
     Optional<EntitlementVersion> findByTenant(Tenant tenant);
+    
+    @Query("SELECT v.version FROM EntitlementVersion v WHERE v.tenant.id = :tenantId")
+    Optional<Long> findVersionByTenantId(@Param("tenantId") UUID tenantId);
+    
+    /**
+     * Atomically increment a tenant's version in one statement, creating the row if needed,
+     * and return the new version. A missing row is created at 2: readers treat an absent
+     * version as 1, so the first bump must still move past it.
+     */
+    @Query(value = "INSERT INTO entitlement_versions (tenant_id, version, updated_at) "
+            + "VALUES (:tenantId, 2, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (tenant_id) DO UPDATE "
+            + "SET version = entitlement_versions.version + 1, updated_at = CURRENT_TIMESTAMP "
+            + "RETURNING version", nativeQuery = true)
+    long incrementVersion(@Param("tenantId") UUID tenantId);
+    
+    /**
+     * Create a tenant's version row at 1 unless it exists, returning the stored version either way.
+     * The no-op update on conflict is what makes {@code RETURNING} yield the existing row.
+     */
+    @Query(value = "INSERT INTO entitlement_versions (tenant_id, version, updated_at) "
+            + "VALUES (:tenantId, 1, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (tenant_id) DO UPDATE SET version = entitlement_versions.version "
+            + "RETURNING version", nativeQuery = true)
+    long initializeVersion(@Param("tenantId") UUID tenantId);
+    
+    @Query("SELECT v.tenant.id AS tenantId, v.version AS version FROM EntitlementVersion v WHERE v.tenant.id IN :tenantIds")
+    List<TenantVersion> findVersionsByTenantIdIn(@Param("tenantIds") Collection<UUID> tenantIds);
 }
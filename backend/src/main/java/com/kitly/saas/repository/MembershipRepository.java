@@ -4,8 +4,11 @@ import com.kitly.saas.entity.Membership;
 import com.kitly.saas.entity.Membership.MembershipRole;
 import com.kitly.saas.entity.Membership.MembershipStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,5 +30,10 @@ public interface MembershipRepository extends JpaRepository<Membership, UUID> {
     
     long countByTenantIdAndStatus(UUID tenantId, MembershipStatus status);
     
+    @Query("SELECT m.tenant.id AS tenantId, COUNT(m) AS total FROM Membership m "
+            + "WHERE m.tenant.id IN :tenantIds AND m.status = :status GROUP BY m.tenant.id")
+    List<TenantCount> countByTenantIdInAndStatus(@Param("tenantIds") Collection<UUID> tenantIds,
+                                                 @Param("status") MembershipStatus status);
+    
     boolean existsByTenantIdAndUserId(UUID tenantId, UUID userId);
 }
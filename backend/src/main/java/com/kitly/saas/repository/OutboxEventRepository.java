@@ -2,8 +2,14 @@ package com.kitly.saas.repository;
 
 import com.kitly.saas.entity.OutboxEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,4 +23,103 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID>
     List<OutboxEvent> findByAggregateType(String aggregateType);
     
     List<OutboxEvent> findByEventType(String eventType);
+    
+    /**
+     * Lock the aggregates of the oldest pending events for the rest of the transaction, skipping
+     * aggregates another node is claiming. Each aggregate is claimed by one node at a time, so a
+     * claim sees the events committed as in flight by the previous claim of the same aggregate,
+     * while claims of different aggregates run concurrently.
+     *
+     * @param lockClass First key of the two-key advisory lock, the second is the aggregate's hash
+     * @param window Number of oldest pending events to take the aggregates from
+     * @param limit Maximum number of aggregates to lock
+     * @return The locked aggregates, oldest pending event first
+     */
+    @Query(value = "SELECT c.aggregate_id FROM (SELECT w.aggregate_id FROM "
+            + "(SELECT aggregate_id, created_at FROM outbox_events WHERE status = 'PENDING' "
+            + "ORDER BY created_at LIMIT :window) w "
+            + "GROUP BY w.aggregate_id ORDER BY min(w.created_at)) c "
+            + "WHERE pg_try_advisory_xact_lock(:lockClass, hashtext(CAST(c.aggregate_id AS text))) "
+            + "LIMIT :limit", nativeQuery = true)
+    List<UUID> lockPendingAggregates(@Param("lockClass") int lockClass,
+                                     @Param("window") int window,
+                                     @Param("limit") int limit);
+    
+    /**
+     * Claim the oldest pending events of the given aggregates for one owner until {@code lockedUntil}.
+     * Walks {@code idx_outbox_events_status_created} and skips rows that are locked by
+     * a concurrent update.
+     *
+     * <p>An event is only claimed if no earlier event of its aggregate is in flight on another
+     * node or waiting for a retry, so events of one aggregate are published in order. This relies
+     * on the aggregates having been locked with {@link #lockPendingAggregates} in an earlier
+     * statement of the same transaction.
+     *
+     * @return The claimed events, already marked PROCESSING
+     */
+    @Transactional
+    @Query(value = "UPDATE outbox_events SET status = 'PROCESSING', locked_by = :owner, "
+            + "locked_until = :lockedUntil, updated_at = :now "
+            + "WHERE id IN (SELECT e.id FROM outbox_events e WHERE e.status = 'PENDING' "
+            + "AND e.aggregate_id IN (:aggregateIds) "
+            + "AND NOT EXISTS (SELECT 1 FROM outbox_events p "
+            + "WHERE p.aggregate_id = e.aggregate_id AND p.created_at < e.created_at "
+            + "AND ((p.status = 'PROCESSING' AND p.locked_by <> :owner) "
+            + "OR (p.status = 'FAILED' AND p.retry_count < :maxRetries))) "
+            + "ORDER BY e.created_at LIMIT :limit FOR UPDATE OF e SKIP LOCKED) "
+            + "RETURNING *", nativeQuery = true)
+    List<OutboxEvent> claimPending(@Param("owner") String owner,
+                                   @Param("now") LocalDateTime now,
+                                   @Param("lockedUntil") LocalDateTime lockedUntil,
+                                   @Param("maxRetries") int maxRetries,
+                                   @Param("aggregateIds") Collection<UUID> aggregateIds,
+                                   @Param("limit") int limit);
+    
+    /**
+     * Return events whose lease ran out, e.g. because their node died while publishing, to PENDING.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE outbox_events SET status = 'PENDING', locked_by = NULL, locked_until = NULL, "
+            + "updated_at = :now WHERE status = 'PROCESSING' AND locked_until < :now", nativeQuery = true)
+    int releaseExpiredLeases(@Param("now") LocalDateTime now);
+    
+    /**
+     * Mark claimed events as published.
+     *
+     * @return Number of events still held by the owner; lower if a lease expired meanwhile
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE outbox_events SET status = 'PROCESSED', processed_at = :now, "
+            + "locked_by = NULL, locked_until = NULL, updated_at = :now "
+            + "WHERE id IN (:ids) AND locked_by = :owner AND status = 'PROCESSING'", nativeQuery = true)
+    int markProcessed(@Param("ids") Collection<UUID> ids,
+                      @Param("owner") String owner,
+                      @Param("now") LocalDateTime now);
+    
+    /**
+     * Mark a claimed event as failed, to be picked up again by the retry task.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE outbox_events SET status = 'FAILED', error_message = :error, "
+            + "retry_count = retry_count + 1, locked_by = NULL, locked_until = NULL, updated_at = :now "
+            + "WHERE id = :id AND locked_by = :owner AND status = 'PROCESSING'", nativeQuery = true)
+    int markFailed(@Param("id") UUID id,
+                   @Param("owner") String owner,
+                   @Param("error") String error,
+                   @Param("now") LocalDateTime now);
+    
+    /**
+     * Hand claimed events back to PENDING without publishing them, e.g. when the node is stopping.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE outbox_events SET status = 'PENDING', locked_by = NULL, locked_until = NULL, "
+            + "updated_at = :now WHERE id IN (:ids) AND locked_by = :owner AND status = 'PROCESSING'",
+            nativeQuery = true)
+    int release(@Param("ids") Collection<UUID> ids,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,29 @@
+package com.kitly.saas.repository;
+
+import com.kitly.saas.entity.Plan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PlanRepository extends JpaRepository<Plan, String> {
+    
+    /**
+     * Catalog version: the highest plan version. Cheap enough to poll.
+     */
+    @Query("SELECT MAX(p.version) FROM Plan p")
+    Optional<Long> findCatalogVersion();
+    
+    /**
+     * Serialize plan updates across nodes for the rest of the transaction, so versions
+     * taken from the sequence commit in ascending order.
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT pg_advisory_xact_lock(:key)) AS plan_lock", nativeQuery = true)
+    long lockPlanUpdates(@Param("key") long key);
+    
+    @Query(value = "SELECT nextval('plan_version_seq')", nativeQuery = true)
+    long nextVersion();
+}
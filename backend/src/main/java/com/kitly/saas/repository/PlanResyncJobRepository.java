@@ -0,0 +1,89 @@
+package com.kitly.saas.repository;
+
+import com.kitly.saas.entity.PlanResyncJob;
+import com.kitly.saas.entity.PlanResyncJob.ResyncStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PlanResyncJobRepository extends JpaRepository<PlanResyncJob, UUID> {
+    
+    List<PlanResyncJob> findByStatusInOrderByCreatedAtAsc(Collection<ResyncStatus> statuses);
+    
+    List<PlanResyncJob> findTop20ByOrderByCreatedAtDesc();
+    
+    /**
+     * Take ownership of an unfinished job that nobody else is actively running.
+     *
+     * @return 1 if this node now owns the job
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlanResyncJob j SET j.owner = :owner, j.heartbeatAt = :now, j.status = :running "
+            + "WHERE j.id = :id AND j.status IN :claimable "
+            + "AND (j.owner IS NULL OR j.owner = :owner OR j.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") UUID id,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore,
+              @Param("running") ResyncStatus running,
+              @Param("claimable") Collection<ResyncStatus> claimable);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlanResyncJob j SET j.totalTenants = :total WHERE j.id = :id")
+    int updateTotal(@Param("id") UUID id, @Param("total") long total);
+    
+    /**
+     * Persist one page of progress and refresh the heartbeat.
+     *
+     * @return 0 if the job was superseded or taken over, in which case the caller must stop
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlanResyncJob j SET j.lastTenantId = :cursor, "
+            + "j.processedTenants = j.processedTenants + :processed, "
+            + "j.changedTenants = j.changedTenants + :changed, "
+            + "j.failedTenants = j.failedTenants + :failed, "
+            + "j.heartbeatAt = :now, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.owner = :owner AND j.status = :running")
+    int recordProgress(@Param("id") UUID id,
+                       @Param("owner") String owner,
+                       @Param("cursor") UUID cursor,
+                       @Param("processed") long processed,
+                       @Param("changed") long changed,
+                       @Param("failed") long failed,
+                       @Param("now") LocalDateTime now,
+                       @Param("running") ResyncStatus running);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlanResyncJob j SET j.status = :completed, j.completedAt = :now, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.owner = :owner AND j.status = :running")
+    int complete(@Param("id") UUID id,
+                 @Param("owner") String owner,
+                 @Param("now") LocalDateTime now,
+                 @Param("running") ResyncStatus running,
+                 @Param("completed") ResyncStatus completed);
+    
+    /**
+     * Stop older unfinished jobs for a plan; the newest job re-syncs every tenant anyway.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlanResyncJob j SET j.status = :superseded, j.updatedAt = :now "
+            + "WHERE j.planCode = :planCode AND j.status IN :unfinished")
+    int supersede(@Param("planCode") String planCode,
+                  @Param("now") LocalDateTime now,
+                  @Param("superseded") ResyncStatus superseded,
+                  @Param("unfinished") Collection<ResyncStatus> unfinished);
+}
@@ -1,10 +1,15 @@
 package com.kitly.saas.repository;
 
 import com.kitly.saas.entity.Subscription;
+import com.kitly.saas.entity.Subscription.SubscriptionPlan;
 import com.kitly.saas.entity.Subscription.SubscriptionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,6 +22,27 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, UUID
     List<Subscription> findByTenantId(UUID tenantId);
     
     List<Subscription> findByStatus(SubscriptionStatus status);
+    
+    /**
+     * One page of the tenants on any of the given plans, in tenant id order after a cursor.
+     * Pass the nil UUID to start from the beginning.
+     */
+    @Query("SELECT DISTINCT s.tenant.id FROM Subscription s "
+            + "WHERE s.plan IN :plans AND s.status IN :statuses AND s.tenant.id > :after "
+            + "ORDER BY s.tenant.id")
+    List<UUID> findTenantIdsByPlanAfter(@Param("plans") Collection<SubscriptionPlan> plans,
+                                        @Param("statuses") Collection<SubscriptionStatus> statuses,
+                                        @Param("after") UUID after,
+                                        Pageable page);
+    
+    @Query("SELECT COUNT(DISTINCT s.tenant.id) FROM Subscription s WHERE s.plan IN :plans AND s.status IN :statuses")
+    long countTenantsByPlan(@Param("plans") Collection<SubscriptionPlan> plans,
+                            @Param("statuses") Collection<SubscriptionStatus> statuses);
+    
+    List<Subscription> findByTenantIdInAndStatusIn(Collection<UUID> tenantIds, Collection<SubscriptionStatus> statuses);
 
     Optional<Subscription> findByStripeSubscriptionId(String stripeSubscriptionId);
+    
+    @Query("SELECT MAX(s.updatedAt) AS lastUpdated, COUNT(s) AS rowCount FROM Subscription s WHERE s.tenant.id = :tenantId")
+    ChangeStamp findChangeStampByTenantId(@Param("tenantId") UUID tenantId);
 }
@@ -0,0 +1,13 @@
+package com.kitly.saas.repository;
+
+import java.util.UUID;
+
+/**
+ * Row count per tenant, as returned by grouped set-based queries.
+ */
+public interface TenantCount {
+    
+    UUID getTenantId();
+    
+    long getTotal();
+}
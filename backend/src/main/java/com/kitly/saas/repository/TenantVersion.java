@@ -0,0 +1,13 @@
+package com.kitly.saas.repository;
+
+import java.util.UUID;
+
+/**
+ * Entitlement version of a tenant, as returned by set-based version reads.
+ */
+public interface TenantVersion {
+    
+    UUID getTenantId();
+    
+    long getVersion();
+}
@@ -1,6 +1,7 @@
 package com.kitly.saas.security;
 
 import com.kitly.saas.common.context.TenantContextHolder;
+import com.kitly.saas.security.revocation.TokenRevocationList;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,11 +19,17 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationList revocationList;
     
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, PrincipalCache principalCache,
+                                   VerifiedTokenCache verifiedTokenCache,
+                                   TokenRevocationList revocationList) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revocationList = revocationList;
     }
     
     @Override
@@ -31,35 +38,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwt = null;
+        VerifiedTokenCache.Entry cachedToken = null;
+        VerifiedToken jwt = null;
         
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
+            // Verify the signature at most once per token lifetime; later filters and
+            // controllers reuse the result through the request attribute
+            cachedToken = verifiedTokenCache.get(authorizationHeader.substring(7));
+            jwt = cachedToken.getToken();
+            
+            // Revoked tokens are treated like missing ones: the request stays unauthenticated
+            if (revocationList.isRevoked(jwt)) {
+                jwt = null;
+            } else {
+                request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, jwt);
+            }
         }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (jwt != null && jwt.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // The token is already signed, so the principal can come from cache instead of the DB
+            UserDetails userDetails = this.principalCache.get(jwt.getSubject());
             
             if (jwtUtil.validateToken(jwt, userDetails)) {
                 // Extract tenant ID from JWT and populate TenantContext
-                java.util.UUID tenantId = jwtUtil.extractTenantId(jwt);
+                java.util.UUID tenantId = jwt.getTenantId();
                 if (tenantId != null) {
                     TenantContextHolder.setTenantId(tenantId);
                 }
                 
-                // Extract roles from JWT token (tenant-specific roles)
-                java.util.List<String> tenantRoles = jwtUtil.extractRoles(jwt);
-                
                 // Combine user's global authorities with tenant-specific roles from JWT
-                java.util.Set<org.springframework.security.core.GrantedAuthority> authorities = 
-                        new java.util.HashSet<>(userDetails.getAuthorities());
-                
-                // Add tenant-specific roles with ROLE_ prefix for Spring Security
-                for (String role : tenantRoles) {
-                    authorities.add(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role));
-                }
+                java.util.Set<org.springframework.security.core.GrantedAuthority> authorities =
+                        cachedToken.authoritiesFor(userDetails);
                 
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
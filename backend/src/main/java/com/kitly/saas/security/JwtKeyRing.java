@@ -0,0 +1,128 @@
+package com.kitly.saas.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of HMAC signing keys indexed by key id ({@code kid}).
+ * Keys are derived from configuration once at startup. New tokens are signed with the
+ * active key and tagged with its id, so verification goes straight to the right key.
+ *
+ * <p>Rotation without downtime:
+ * <ol>
+ *   <li>Add the new secret to {@code jwt.previous-keys} on every node (verification only).</li>
+ *   <li>Promote it to {@code jwt.secret}/{@code jwt.key-id} and move the old one to
+ *       {@code jwt.previous-keys}.</li>
+ *   <li>Remove the old key once all tokens signed with it have expired.</li>
+ * </ol>
+ */
+@Component
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private final String activeKeyId;
+    private final Map<String, Key> keys;
+    private final SessionSigningKeys sessionSigningKeys;
+
+    JwtKeyRing(String secret, String keyId, String sessionSecret, String sessionKeyId, String previousKeys) {
+        this(secret, keyId, sessionSecret, sessionKeyId, previousKeys, SessionSigningKeys.hmac());
+    }
+
+    @Autowired
+    public JwtKeyRing(@Value("${jwt.secret}") String secret,
+                      @Value("${jwt.key-id:primary}") String keyId,
+                      @Value("${jwt.session.secret}") String sessionSecret,
+                      @Value("${jwt.session.key-id:session}") String sessionKeyId,
+                      @Value("${jwt.previous-keys:}") String previousKeys,
+                      SessionSigningKeys sessionSigningKeys) {
+        Map<String, Key> ring = new LinkedHashMap<>();
+        addKey(ring, keyId, hmacKey(secret));
+        addKey(ring, sessionKeyId, hmacKey(sessionSecret));
+
+        // Format: kid=secret,kid=secret (accepted for verification only)
+        if (previousKeys != null && !previousKeys.isBlank()) {
+            for (String entry : previousKeys.split(",")) {
+                int separator = entry.indexOf('=');
+                if (separator <= 0 || separator == entry.length() - 1) {
+                    throw new IllegalStateException("Invalid jwt.previous-keys entry, expected kid=secret");
+                }
+                addKey(ring, entry.substring(0, separator).trim(), hmacKey(entry.substring(separator + 1).trim()));
+            }
+        }
+
+        // Public keys of asymmetric session tokens (active, upcoming and retired)
+        for (Map.Entry<String, PublicKey> entry : sessionSigningKeys.getPublicKeys().entrySet()) {
+            addKey(ring, entry.getKey(), entry.getValue());
+        }
+
+        this.activeKeyId = keyId;
+        this.keys = Collections.unmodifiableMap(ring);
+        this.sessionSigningKeys = sessionSigningKeys;
+    }
+
+    /**
+     * Add a verification key, failing on a key id that is already taken so that a
+     * misconfigured ring cannot silently verify with the wrong key.
+     */
+    private static void addKey(Map<String, Key> ring, String keyId, Key key) {
+        if (ring.putIfAbsent(keyId, key) != null) {
+            throw new IllegalStateException("Duplicate JWT key id: " + keyId);
+        }
+    }
+
+    /**
+     * Key id stamped into the header of newly issued tokens.
+     */
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    /**
+     * Key used to sign newly issued tokens.
+     */
+    public SecretKey getActiveKey() {
+        return (SecretKey) keys.get(activeKeyId);
+    }
+
+    /**
+     * Look up a verification key by id.
+     *
+     * @param keyId Key id from the token header
+     * @return The key, or null if the id is unknown
+     */
+    public Key getKey(String keyId) {
+        return keys.get(keyId);
+    }
+
+    /**
+     * Signing configuration for tenant session tokens.
+     */
+    public SessionSigningKeys getSessionSigningKeys() {
+        return sessionSigningKeys;
+    }
+
+    /**
+     * Resolve the verification key from the token header. Tokens issued before key ids
+     * were introduced carry no {@code kid} and were signed with the main secret.
+     */
+    @Override
+    protected Key locate(JwsHeader header) {
+        String keyId = header.getKeyId();
+        return keyId == null ? getActiveKey() : keys.get(keyId);
+    }
+
+    private static SecretKey hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
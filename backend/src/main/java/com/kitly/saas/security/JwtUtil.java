@@ -1,16 +1,16 @@
 package com.kitly.saas.security;
 
+import com.kitly.saas.entitlement.EntitlementClaimCodec;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,18 +19,23 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
     
-    @Value("${jwt.secret}")
-    private String secret;
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    @Value("${jwt.session.secret}")
-    private String sessionSecret;
-    
     @Value("${jwt.session.expiration}")
     private Long sessionExpiration;
     
+    public JwtUtil(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        // Parsers are immutable and thread-safe; the key ring resolves the key from the kid header
+        this.parser = Jwts.parser()
+                .keyLocator(keyRing)
+                .build();
+    }
+    
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -39,36 +44,26 @@ public class JwtUtil {
         return extractClaim(token, Claims::getExpiration);
     }
     
+    /**
+     * Verify the token signature once and decode all claims the application relies on.
+     * Callers within a request should reuse the returned object instead of calling the
+     * individual extract methods, each of which re-verifies the token.
+     *
+     * @param token Raw JWT string
+     * @return Verified token with decoded claims
+     * @throws JwtException if the token cannot be verified with any known key
+     */
+    public VerifiedToken verify(String token) {
+        return VerifiedToken.of(token, extractAllClaims(token));
+    }
+    
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
     
     private Claims extractAllClaims(String token) {
-        // Try to parse with signing key first (main secret)
-        try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-        } catch (JwtException | IllegalArgumentException e) {
-            // If signing key fails, try session key (legacy support)
-            try {
-                return Jwts.parser()
-                        .verifyWith(getSessionSigningKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-            } catch (JwtException ex) {
-                // Log and rethrow for security monitoring
-                throw new JwtException("Failed to parse JWT token with both keys", ex);
-            }
-        }
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     public String generateToken(UserDetails userDetails) {
@@ -114,10 +109,12 @@ public class JwtUtil {
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .claims(claims)
+                .id(java.util.UUID.randomUUID().toString())
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS512)
+                .header().keyId(keyRing.getActiveKeyId()).and()
+                .signWith(keyRing.getActiveKey(), Jwts.SIG.HS512)
                 .compact();
     }
     
@@ -133,35 +130,62 @@ public class JwtUtil {
      */
     public String generateTenantToken(String username, java.util.UUID tenantId,
                                      java.util.List<String> roles, Long entitlementVersion) {
+        return generateTenantToken(username, tenantId, roles, entitlementVersion, null);
+    }
+    
+    /**
+     * Generate a tenant-scoped session token that also carries the tenant's entitlements.
+     *
+     * @param entitlements Compact entitlements claim ({@code ent}), or null to omit it
+     * @return JWT token with tenant context
+     */
+    public String generateTenantToken(String username, java.util.UUID tenantId,
+                                     java.util.List<String> roles, Long entitlementVersion,
+                                     Map<String, Object> entitlements) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("tid", tenantId.toString());
         claims.put("roles", roles);
         if (entitlementVersion != null) {
             claims.put("ent_v", entitlementVersion);
         }
+        if (entitlements != null) {
+            claims.put(EntitlementClaimCodec.CLAIM, entitlements);
+        }
         
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .claims(claims)
+                .id(java.util.UUID.randomUUID().toString())
                 .subject(username)
                 .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + sessionExpiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS512) // Use main secret for compatibility
-                .compact();
+                .expiration(new Date(System.currentTimeMillis() + sessionExpiration));
+        
+        // Asymmetric session tokens can be verified by external apps via /.well-known/jwks.json
+        SessionSigningKeys sessionKeys = keyRing.getSessionSigningKeys();
+        return switch (sessionKeys.getAlgorithm()) {
+            case RS256 -> builder.header().keyId(sessionKeys.getKeyId()).and()
+                    .signWith(sessionKeys.getPrivateKey(), Jwts.SIG.RS256)
+                    .compact();
+            case EDDSA -> builder.header().keyId(sessionKeys.getKeyId()).and()
+                    .signWith(sessionKeys.getPrivateKey(), Jwts.SIG.EdDSA)
+                    .compact();
+            case HS512 -> builder.header().keyId(keyRing.getActiveKeyId()).and()
+                    .signWith(keyRing.getActiveKey(), Jwts.SIG.HS512) // Shared main secret for compatibility
+                    .compact();
+        };
     }
     
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * Longest lifetime of any token this application issues, in milliseconds.
+     */
+    public long getMaxTokenLifetime() {
+        return Math.max(expiration, sessionExpiration);
     }
     
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return validateToken(verify(token), userDetails);
     }
     
-    // Session key no longer used for signing to ensure compatibility with external apps
-    private SecretKey getSessionSigningKey() {
-        byte[] keyBytes = sessionSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public Boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return (token.getSubject().equals(userDetails.getUsername()) && !token.isExpired());
     }
 }
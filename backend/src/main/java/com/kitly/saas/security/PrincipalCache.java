@@ -0,0 +1,92 @@
+package com.kitly.saas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kitly.saas.common.invalidation.InvalidationHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Bounded, expiring cache of authenticated principals keyed by the identifier found in
+ * the token subject. Used by {@link JwtAuthenticationFilter} so that requests carrying
+ * an already-signed token do not hit the database to rebuild the user's authorities.
+ *
+ * <p>Login still goes through {@link CustomUserDetailsService} directly, so password
+ * checks always see the current credentials. Cached principals never hold the password hash.
+ * Hit/miss statistics are published as {@code cache.*} metrics with {@code cache=principals}.
+ * Users changed on other nodes are evicted through the {@code principals} invalidation topic.
+ */
+@Component
+public class PrincipalCache implements InvalidationHandler {
+
+    public static final String TOPIC = "principals";
+
+    private final CustomUserDetailsService userDetailsService;
+    private final Cache<String, UserDetails> cache;
+
+    public PrincipalCache(CustomUserDetailsService userDetailsService,
+                          MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl:300000}") long ttlMillis) {
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    /**
+     * Get the principal for a token subject, loading it from the database on a miss.
+     *
+     * @param username Username or email from the token subject
+     * @return Principal without credentials
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException if the user does not exist
+     */
+    public UserDetails get(String username) {
+        return cache.get(username, this::load);
+    }
+
+    /**
+     * Drop the cached principal for a user, e.g. after deactivation or a role change.
+     *
+     * @param identifiers Username and/or email of the user
+     */
+    public void invalidate(String... identifiers) {
+        for (String identifier : identifiers) {
+            if (identifier != null) {
+                cache.invalidate(identifier);
+            }
+        }
+    }
+
+    @Override
+    public String getTopic() {
+        return TOPIC;
+    }
+
+    @Override
+    public void invalidate(Set<String> identifiers) {
+        cache.invalidateAll(identifiers);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private UserDetails load(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return User.withUserDetails(userDetails)
+                .password("")
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.kitly.saas.security;
+
+import com.kitly.saas.common.invalidation.InvalidationBus;
+import com.kitly.saas.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that evicts a user's cached principal whenever the user
+ * row changes (deactivation, credential updates) or is deleted. Role assignments only touch
+ * the join table and do not fire @PostUpdate, so code that changes the roles of an
+ * existing user has to call {@link #onUserChanged(User)} itself.
+ * Eviction happens after commit so a concurrent request cannot re-cache stale data,
+ * and is passed on to the other nodes over the {@link InvalidationBus}.
+ */
+@Component
+public class PrincipalCacheInvalidationListener {
+
+    // Resolved lazily: Hibernate may instantiate entity listeners while the repositories
+    // that PrincipalCache depends on are still being created
+    private final ObjectProvider<PrincipalCache> principalCache;
+    private final ObjectProvider<InvalidationBus> invalidationBus;
+
+    public PrincipalCacheInvalidationListener(ObjectProvider<PrincipalCache> principalCache,
+                                              ObjectProvider<InvalidationBus> invalidationBus) {
+        this.principalCache = principalCache;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        String username = user.getUsername();
+        String email = user.getEmail();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(username, email);
+                }
+            });
+        } else {
+            invalidate(username, email);
+        }
+    }
+
+    private void invalidate(String username, String email) {
+        principalCache.getObject().invalidate(username, email);
+        invalidationBus.ifAvailable(bus -> {
+            bus.publish(PrincipalCache.TOPIC, username);
+            if (email != null) {
+                bus.publish(PrincipalCache.TOPIC, email);
+            }
+        });
+    }
+}
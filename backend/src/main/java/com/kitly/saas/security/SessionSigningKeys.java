@@ -0,0 +1,158 @@
+package com.kitly.saas.security;
+
+import io.jsonwebtoken.security.Jwks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Signing configuration for tenant session tokens.
+ *
+ * <p>With {@code HS512} (the default) session tokens are signed with the shared main secret.
+ * With {@code RS256} or {@code EDDSA} they are signed with a private key, and the public
+ * keys are published as a JWKS document so downstream apps can verify tokens locally
+ * without sharing our secret.
+ *
+ * <p>Rotation: publish the next public key via {@code additional-public-keys} first, wait
+ * for downstream JWKS caches to refresh, then promote it to the active key pair and keep
+ * the retired public key in {@code additional-public-keys} until its tokens have expired.
+ */
+@Component
+public class SessionSigningKeys {
+
+    public enum Algorithm {
+        HS512,
+        RS256,
+        EDDSA
+    }
+
+    private final Algorithm algorithm;
+    private final String keyId;
+    private final PrivateKey privateKey;
+    private final Map<String, PublicKey> publicKeys;
+    private final String jwksJson;
+
+    public SessionSigningKeys(@Value("${jwt.session.signing.algorithm:HS512}") Algorithm algorithm,
+                              @Value("${jwt.session.signing.key-id:session-1}") String keyId,
+                              @Value("${jwt.session.signing.private-key:}") String privateKey,
+                              @Value("${jwt.session.signing.public-key:}") String publicKey,
+                              @Value("${jwt.session.signing.additional-public-keys:}") String additionalPublicKeys) {
+        this.algorithm = algorithm;
+        this.keyId = keyId;
+
+        if (algorithm == Algorithm.HS512) {
+            this.privateKey = null;
+            this.publicKeys = Collections.emptyMap();
+        } else {
+            if (privateKey.isBlank() || publicKey.isBlank()) {
+                throw new IllegalStateException("jwt.session.signing.private-key and public-key are required for "
+                        + algorithm + " session tokens");
+            }
+            String keyAlgorithm = algorithm == Algorithm.RS256 ? "RSA" : "Ed25519";
+            Map<String, PublicKey> keys = new LinkedHashMap<>();
+            this.privateKey = parsePrivateKey(privateKey, keyAlgorithm);
+            keys.put(keyId, parsePublicKey(publicKey, keyAlgorithm));
+
+            // Format: kid=key,kid=key (upcoming or retired keys, published and accepted for verification)
+            if (!additionalPublicKeys.isBlank()) {
+                for (String entry : additionalPublicKeys.split(",")) {
+                    int separator = entry.indexOf('=');
+                    if (separator <= 0) {
+                        throw new IllegalStateException(
+                                "Invalid jwt.session.signing.additional-public-keys entry, expected kid=key");
+                    }
+                    keys.putIfAbsent(entry.substring(0, separator).trim(),
+                            parsePublicKey(entry.substring(separator + 1), keyAlgorithm));
+                }
+            }
+            this.publicKeys = Collections.unmodifiableMap(keys);
+        }
+
+        this.jwksJson = buildJwks();
+    }
+
+    /**
+     * Session tokens signed with the shared main secret (no published keys).
+     */
+    public static SessionSigningKeys hmac() {
+        return new SessionSigningKeys(Algorithm.HS512, "", "", "", "");
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public boolean isAsymmetric() {
+        return algorithm != Algorithm.HS512;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public PrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    /**
+     * Public verification keys by key id, including upcoming and retired keys.
+     */
+    public Map<String, PublicKey> getPublicKeys() {
+        return publicKeys;
+    }
+
+    /**
+     * JWKS document ({@code {"keys":[...]}}) for the published public keys, built once at startup.
+     */
+    public String getJwksJson() {
+        return jwksJson;
+    }
+
+    private String buildJwks() {
+        String algorithmName = algorithm == Algorithm.RS256 ? "RS256" : "EdDSA";
+        String keys = publicKeys.entrySet().stream()
+                .map(entry -> Jwks.json(Jwks.builder()
+                        .key(entry.getValue())
+                        .id(entry.getKey())
+                        .algorithm(algorithmName)
+                        .publicKeyUse("sig")
+                        .build()))
+                .collect(Collectors.joining(","));
+        return "{\"keys\":[" + keys + "]}";
+    }
+
+    private static PrivateKey parsePrivateKey(String pem, String keyAlgorithm) {
+        try {
+            return KeyFactory.getInstance(keyAlgorithm).generatePrivate(new PKCS8EncodedKeySpec(decodePem(pem)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid " + keyAlgorithm + " private key for session tokens", e);
+        }
+    }
+
+    private static PublicKey parsePublicKey(String pem, String keyAlgorithm) {
+        try {
+            return KeyFactory.getInstance(keyAlgorithm).generatePublic(new X509EncodedKeySpec(decodePem(pem)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid " + keyAlgorithm + " public key for session tokens", e);
+        }
+    }
+
+    /**
+     * Accepts PEM (PKCS#8 / X.509 SubjectPublicKeyInfo) or the bare base64 DER body.
+     */
+    private static byte[] decodePem(String pem) {
+        String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
@@ -39,8 +39,11 @@ public class TenantContextFilter extends OncePerRequestFilter {
                 String jwt = authorizationHeader.substring(7);
                 
                 try {
-                    // Extract tenant ID from token
-                    UUID tenantId = jwtUtil.extractTenantId(jwt);
+                    // Reuse the token verified by JwtAuthenticationFilter when available
+                    Object verified = request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE);
+                    UUID tenantId = verified instanceof VerifiedToken verifiedToken
+                            ? verifiedToken.getTenantId()
+                            : jwtUtil.extractTenantId(jwt);
                     
                     if (tenantId != null) {
                         // Set tenant context for this request
@@ -0,0 +1,98 @@
+package com.kitly.saas.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A bearer token whose signature has already been verified, with its claims decoded once.
+ * The first filter that sees the token stores it as a request attribute so later
+ * consumers (tenant context, session endpoints) never parse the same JWT again.
+ */
+public final class VerifiedToken {
+
+    /**
+     * Request attribute under which the verified token of the current request is stored.
+     */
+    public static final String REQUEST_ATTRIBUTE = "com.kitly.saas.security.VerifiedToken";
+
+    private final String token;
+    private final String id;
+    private final String subject;
+    private final UUID tenantId;
+    private final List<String> roles;
+    private final Long entitlementVersion;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    private VerifiedToken(String token, String id, String subject, UUID tenantId, List<String> roles,
+                          Long entitlementVersion, Date issuedAt, Date expiration) {
+        this.token = token;
+        this.id = id;
+        this.subject = subject;
+        this.tenantId = tenantId;
+        this.roles = roles;
+        this.entitlementVersion = entitlementVersion;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+    }
+
+    /**
+     * Build a verified token from claims that were produced by a successful signature check.
+     */
+    public static VerifiedToken of(String token, Claims claims) {
+        String tenantIdStr = claims.get("tid", String.class);
+        UUID tenantId = tenantIdStr != null ? UUID.fromString(tenantIdStr) : null;
+
+        List<String> roles = Collections.emptyList();
+        Object rolesObj = claims.get("roles");
+        if (rolesObj instanceof List<?> list) {
+            roles = list.stream().map(String::valueOf).toList();
+        }
+
+        return new VerifiedToken(token, claims.getId(), claims.getSubject(), tenantId, roles,
+                claims.get("ent_v", Long.class), claims.getIssuedAt(), claims.getExpiration());
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Token id ({@code jti}), used for revocation. Null for tokens issued before ids were added.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public UUID getTenantId() {
+        return tenantId;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public Long getEntitlementVersion() {
+        return entitlementVersion;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -0,0 +1,142 @@
+package com.kitly.saas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-request cache of verified bearer tokens keyed by the SHA-256 digest of the token.
+ * Clients resend the same session token many times during its lifetime; a hit skips
+ * signature verification, claim decoding and the authority set construction.
+ *
+ * <p>Entries expire together with the token ({@code exp}), capped at a configurable
+ * maximum TTL. Only successfully verified tokens are cached, and raw tokens are never
+ * held as keys.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final Cache<ByteBuffer, Entry> cache;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              MeterRegistry meterRegistry,
+                              @Value("${security.token-cache.max-size:50000}") long maxSize,
+                              @Value("${security.token-cache.max-ttl:900000}") long maxTtlMillis) {
+        this.jwtUtil = jwtUtil;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(TimeUnit.MILLISECONDS.toNanos(maxTtlMillis)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verified-tokens");
+    }
+
+    /**
+     * Get the verified form of a raw token, verifying it on a cache miss.
+     *
+     * @param token Raw JWT string
+     * @return Cached entry for the token
+     * @throws io.jsonwebtoken.JwtException if the token cannot be verified
+     */
+    public Entry get(String token) {
+        return cache.get(digest(token), key -> new Entry(jwtUtil.verify(token)));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A verified token together with the authority set last computed for it.
+     */
+    public static final class Entry {
+
+        private final VerifiedToken token;
+        private volatile Authorities authorities;
+
+        Entry(VerifiedToken token) {
+            this.token = token;
+        }
+
+        public VerifiedToken getToken() {
+            return token;
+        }
+
+        /**
+         * Combine the principal's global authorities with the tenant roles from the token.
+         * The result is reused as long as the principal instance is the same one it was
+         * computed for; a reloaded principal (e.g. after a role change) triggers recomputation.
+         */
+        public Set<GrantedAuthority> authoritiesFor(UserDetails principal) {
+            Authorities current = authorities;
+            if (current != null && current.principal == principal) {
+                return current.authorities;
+            }
+
+            Set<GrantedAuthority> combined = new HashSet<>(principal.getAuthorities());
+            // Add tenant-specific roles with ROLE_ prefix for Spring Security
+            for (String role : token.getRoles()) {
+                combined.add(new SimpleGrantedAuthority("ROLE_" + role));
+            }
+            Set<GrantedAuthority> result = Set.copyOf(combined);
+            authorities = new Authorities(principal, result);
+            return result;
+        }
+    }
+
+    private record Authorities(UserDetails principal, Set<GrantedAuthority> authorities) {
+    }
+
+    private static final class TokenExpiry implements Expiry<ByteBuffer, Entry> {
+
+        private final long maxTtlNanos;
+
+        private TokenExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Entry value, long currentTime) {
+            if (value.getToken().getExpiration() == null) {
+                return maxTtlNanos;
+            }
+            long remainingMillis = value.getToken().getExpiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, Math.min(maxTtlNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis)));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
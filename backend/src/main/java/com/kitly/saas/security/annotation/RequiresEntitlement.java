@@ -0,0 +1,26 @@
+package com.kitly.saas.security.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to gate an endpoint on entitlements of the current tenant.
+ * Every listed key must be an enabled feature, or a limit of at least {@link #minimum()}
+ * (unlimited always passes). Otherwise the request fails with 403 {@code ENTITLEMENT_REQUIRED}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresEntitlement {
+    
+    /**
+     * Entitlement keys, e.g. {@code app.nim.access}
+     */
+    String[] value();
+    
+    /**
+     * Smallest acceptable value for keys that are limits
+     */
+    long minimum() default 1;
+}
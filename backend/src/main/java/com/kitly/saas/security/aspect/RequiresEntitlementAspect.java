@@ -0,0 +1,162 @@
+package com.kitly.saas.security.aspect;
+
+import com.kitly.saas.common.context.TenantContextHolder;
+import com.kitly.saas.common.exception.EntitlementRequiredException;
+import com.kitly.saas.common.exception.NoActiveSubscriptionException;
+import com.kitly.saas.common.exception.TenantAccessDeniedException;
+import com.kitly.saas.entitlement.CompiledEntitlements;
+import com.kitly.saas.entitlement.EntitlementKeys;
+import com.kitly.saas.entitlement.EntitlementSnapshotCache;
+import com.kitly.saas.security.VerifiedToken;
+import com.kitly.saas.security.annotation.RequiresEntitlement;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aspect that enforces {@link RequiresEntitlement} against the tenant's cached, compiled
+ * entitlements.
+ *
+ * <p>Keys are interned once per method, and all annotated controller methods are resolved at
+ * startup, so a request only does array reads on a snapshot that is normally already cached.
+ * The {@code ent_v} claim of the session token is a lower bound for the snapshot: a token
+ * issued after a plan change never passes on entitlements from before it.
+ */
+@Aspect
+@Component
+public class RequiresEntitlementAspect implements SmartInitializingSingleton {
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final EntitlementSnapshotCache entitlementSnapshotCache;
+    private final Map<Method, Requirement> requirements = new ConcurrentHashMap<>();
+
+    public RequiresEntitlementAspect(ConfigurableListableBeanFactory beanFactory,
+                                     EntitlementSnapshotCache entitlementSnapshotCache) {
+        this.beanFactory = beanFactory;
+        this.entitlementSnapshotCache = entitlementSnapshotCache;
+    }
+
+    /**
+     * Resolve and validate every annotated controller method once all singletons exist.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : beanFactory.getBeanNamesForAnnotation(Controller.class)) {
+            Class<?> beanType = beanFactory.getType(beanName);
+            if (beanType == null) {
+                continue;
+            }
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(beanType))) {
+                if (method.isAnnotationPresent(RequiresEntitlement.class)) {
+                    requirements.put(method, Requirement.resolve(method));
+                }
+            }
+        }
+    }
+
+    @Before("@annotation(com.kitly.saas.security.annotation.RequiresEntitlement)")
+    public void checkEntitlement(JoinPoint joinPoint) {
+        UUID tenantId = TenantContextHolder.getTenantId();
+        if (tenantId == null) {
+            throw new TenantAccessDeniedException("No tenant context found in request");
+        }
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Requirement requirement = requirements.get(method);
+        if (requirement == null) {
+            // Not a controller method seen at startup (e.g. proxied through an interface)
+            requirement = requirements.computeIfAbsent(method, Requirement::resolve);
+        }
+
+        CompiledEntitlements compiled;
+        try {
+            compiled = entitlementSnapshotCache.getCompiled(tenantId, tokenVersion());
+        } catch (NoActiveSubscriptionException e) {
+            // Past due or cancelled: no plan, so nothing is granted
+            throw new EntitlementRequiredException(requirement.keys[0]);
+        }
+        requirement.check(compiled);
+    }
+
+    /**
+     * Entitlement version claimed by the verified session token of the current request, or 0
+     */
+    private static long tokenVersion() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                instanceof VerifiedToken token && token.getEntitlementVersion() != null) {
+            return token.getEntitlementVersion();
+        }
+        return 0L;
+    }
+
+    /**
+     * Keys of one annotated method, interned to the ids compiled snapshots are indexed by.
+     */
+    static final class Requirement {
+        private final String[] keys;
+        private final int[] keyIds;
+        private final long minimum;
+
+        private Requirement(String[] keys, int[] keyIds, long minimum) {
+            this.keys = keys;
+            this.keyIds = keyIds;
+            this.minimum = minimum;
+        }
+
+        /**
+         * @throws IllegalStateException if the annotation lists no keys or a blank key
+         */
+        static Requirement resolve(Method method) {
+            RequiresEntitlement annotation = method.getAnnotation(RequiresEntitlement.class);
+            String[] keys = annotation.value();
+            if (keys.length == 0) {
+                throw new IllegalStateException(describe(method) + " lists no entitlement keys");
+            }
+            int[] keyIds = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == null || keys[i].isBlank()) {
+                    throw new IllegalStateException(describe(method) + " has a blank entitlement key");
+                }
+                keyIds[i] = EntitlementKeys.intern(keys[i]);
+            }
+            return new Requirement(keys.clone(), keyIds, annotation.minimum());
+        }
+
+        void check(CompiledEntitlements compiled) {
+            for (int i = 0; i < keyIds.length; i++) {
+                int id = keyIds[i];
+                boolean granted;
+                if (compiled.isFeature(id)) {
+                    granted = compiled.isEnabled(id);
+                } else {
+                    long limit = compiled.getLimit(id);
+                    granted = limit == CompiledEntitlements.UNLIMITED
+                            || (limit != CompiledEntitlements.NOT_SET && limit >= minimum);
+                }
+                if (!granted) {
+                    throw new EntitlementRequiredException(keys[i]);
+                }
+            }
+        }
+
+        private static String describe(Method method) {
+            return "@RequiresEntitlement on " + method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        }
+    }
+}
@@ -2,64 +2,115 @@ package com.kitly.saas.security.aspect;
 
 import com.kitly.saas.common.context.TenantContextHolder;
 import com.kitly.saas.common.exception.TenantAccessDeniedException;
+import com.kitly.saas.security.annotation.TenantAccessCheck;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.bind.annotation.PathVariable;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Aspect that enforces tenant isolation by validating that the tenantId path variable
  * matches the tenant ID stored in TenantContext (from the JWT token).
+ *
+ * <p>The position of the {@code tenantId} argument is resolved once per method. All
+ * {@code @TenantAccessCheck} controller methods are resolved at startup, so a method
+ * without a UUID {@code tenantId} path variable fails the boot instead of every request.
  */
 @Aspect
 @Component
-public class TenantAccessCheckAspect {
-    
+public class TenantAccessCheckAspect implements SmartInitializingSingleton {
+
+    private static final String TENANT_ID = "tenantId";
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final Map<Method, Integer> tenantIdIndexes = new ConcurrentHashMap<>();
+
+    public TenantAccessCheckAspect(ConfigurableListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * Resolve and validate every annotated controller method once all singletons exist.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : beanFactory.getBeanNamesForAnnotation(Controller.class)) {
+            Class<?> beanType = beanFactory.getType(beanName);
+            if (beanType == null) {
+                continue;
+            }
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(beanType))) {
+                if (method.isAnnotationPresent(TenantAccessCheck.class)) {
+                    tenantIdIndexes.put(method, resolveTenantIdIndex(method));
+                }
+            }
+        }
+    }
+
     @Before("@annotation(com.kitly.saas.security.annotation.TenantAccessCheck)")
     public void checkTenantAccess(JoinPoint joinPoint) {
         UUID contextTenantId = TenantContextHolder.getTenantId();
-        
+
         if (contextTenantId == null) {
             throw new TenantAccessDeniedException("No tenant context found in request");
         }
-        
-        // Extract tenantId from method parameters
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        Parameter[] parameters = method.getParameters();
-        Object[] args = joinPoint.getArgs();
-        
-        UUID pathTenantId = null;
-        for (int i = 0; i < parameters.length; i++) {
-            Parameter param = parameters[i];
-            PathVariable pathVariable = param.getAnnotation(PathVariable.class);
-            
-            if (pathVariable != null) {
-                String paramName = pathVariable.value().isEmpty() ? param.getName() : pathVariable.value();
-                if ("tenantId".equals(paramName) && args[i] instanceof UUID) {
-                    pathTenantId = (UUID) args[i];
-                    break;
-                }
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Integer index = tenantIdIndexes.get(method);
+        if (index == null) {
+            // Not a controller method seen at startup (e.g. proxied through an interface)
+            try {
+                index = tenantIdIndexes.computeIfAbsent(method, TenantAccessCheckAspect::resolveTenantIdIndex);
+            } catch (IllegalStateException e) {
+                throw new TenantAccessDeniedException(
+                        "@TenantAccessCheck annotation requires a 'tenantId' path variable"
+                );
             }
         }
-        
-        if (pathTenantId == null) {
-            // If @TenantAccessCheck is present but no tenantId found, this is a misconfiguration
-            throw new TenantAccessDeniedException(
-                    "@TenantAccessCheck annotation requires a 'tenantId' path variable"
-            );
-        }
-        
+
+        Object pathTenantId = joinPoint.getArgs()[index];
         if (!contextTenantId.equals(pathTenantId)) {
             throw new TenantAccessDeniedException(
                     "Access denied: Tenant ID in request does not match authenticated tenant"
             );
         }
     }
+
+    /**
+     * Find the argument position of the UUID {@code tenantId} path variable.
+     *
+     * @throws IllegalStateException if the method has no such parameter
+     */
+    static int resolveTenantIdIndex(Method method) {
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter param = parameters[i];
+            PathVariable pathVariable = param.getAnnotation(PathVariable.class);
+
+            if (pathVariable != null && UUID.class.equals(param.getType())) {
+                String paramName = !pathVariable.value().isEmpty() ? pathVariable.value()
+                        : !pathVariable.name().isEmpty() ? pathVariable.name()
+                        : param.getName();
+                if (TENANT_ID.equals(paramName)) {
+                    return i;
+                }
+            }
+        }
+
+        throw new IllegalStateException("@TenantAccessCheck on " + method.getDeclaringClass().getSimpleName()
+                + "." + method.getName() + " requires a UUID 'tenantId' path variable");
+    }
 }
@@ -0,0 +1,221 @@
+package com.kitly.saas.security.revocation;
+
+import com.kitly.saas.entity.TokenRevocation;
+import com.kitly.saas.repository.TokenRevocationRepository;
+import com.kitly.saas.security.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local view of the {@code token_revocations} table.
+ *
+ * <p>Every authenticated request is checked against it, so lookups go through a Bloom
+ * filter first: a negative answer (the common case) costs a few array reads and never
+ * allocates. Only filter positives consult the exact maps, which also rule out false
+ * positives.
+ *
+ * <p>The view is refreshed incrementally by polling rows created since the last sync, and
+ * rebuilt periodically to drop expired entries and resize the filter. Revocations issued
+ * by this node are applied immediately via {@link #apply(TokenRevocation)}.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private static final long JTI_SEED = 0x6A74690000000001L;
+    private static final long USER_TENANT_SEED = 0x7573720000000002L;
+
+    private final TokenRevocationRepository repository;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final long overlapMillis;
+
+    private volatile State state;
+    private volatile LocalDateTime lastSync;
+
+    public TokenRevocationList(TokenRevocationRepository repository,
+                               @Value("${security.revocation.expected-insertions:100000}") long expectedInsertions,
+                               @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                               @Value("${security.revocation.refresh-overlap:10000}") long overlapMillis) {
+        this.repository = repository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.overlapMillis = overlapMillis;
+        this.state = new State(new BloomFilter(expectedInsertions, falsePositiveRate));
+    }
+
+    /**
+     * Check whether a verified token has been revoked, either individually (by {@code jti})
+     * or because its user was revoked in the token's tenant (or in all tenants) after the
+     * token was issued.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        State current = state;
+
+        String jti = token.getId();
+        if (jti != null && current.bloom.mightContain(jtiHash(jti))) {
+            Long expiresAt = current.jtis.get(jti);
+            if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+                return true;
+            }
+        }
+
+        String subject = token.getSubject();
+        if (subject == null) {
+            return false;
+        }
+        long userHash = BloomFilter.hash(subject);
+        return isUserRevoked(current, userHash, subject, token.getTenantId(), token.getIssuedAt())
+                || (token.getTenantId() != null && isUserRevoked(current, userHash, subject, null, token.getIssuedAt()));
+    }
+
+    /**
+     * Apply a single revocation to the local view (idempotent).
+     */
+    public void apply(TokenRevocation revocation) {
+        State target = state;
+        apply(target, revocation);
+        // A concurrent rebuild may have swapped in a state loaded before this row was visible
+        while (state != target) {
+            target = state;
+            apply(target, revocation);
+        }
+    }
+
+    /**
+     * Load revocations created since the last sync. The first call loads all unexpired rows.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.refresh-interval:5000}")
+    public synchronized void refresh() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime since = lastSync;
+            if (since == null) {
+                rebuild(now);
+                return;
+            }
+            // Rows are stamped by the node that wrote them; the overlap absorbs clock skew
+            // and in-flight transactions. Re-applying a row is harmless.
+            List<TokenRevocation> changes = repository.findByCreatedAtAfterAndExpiresAtAfter(
+                    since.minusNanos(overlapMillis * 1_000_000L), now);
+            State current = state;
+            for (TokenRevocation revocation : changes) {
+                apply(current, revocation);
+            }
+            lastSync = now;
+
+            if (current.size() > current.bloom.capacity()) {
+                rebuild(now);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh token revocation list: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the filter from scratch, dropping expired revocations and purging them from the table.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.rebuild-interval:3600000}",
+            initialDelayString = "${security.revocation.rebuild-interval:3600000}")
+    public synchronized void rebuild() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int purged = repository.deleteExpired(now);
+            if (purged > 0) {
+                logger.info("Purged {} expired token revocations", purged);
+            }
+            rebuild(now);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to rebuild token revocation list: {}", e.getMessage());
+        }
+    }
+
+    private void rebuild(LocalDateTime now) {
+        List<TokenRevocation> active = repository.findByExpiresAtAfter(now);
+        long capacity = Math.max(expectedInsertions, active.size() * 2L);
+        State rebuilt = new State(new BloomFilter(capacity, falsePositiveRate));
+        for (TokenRevocation revocation : active) {
+            apply(rebuilt, revocation);
+        }
+        state = rebuilt;
+        lastSync = now;
+        logger.debug("Token revocation list rebuilt with {} entries", active.size());
+    }
+
+    int size() {
+        return state.size();
+    }
+
+    private static boolean isUserRevoked(State current, long userHash, String username, UUID tenantId, Date issuedAt) {
+        if (!current.bloom.mightContain(userTenantHash(userHash, tenantId))) {
+            return false;
+        }
+        Long revokedBefore = current.userTenants.get(new UserTenant(username, tenantId));
+        if (revokedBefore == null) {
+            return false;
+        }
+        // Tokens without iat cannot be shown to predate the revocation. iat has whole-second
+        // precision, so a token from the same second as the revocation may have been issued
+        // before it and counts as revoked
+        return issuedAt == null || issuedAt.getTime() / 1000 <= revokedBefore / 1000;
+    }
+
+    private static void apply(State target, TokenRevocation revocation) {
+        long expiresAt = toEpochMillis(revocation.getExpiresAt());
+        if (revocation.getJti() != null) {
+            target.jtis.merge(revocation.getJti(), expiresAt, Math::max);
+            target.bloom.put(jtiHash(revocation.getJti()));
+        }
+        if (revocation.getUsername() != null && revocation.getRevokedBefore() != null) {
+            UserTenant key = new UserTenant(revocation.getUsername(), revocation.getTenantId());
+            target.userTenants.merge(key, toEpochMillis(revocation.getRevokedBefore()), Math::max);
+            target.bloom.put(userTenantHash(BloomFilter.hash(key.username()), key.tenantId()));
+        }
+    }
+
+    private static long jtiHash(String jti) {
+        return BloomFilter.hash(JTI_SEED, BloomFilter.hash(jti));
+    }
+
+    private static long userTenantHash(long userHash, UUID tenantId) {
+        long h = BloomFilter.hash(USER_TENANT_SEED, userHash);
+        if (tenantId == null) {
+            return h;
+        }
+        return BloomFilter.hash(BloomFilter.hash(h, tenantId.getMostSignificantBits()), tenantId.getLeastSignificantBits());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record UserTenant(String username, UUID tenantId) {
+    }
+
+    private static final class State {
+
+        private final BloomFilter bloom;
+        private final Map<String, Long> jtis = new ConcurrentHashMap<>();
+        private final Map<UserTenant, Long> userTenants = new ConcurrentHashMap<>();
+
+        private State(BloomFilter bloom) {
+            this.bloom = bloom;
+        }
+
+        private int size() {
+            return jtis.size() + userTenants.size();
+        }
+    }
+}
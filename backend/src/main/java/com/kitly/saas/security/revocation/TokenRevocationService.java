@@ -0,0 +1,95 @@
+package com.kitly.saas.security.revocation;
+
+import com.kitly.saas.entity.TokenRevocation;
+import com.kitly.saas.repository.TokenRevocationRepository;
+import com.kitly.saas.security.JwtUtil;
+import com.kitly.saas.security.VerifiedToken;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Records token revocations. Rows are picked up by every node's {@link TokenRevocationList}
+ * on its next refresh; the local list is updated as soon as the transaction commits.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository repository;
+    private final TokenRevocationList revocationList;
+    private final JwtUtil jwtUtil;
+
+    public TokenRevocationService(TokenRevocationRepository repository,
+                                  TokenRevocationList revocationList,
+                                  JwtUtil jwtUtil) {
+        this.repository = repository;
+        this.revocationList = revocationList;
+        this.jwtUtil = jwtUtil;
+    }
+
+    /**
+     * Revoke a single token by its {@code jti}.
+     *
+     * @param token Verified token to revoke
+     * @param reason Free-text reason for auditing
+     */
+    @Transactional
+    public void revokeToken(VerifiedToken token, String reason) {
+        if (token.getId() == null) {
+            // Legacy token without jti: fall back to revoking everything the user holds in that tenant
+            revokeUserTenant(token.getSubject(), token.getTenantId(), reason);
+            return;
+        }
+
+        LocalDateTime expiresAt = token.getExpiration() != null
+                ? LocalDateTime.ofInstant(token.getExpiration().toInstant(), ZoneId.systemDefault())
+                : LocalDateTime.now().plusNanos(jwtUtil.getMaxTokenLifetime() * 1_000_000L);
+
+        save(TokenRevocation.builder()
+                .jti(token.getId())
+                .expiresAt(expiresAt)
+                .reason(reason)
+                .build());
+    }
+
+    /**
+     * Revoke every token issued so far to a user for a tenant.
+     * Tokens issued afterwards (e.g. after the membership is reactivated) are unaffected.
+     *
+     * @param username Username (token subject)
+     * @param tenantId Tenant the tokens are scoped to, or null for all tenants
+     * @param reason Free-text reason for auditing
+     */
+    @Transactional
+    public void revokeUserTenant(String username, UUID tenantId, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        save(TokenRevocation.builder()
+                .username(username)
+                .tenantId(tenantId)
+                .revokedBefore(now)
+                // No token issued before now can outlive the longest token lifetime
+                .expiresAt(now.plusNanos(jwtUtil.getMaxTokenLifetime() * 1_000_000L))
+                .reason(reason)
+                .build());
+    }
+
+    private void save(TokenRevocation revocation) {
+        TokenRevocation saved = repository.save(revocation);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revocationList.apply(saved);
+                }
+            });
+        } else {
+            revocationList.apply(saved);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.kitly.saas.service;
 
+import com.kitly.saas.common.util.ETags;
 import com.kitly.saas.dto.ApplicationSettingDTO;
 import com.kitly.saas.dto.ApplicationSettingRequest;
 import com.kitly.saas.entity.ApplicationSetting;
 import com.kitly.saas.entity.Tenant;
 import com.kitly.saas.repository.ApplicationSettingRepository;
+import com.kitly.saas.repository.ChangeStamp;
 import com.kitly.saas.repository.TenantRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +25,15 @@ public class ApplicationSettingService {
     private final ApplicationSettingRepository settingRepository;
     private final TenantRepository tenantRepository;
 
+    /**
+     * ETag for {@link #getAllSettings}, derived from the settings' change stamp without loading them.
+     */
+    @Transactional(readOnly = true)
+    public String getAllSettingsETag(UUID tenantId) {
+        ChangeStamp stamp = settingRepository.findChangeStampByTenantId(tenantId);
+        return ETags.of("settings", tenantId, stamp.getLastUpdated(), stamp.getRowCount());
+    }
+
     @Transactional(readOnly = true)
     public List<ApplicationSettingDTO> getAllSettings(UUID tenantId) {
         Tenant tenant = tenantRepository.findById(tenantId)
@@ -2,6 +2,7 @@ package com.kitly.saas.service;
 
 import com.kitly.saas.common.exception.ResourceNotFoundException;
 import com.kitly.saas.common.outbox.OutboxService;
+import com.kitly.saas.entitlement.listener.EntitlementVersionBumpEvent;
 import com.kitly.saas.entity.Subscription;
 import com.kitly.saas.entity.Tenant;
 import com.kitly.saas.repository.SubscriptionRepository;
@@ -61,6 +62,7 @@ public class BillingService {
         
         // Publish event to outbox
         publishSubscriptionEvent("SUBSCRIPTION_CREATED", saved);
+        eventPublisher.publishEvent(new EntitlementVersionBumpEvent(saved.getTenant().getId()));
         
         return saved;
     }
@@ -85,6 +87,7 @@ public class BillingService {
         
         // Publish event to outbox
         publishSubscriptionEvent("SUBSCRIPTION_UPDATED", updated);
+        eventPublisher.publishEvent(new EntitlementVersionBumpEvent(updated.getTenant().getId()));
         
         return updated;
     }
@@ -106,6 +109,7 @@ public class BillingService {
         
         // Publish event to outbox
         publishSubscriptionEvent("SUBSCRIPTION_CANCELLED", cancelled);
+        eventPublisher.publishEvent(new EntitlementVersionBumpEvent(cancelled.getTenant().getId()));
         
         return cancelled;
     }
@@ -180,6 +184,7 @@ public class BillingService {
         if (subscription.getStatus() == Subscription.SubscriptionStatus.PAST_DUE) {
             subscription.setStatus(Subscription.SubscriptionStatus.ACTIVE);
             subscriptionRepository.save(subscription);
+            eventPublisher.publishEvent(new EntitlementVersionBumpEvent(subscription.getTenant().getId()));
         }
         
         publishSubscriptionEvent("PAYMENT_SUCCEEDED", subscription);
@@ -197,6 +202,7 @@ public class BillingService {
         
         subscription.setStatus(Subscription.SubscriptionStatus.PAST_DUE);
         subscriptionRepository.save(subscription);
+        eventPublisher.publishEvent(new EntitlementVersionBumpEvent(subscription.getTenant().getId()));
         
         publishSubscriptionEvent("PAYMENT_FAILED", subscription);
     }
@@ -9,8 +9,10 @@ import com.kitly.saas.common.exception.BadRequestException;
 import com.kitly.saas.common.exception.ResourceNotFoundException;
 import com.kitly.saas.common.exception.UnauthorizedException;
 import com.kitly.saas.entitlement.listener.EntitlementVersionBumpEvent;
+import com.kitly.saas.entitlement.listener.MembershipChangedEvent;
 import com.kitly.saas.repository.MembershipRepository;
 import com.kitly.saas.repository.UserRepository;
+import com.kitly.saas.security.revocation.TokenRevocationService;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,13 +27,16 @@ public class MembershipService {
     private final MembershipRepository membershipRepository;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final TokenRevocationService tokenRevocationService;
     
     public MembershipService(MembershipRepository membershipRepository,
                             UserRepository userRepository,
-                            ApplicationEventPublisher eventPublisher) {
+                            ApplicationEventPublisher eventPublisher,
+                            TokenRevocationService tokenRevocationService) {
         this.membershipRepository = membershipRepository;
         this.userRepository = userRepository;
         this.eventPublisher = eventPublisher;
+        this.tokenRevocationService = tokenRevocationService;
     }
     
     public List<MembershipResponse> getTenantMembers(UUID tenantId) {
@@ -83,13 +88,23 @@ public class MembershipService {
         
         // Update status if provided
         if (request.getStatus() != null) {
-            membership.setStatus(Membership.MembershipStatus.valueOf(request.getStatus()));
+            Membership.MembershipStatus newStatus = Membership.MembershipStatus.valueOf(request.getStatus());
+            
+            // Leaving ACTIVE must take effect immediately, not when the member's session token expires
+            if (membership.getStatus() == Membership.MembershipStatus.ACTIVE
+                    && newStatus != Membership.MembershipStatus.ACTIVE) {
+                tokenRevocationService.revokeUserTenant(membership.getUser().getUsername(), tenantId,
+                        "Membership " + newStatus.name().toLowerCase());
+            }
+            membership.setStatus(newStatus);
         }
         
         membership = membershipRepository.save(membership);
         
         // Publish event to bump entitlement version
         eventPublisher.publishEvent(new EntitlementVersionBumpEvent(tenantId));
+        eventPublisher.publishEvent(new MembershipChangedEvent(tenantId, membership.getUser().getUsername(),
+                membership.getRole().name(), membership.getStatus().name()));
         
         return mapToMembershipResponse(membership);
     }
@@ -1,5 +1,6 @@
 package com.kitly.saas.service;
 
+import com.kitly.saas.common.invalidation.InvalidationBus;
 import com.kitly.saas.dto.PlatformSettingDTO;
 import com.kitly.saas.dto.PlatformSettingRequest;
 import com.kitly.saas.entity.PlatformSetting;
@@ -18,7 +19,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PlatformSettingService {
 
+    /**
+     * Invalidation topic for changed setting keys; nodes caching settings (e.g. {@code StripeConfig}) listen to it
+     */
+    public static final String TOPIC = "platform-settings";
+
     private final PlatformSettingRepository platformSettingRepository;
+    private final InvalidationBus invalidationBus;
 
     @Transactional(readOnly = true)
     public List<PlatformSettingDTO> getAllSettings() {
@@ -55,6 +62,7 @@ public class PlatformSettingService {
         setting.setUpdatedBy(updatedBy);
 
         setting = platformSettingRepository.save(setting);
+        invalidationBus.publishAfterCommit(TOPIC, request.getKey());
         log.info("Platform setting {} updated by user {}", request.getKey(), updatedBy);
 
         return toDTO(setting);
@@ -65,6 +73,7 @@ public class PlatformSettingService {
         PlatformSetting setting = platformSettingRepository.findByKey(key)
                 .orElseThrow(() -> new RuntimeException("Platform setting not found: " + key));
         platformSettingRepository.delete(setting);
+        invalidationBus.publishAfterCommit(TOPIC, key);
         log.info("Platform setting {} deleted", key);
     }
 
@@ -1,12 +1,15 @@
 package com.kitly.saas.service;
 
 import com.kitly.saas.common.exception.BadRequestException;
+import com.kitly.saas.common.exception.NoActiveSubscriptionException;
 import com.kitly.saas.common.exception.ResourceNotFoundException;
 import com.kitly.saas.common.exception.UnauthorizedException;
 import com.kitly.saas.dto.CurrentSessionResponse;
 import com.kitly.saas.dto.RefreshTokenResponse;
 import com.kitly.saas.dto.SessionResponse;
 import com.kitly.saas.dto.SwitchTenantRequest;
+import com.kitly.saas.entitlement.EntitlementClaimCodec;
+import com.kitly.saas.entitlement.EntitlementSnapshotCache;
 import com.kitly.saas.entity.EntitlementVersion;
 import com.kitly.saas.entity.Membership;
 import com.kitly.saas.entity.Tenant;
@@ -16,10 +19,12 @@ import com.kitly.saas.repository.MembershipRepository;
 import com.kitly.saas.repository.TenantRepository;
 import com.kitly.saas.repository.UserRepository;
 import com.kitly.saas.security.JwtUtil;
+import com.kitly.saas.security.VerifiedToken;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -30,20 +35,29 @@ public class SessionService {
     private final TenantRepository tenantRepository;
     private final EntitlementVersionRepository entitlementVersionRepository;
     private final JwtUtil jwtUtil;
+    private final EntitlementSnapshotCache entitlementSnapshotCache;
+    private final EntitlementClaimCodec entitlementClaimCodec;
     
     @Value("${jwt.session.expiration}")
     private Long sessionExpiration;
     
+    @Value("${jwt.session.entitlements-claim.enabled:false}")
+    private boolean entitlementsClaimEnabled;
+    
     public SessionService(MembershipRepository membershipRepository,
                          UserRepository userRepository,
                          TenantRepository tenantRepository,
                          EntitlementVersionRepository entitlementVersionRepository,
-                         JwtUtil jwtUtil) {
+                         JwtUtil jwtUtil,
+                         EntitlementSnapshotCache entitlementSnapshotCache,
+                         EntitlementClaimCodec entitlementClaimCodec) {
         this.membershipRepository = membershipRepository;
         this.userRepository = userRepository;
         this.tenantRepository = tenantRepository;
         this.entitlementVersionRepository = entitlementVersionRepository;
         this.jwtUtil = jwtUtil;
+        this.entitlementSnapshotCache = entitlementSnapshotCache;
+        this.entitlementClaimCodec = entitlementClaimCodec;
     }
     
     /**
@@ -86,7 +100,8 @@ public class SessionService {
         List<String> roles = List.of(membership.getRole().name());
         
         // Generate tenant-scoped token
-        String token = jwtUtil.generateTenantToken(user.getUsername(), tenantId, roles, entitlementVersion);
+        String token = jwtUtil.generateTenantToken(user.getUsername(), tenantId, roles, entitlementVersion,
+                entitlementsClaim(tenantId, entitlementVersion));
 
         return SessionResponse.builder()
                 .token(token)
@@ -108,14 +123,24 @@ public class SessionService {
      * @return RefreshTokenResponse with new token
      */
     public RefreshTokenResponse refreshSession(String token, String username) {
+        return refreshSession(jwtUtil.verify(token), username);
+    }
+    
+    /**
+     * Refresh the current session token using a token already verified for this request.
+     *
+     * @param token Verified current JWT token
+     * @param username Current authenticated username
+     * @return RefreshTokenResponse with new token
+     */
+    public RefreshTokenResponse refreshSession(VerifiedToken token, String username) {
         // Extract claims from current token
-        UUID tenantId = jwtUtil.extractTenantId(token);
+        UUID tenantId = token.getTenantId();
         if (tenantId == null) {
             throw new BadRequestException("Token does not contain tenant context");
         }
         
-        List<String> roles = jwtUtil.extractRoles(token);
-        Long entitlementVersion = jwtUtil.extractEntitlementVersion(token);
+        List<String> roles = token.getRoles();
         
         // Get user
         User user = userRepository.findByUsername(username)
@@ -135,7 +160,8 @@ public class SessionService {
         Long latestEntitlementVersion = getEntitlementVersion(tenant);
         
         // Generate new token with updated entitlement version
-        String newToken = jwtUtil.generateTenantToken(user.getUsername(), tenantId, roles, latestEntitlementVersion);
+        String newToken = jwtUtil.generateTenantToken(user.getUsername(), tenantId, roles, latestEntitlementVersion,
+                entitlementsClaim(tenantId, latestEntitlementVersion));
 
         return RefreshTokenResponse.builder()
                 .token(newToken)
@@ -152,10 +178,21 @@ public class SessionService {
      * @return CurrentSessionResponse with session details
      */
     public CurrentSessionResponse getCurrentSession(String token, String username) {
+        return getCurrentSession(jwtUtil.verify(token), username);
+    }
+    
+    /**
+     * Get current session information from a token already verified for this request.
+     *
+     * @param token Verified current JWT token
+     * @param username Current authenticated username
+     * @return CurrentSessionResponse with session details
+     */
+    public CurrentSessionResponse getCurrentSession(VerifiedToken token, String username) {
         // Extract claims from token
-        UUID tenantId = jwtUtil.extractTenantId(token);
-        List<String> roles = jwtUtil.extractRoles(token);
-        Long entitlementVersion = jwtUtil.extractEntitlementVersion(token);
+        UUID tenantId = token.getTenantId();
+        List<String> roles = token.getRoles();
+        Long entitlementVersion = token.getEntitlementVersion();
         
         // Get user
         User user = userRepository.findByUsername(username)
@@ -179,6 +216,24 @@ public class SessionService {
                 .build();
     }
     
+    /**
+     * Compact entitlements claim for a new session token, if enabled.
+     * Built from the cached snapshot, at least as new as the version the token carries.
+     *
+     * @return Claim value, or null if disabled, too large or the tenant has no active subscription
+     */
+    private Map<String, Object> entitlementsClaim(UUID tenantId, Long entitlementVersion) {
+        if (!entitlementsClaimEnabled) {
+            return null;
+        }
+        try {
+            return entitlementClaimCodec.encode(entitlementSnapshotCache.getCompiled(tenantId, entitlementVersion));
+        } catch (NoActiveSubscriptionException e) {
+            // Nothing is granted without a plan; the session itself stays valid
+            return null;
+        }
+    }
+    
     /**
      * Get the current entitlement version for a tenant.
      *
@@ -1,7 +1,9 @@
 package com.kitly.saas.service;
 
 import com.kitly.saas.dto.SubscriptionResponse;
+import com.kitly.saas.common.util.ETags;
 import com.kitly.saas.entity.Subscription;
+import com.kitly.saas.repository.ChangeStamp;
 import com.kitly.saas.repository.SubscriptionRepository;
 import com.kitly.saas.repository.TenantRepository;
 import org.springframework.stereotype.Service;
@@ -40,6 +42,20 @@ public class SubscriptionService {
                 });
     }
 
+    /**
+     * ETag for {@link #getCurrentSubscription}, derived from the tenant's subscription rows'
+     * change stamp without loading them.
+     *
+     * @return Quoted ETag, or null if the tenant has no subscriptions
+     */
+    public String getCurrentSubscriptionETag(UUID tenantId) {
+        ChangeStamp stamp = subscriptionRepository.findChangeStampByTenantId(tenantId);
+        if (stamp == null || stamp.getRowCount() == 0) {
+            return null;
+        }
+        return ETags.of("subscription", tenantId, stamp.getLastUpdated(), stamp.getRowCount());
+    }
+
     private SubscriptionResponse mapToResponse(Subscription subscription) {
         return SubscriptionResponse.builder()
                 .id(subscription.getId())
@@ -0,0 +1,19 @@
+-- Create token_revocations table for revoking JWTs before they expire.
+-- A row revokes either a single token (jti) or every token of a user in a tenant
+-- issued before revoked_before (tenant_id NULL = all tenants).
+CREATE TABLE token_revocations (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    jti VARCHAR(64),
+    username VARCHAR(50),
+    tenant_id UUID,
+    revoked_before TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    reason VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_token_revocation_tenant FOREIGN KEY (tenant_id) REFERENCES tenants(id) ON DELETE CASCADE,
+    CONSTRAINT check_token_revocation_target CHECK (jti IS NOT NULL OR (username IS NOT NULL AND revoked_before IS NOT NULL))
+);
+
+-- Nodes poll incrementally by created_at and purge by expires_at
+CREATE INDEX idx_token_revocations_created_at ON token_revocations(created_at);
+CREATE INDEX idx_token_revocations_expires_at ON token_revocations(expires_at);
@@ -0,0 +1,45 @@
+-- Create plans table: the plan catalog, editable without a redeploy.
+-- Every change takes the next value of plan_version_seq, so MAX(version) is the catalog version
+-- that nodes poll to decide whether to reload.
+CREATE SEQUENCE plan_version_seq START WITH 2;
+
+CREATE TABLE plans (
+    code VARCHAR(50) PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    entitlements JSONB NOT NULL DEFAULT '{}'::jsonb,
+    version BIGINT NOT NULL DEFAULT 1,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Seed with the plans that used to be hard-coded in PlanCatalog
+INSERT INTO plans (code, name, entitlements) VALUES
+    ('starter', 'Starter', '{"features.ai_assistant": "false", "limits.projects": "10", "limits.api_calls_per_month": "1000"}'),
+    ('business', 'Business', '{"features.ai_assistant": "true", "app.nim.access": "true", "limits.projects": "100", "limits.api_calls_per_month": "10000"}'),
+    ('enterprise', 'Enterprise', '{"features.ai_assistant": "true", "app.nim.access": "true", "limits.projects": "unlimited", "limits.api_calls_per_month": "unlimited"}');
+
+-- Background re-sync of tenants' entitlement rows after a plan change.
+-- last_tenant_id is the keyset cursor, so a job resumes where it stopped after a restart.
+CREATE TABLE plan_resync_jobs (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    plan_code VARCHAR(50) NOT NULL,
+    plan_version BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    total_tenants BIGINT NOT NULL DEFAULT 0,
+    processed_tenants BIGINT NOT NULL DEFAULT 0,
+    changed_tenants BIGINT NOT NULL DEFAULT 0,
+    failed_tenants BIGINT NOT NULL DEFAULT 0,
+    last_tenant_id UUID,
+    owner VARCHAR(100),
+    heartbeat_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+    CONSTRAINT fk_plan_resync_job_plan FOREIGN KEY (plan_code) REFERENCES plans(code) ON DELETE CASCADE,
+    CONSTRAINT check_plan_resync_job_status CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'SUPERSEDED'))
+);
+
+CREATE INDEX idx_plan_resync_jobs_status ON plan_resync_jobs(status);
+
+-- Keyset scan of a plan's current subscribers
+CREATE INDEX idx_subscriptions_plan_status_tenant ON subscriptions(plan, status, tenant_id);
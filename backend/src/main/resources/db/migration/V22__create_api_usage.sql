@@ -0,0 +1,11 @@
+-- Monthly API call counters per tenant, written by the metering flush.
+-- Every node adds its aggregated delta with an upsert, so concurrent flushes never lose calls.
+CREATE TABLE api_usage (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    tenant_id UUID NOT NULL,
+    period_start DATE NOT NULL,
+    call_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_api_usage_tenant FOREIGN KEY (tenant_id) REFERENCES tenants(id) ON DELETE CASCADE,
+    CONSTRAINT unique_api_usage_tenant_period UNIQUE (tenant_id, period_start)
+);
@@ -0,0 +1,6 @@
+-- Lease columns for claiming outbox events with FOR UPDATE SKIP LOCKED across nodes
+ALTER TABLE outbox_events ADD COLUMN locked_by VARCHAR(100);
+ALTER TABLE outbox_events ADD COLUMN locked_until TIMESTAMP;
+
+-- Only claimed events carry a lease, so expired ones are found without scanning the table
+CREATE INDEX idx_outbox_events_lease ON outbox_events(locked_until) WHERE status = 'PROCESSING';
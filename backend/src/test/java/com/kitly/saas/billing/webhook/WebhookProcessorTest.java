@@ -3,6 +3,7 @@ package com.kitly.saas.billing.webhook;
 import com.kitly.saas.common.outbox.OutboxService;
 import com.kitly.saas.entity.*;
 import com.kitly.saas.entitlement.EntitlementService;
+import com.kitly.saas.entitlement.listener.EntitlementVersionBumpEvent;
 import com.kitly.saas.repository.SubscriptionRepository;
 import com.kitly.saas.repository.TenantRepository;
 import com.kitly.saas.repository.WebhookInboxRepository;
@@ -13,6 +14,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.*;
 
@@ -39,6 +41,9 @@ class WebhookProcessorTest {
     @Mock
     private OutboxService outboxService;
     
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     @InjectMocks
     private WebhookProcessor webhookProcessor;
     
@@ -224,4 +229,88 @@ class WebhookProcessorTest {
                 w.getStatus() == WebhookInbox.WebhookStatus.FAILED);
         assertTrue(hasFailed, "Expected at least one webhook with FAILED status");
     }
+    
+    @Test
+    void testProcessSubscriptionUpdated_StatusOnlyChange_BumpsVersion() {
+        // Given: An active subscription that Stripe reports as past due, plan unchanged
+        Subscription existingSubscription = Subscription.builder()
+                .id(UUID.randomUUID())
+                .tenant(testTenant)
+                .plan(Subscription.SubscriptionPlan.STARTER)
+                .status(Subscription.SubscriptionStatus.ACTIVE)
+                .maxSeats(5)
+                .build();
+        WebhookInbox webhook = subscriptionWebhook("past_due", "starter");
+        
+        when(webhookInboxRepository.findByProviderAndStatus("stripe", WebhookInbox.WebhookStatus.PENDING))
+                .thenReturn(List.of(webhook));
+        when(tenantRepository.findById(testTenantId))
+                .thenReturn(Optional.of(testTenant));
+        when(subscriptionRepository.findByTenantIdAndStatus(testTenantId, Subscription.SubscriptionStatus.ACTIVE))
+                .thenReturn(Optional.of(existingSubscription));
+        when(subscriptionRepository.save(any(Subscription.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When: Processing the webhook
+        webhookProcessor.processPendingWebhooks();
+        
+        // Then: No plan to sync for a past-due subscription, but the version is bumped
+        assertEquals(WebhookInbox.WebhookStatus.PROCESSED, webhook.getStatus());
+        assertEquals(Subscription.SubscriptionStatus.PAST_DUE, existingSubscription.getStatus());
+        verify(entitlementService, never()).syncEntitlements(any());
+        ArgumentCaptor<EntitlementVersionBumpEvent> eventCaptor =
+                ArgumentCaptor.forClass(EntitlementVersionBumpEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(testTenantId, eventCaptor.getValue().getTenantId());
+    }
+    
+    @Test
+    void testProcessSubscriptionUpdated_NothingChanged_DoesNotBumpVersion() {
+        // Given: A replayed webhook that matches the stored subscription
+        Subscription existingSubscription = Subscription.builder()
+                .id(UUID.randomUUID())
+                .tenant(testTenant)
+                .plan(Subscription.SubscriptionPlan.STARTER)
+                .status(Subscription.SubscriptionStatus.ACTIVE)
+                .maxSeats(5)
+                .build();
+        WebhookInbox webhook = subscriptionWebhook("active", "starter");
+        
+        when(webhookInboxRepository.findByProviderAndStatus("stripe", WebhookInbox.WebhookStatus.PENDING))
+                .thenReturn(List.of(webhook));
+        when(tenantRepository.findById(testTenantId))
+                .thenReturn(Optional.of(testTenant));
+        when(subscriptionRepository.findByTenantIdAndStatus(testTenantId, Subscription.SubscriptionStatus.ACTIVE))
+                .thenReturn(Optional.of(existingSubscription));
+        when(subscriptionRepository.save(any(Subscription.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When: Processing the webhook
+        webhookProcessor.processPendingWebhooks();
+        
+        // Then: The plan is re-synced (a no-op here) and no extra bump is published
+        assertEquals(WebhookInbox.WebhookStatus.PROCESSED, webhook.getStatus());
+        verify(entitlementService).syncEntitlements(testTenantId);
+        verify(eventPublisher, never()).publishEvent(any(EntitlementVersionBumpEvent.class));
+    }
+    
+    private WebhookInbox subscriptionWebhook(String status, String plan) {
+        Map<String, Object> subscriptionData = new HashMap<>();
+        subscriptionData.put("id", "sub_test_123");
+        subscriptionData.put("status", status);
+        subscriptionData.put("metadata", Map.of("tenant_id", testTenantId.toString()));
+        subscriptionData.put("items", Map.of("data", List.of(
+                Map.of("price", Map.of("metadata", Map.of("plan", plan)))
+        )));
+        
+        return WebhookInbox.builder()
+                .id(UUID.randomUUID())
+                .provider("stripe")
+                .eventId("evt_" + UUID.randomUUID())
+                .eventType("customer.subscription.updated")
+                .payload(Map.of("data", Map.of("object", subscriptionData)))
+                .status(WebhookInbox.WebhookStatus.PENDING)
+                .retryCount(0)
+                .build();
+    }
 }
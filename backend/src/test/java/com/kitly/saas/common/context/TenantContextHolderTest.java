@@ -90,4 +90,38 @@ class TenantContextHolderTest {
         // Other thread should have had its own tenant ID
         assertEquals(otherTenantId, otherThreadTenantId[0]);
     }
+    
+    @Test
+    void testGetTenantIdDoesNotBindContext() {
+        assertNull(TenantContextHolder.getTenantId());
+        assertNull(TenantContextHolder.snapshot());
+    }
+    
+    @Test
+    void testRunWithRestoresPreviousContext() {
+        TenantContextHolder.setTenantId(testTenantId);
+        UUID scopedTenantId = UUID.randomUUID();
+        final UUID[] seen = new UUID[1];
+        
+        TenantContextHolder.runWith(TenantContext.of(scopedTenantId), () -> seen[0] = TenantContextHolder.getTenantId());
+        
+        assertEquals(scopedTenantId, seen[0]);
+        assertEquals(testTenantId, TenantContextHolder.getTenantId());
+    }
+    
+    @Test
+    void testTaskDecoratorPropagatesSnapshot() throws InterruptedException {
+        TenantContextHolder.setTenantId(testTenantId);
+        final UUID[] seen = new UUID[1];
+        Runnable decorated = new TenantContextTaskDecorator()
+                .decorate(() -> seen[0] = TenantContextHolder.getTenantId());
+        
+        // Later changes on the submitting thread must not leak into the task
+        TenantContextHolder.setTenantId(UUID.randomUUID());
+        Thread worker = new Thread(decorated);
+        worker.start();
+        worker.join();
+        
+        assertEquals(testTenantId, seen[0]);
+    }
 }
@@ -136,6 +136,20 @@ class GlobalExceptionHandlerTest {
         assertEquals("Internal Server Error", response.getBody().getError());
     }
     
+    @Test
+    void testHandleServiceOverloadedException() {
+        ResponseEntity<ErrorResponse> rejected = exceptionHandler.handleServiceOverloadedException(
+                new ServiceOverloadedException("Busy", true, 1));
+        ResponseEntity<ErrorResponse> timedOut = exceptionHandler.handleServiceOverloadedException(
+                new ServiceOverloadedException("Busy", false, 2));
+        
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        assertEquals("1", rejected.getHeaders().getFirst("Retry-After"));
+        assertEquals("SERVICE_OVERLOADED", rejected.getBody().getCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, timedOut.getStatusCode());
+        assertEquals("2", timedOut.getHeaders().getFirst("Retry-After"));
+    }
+    
     @Test
     void testErrorResponseFormat() {
         ResourceNotFoundException exception = new ResourceNotFoundException("Test");
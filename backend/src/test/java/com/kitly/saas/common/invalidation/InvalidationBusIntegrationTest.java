@@ -0,0 +1,89 @@
+package com.kitly.saas.common.invalidation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Two buses on one database, standing in for two backend nodes.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class InvalidationBusIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    private final InvalidationHandler handlerA = handler();
+    private final InvalidationHandler handlerB = handler();
+
+    private PGSimpleDataSource dataSource;
+    private InvalidationBus nodeA;
+    private InvalidationBus nodeB;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new PGSimpleDataSource();
+        dataSource.setURL(postgres.getJdbcUrl());
+        dataSource.setUser(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+
+        nodeA = new InvalidationBus(dataSource, new ObjectMapper(), () -> List.of(handlerA), true, 50, 500, 100);
+        nodeB = new InvalidationBus(dataSource, new ObjectMapper(), () -> List.of(handlerB), true, 50, 500, 100);
+        nodeA.start();
+        nodeB.start();
+        // Initial resync after LISTEN
+        verify(handlerA, timeout(5000)).invalidateAll();
+        verify(handlerB, timeout(5000)).invalidateAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    void publish_ReachesOtherNodeCoalesced() {
+        nodeA.publish("principals", "alice");
+        nodeA.publish("principals", "alice");
+        nodeA.publish("principals", "bob");
+
+        verify(handlerB, timeout(5000)).invalidate(Set.of("alice", "bob"));
+        verify(handlerA, after(500).never()).invalidate(anySet());
+    }
+
+    @Test
+    void droppedConnection_ResyncsAfterReconnect() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+                    + "WHERE query = 'LISTEN " + InvalidationBus.CHANNEL + "' AND pid <> pg_backend_pid()");
+        }
+
+        verify(handlerA, timeout(10000).times(2)).invalidateAll();
+        verify(handlerB, timeout(10000).times(2)).invalidateAll();
+
+        nodeB.publish("principals", "carol");
+        verify(handlerA, timeout(5000)).invalidate(Set.of("carol"));
+    }
+
+    private static InvalidationHandler handler() {
+        InvalidationHandler handler = mock(InvalidationHandler.class);
+        when(handler.getTopic()).thenReturn("principals");
+        return handler;
+    }
+}
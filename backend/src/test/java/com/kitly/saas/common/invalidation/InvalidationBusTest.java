@@ -0,0 +1,100 @@
+package com.kitly.saas.common.invalidation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvalidationBusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private InvalidationHandler handler;
+
+    private InvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        when(handler.getTopic()).thenReturn("principals");
+        bus = new InvalidationBus(dataSource, objectMapper, () -> List.of(handler), false, 50, 10000, 1000);
+        bus.start();
+    }
+
+    @Test
+    void collect_CoalescesKeysAcrossNotificationsAndSkipsOwnNode() throws Exception {
+        String own = bus.encode(Map.of("principals", Set.of("carol"))).get(0);
+
+        Map<String, Set<String>> batch = new HashMap<>();
+        bus.collect(new PGNotification[] {
+                notification(message("node-b", "principals", "alice", "bob")),
+                notification(message("node-c", "principals", "alice")),
+                notification(own),
+                notification("not json")
+        }, batch);
+        bus.dispatch(batch);
+
+        verify(handler).invalidate(Set.of("alice", "bob"));
+        verify(handler, never()).invalidateAll();
+    }
+
+    @Test
+    void dispatch_AllKeys_InvalidatesEverything() throws Exception {
+        Map<String, Set<String>> batch = new HashMap<>();
+        bus.collect(new PGNotification[] {
+                notification(message("node-b", "principals", "alice")),
+                notification(message("node-b", "principals", InvalidationBus.ALL_KEYS)),
+                notification(message("node-b", "unknown-topic", "x"))
+        }, batch);
+        bus.dispatch(batch);
+
+        verify(handler).invalidateAll();
+        verify(handler, never()).invalidate(anySet());
+    }
+
+    @Test
+    void encode_SplitsLargeBatchesBelowPayloadLimit() throws Exception {
+        Set<String> keys = IntStream.range(0, 1000)
+                .mapToObj(i -> "user-" + i + "@example.com")
+                .collect(Collectors.toSet());
+
+        List<String> payloads = bus.encode(Map.of("principals", keys));
+
+        assertTrue(payloads.size() > 1);
+        Set<String> decoded = new HashSet<>();
+        for (String payload : payloads) {
+            assertTrue(payload.length() < 8000);
+            decoded.addAll(objectMapper.readValue(payload, InvalidationBus.Message.class).keys());
+        }
+        assertEquals(keys, decoded);
+    }
+
+    private String message(String node, String topic, String... keys) throws Exception {
+        return objectMapper.writeValueAsString(new InvalidationBus.Message(node, topic, List.of(keys)));
+    }
+
+    private static PGNotification notification(String payload) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getParameter()).thenReturn(payload);
+        return notification;
+    }
+}
@@ -0,0 +1,208 @@
+package com.kitly.saas.common.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kitly.saas.entity.OutboxEvent;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpOutboxTransportTest {
+
+    private static final String SECRET = "test-signing-secret";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final List<Received> received = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void send_CompressesAndSignsBatchAndAcknowledgesEmptyResponse() {
+        stub("/billing", request -> new Response(204, ""));
+        HttpOutboxTransport transport = transport("billing=" + url("/billing"), "", 500, 0);
+        List<OutboxEvent> events = List.of(event("SUBSCRIPTION_CREATED"), event("SUBSCRIPTION_UPDATED"));
+
+        OutboxTransport.Delivery delivery = transport.send(events);
+
+        assertEquals(Set.of(events.get(0).getId(), events.get(1).getId()), delivery.acknowledged());
+        assertTrue(delivery.failures().isEmpty());
+        assertEquals(1, received.size());
+        Received request = received.get(0);
+        assertEquals("gzip", request.contentEncoding);
+        assertEquals(HttpOutboxTransport.sign(SECRET, request.body), request.signature);
+        assertEquals(List.of(events.get(0).getId().toString(), events.get(1).getId().toString()), request.eventIds());
+    }
+
+    @Test
+    void send_PartialAcknowledgement() {
+        List<OutboxEvent> events = List.of(event("EntitlementsChanged"), event("EntitlementsChanged"),
+                event("EntitlementsChanged"));
+        stub("/entitlements", request -> new Response(200, "{\"accepted\":[\"" + events.get(0).getId()
+                + "\"],\"rejected\":{\"" + events.get(1).getId() + "\":\"unknown tenant\"}}"));
+        HttpOutboxTransport transport = transport("entitlements=" + url("/entitlements"), "", 500, 64 * 1024);
+
+        OutboxTransport.Delivery delivery = transport.send(events);
+
+        assertEquals(Set.of(events.get(0).getId()), delivery.acknowledged());
+        assertEquals(Set.of(events.get(1).getId()), delivery.failures().keySet());
+        assertTrue(delivery.failures().get(events.get(1).getId()).getMessage().contains("unknown tenant"));
+        assertNull(received.get(0).contentEncoding);
+    }
+
+    @Test
+    void send_PartialAcknowledgementStopsTheDestination() {
+        List<OutboxEvent> events = List.of(event("EntitlementsChanged"), event("EntitlementsChanged"),
+                event("EntitlementsChanged"), event("EntitlementsChanged"));
+        stub("/entitlements", request -> new Response(200, "{\"accepted\":[\"" + events.get(0).getId() + "\"]}"));
+        HttpOutboxTransport transport = transport("entitlements=" + url("/entitlements"), "", 2, 64 * 1024);
+
+        OutboxTransport.Delivery delivery = transport.send(events);
+
+        // The second event was left open, so the next request must not overtake it
+        assertEquals(Set.of(events.get(0).getId()), delivery.acknowledged());
+        assertTrue(delivery.failures().isEmpty());
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void send_ErrorResponseFailsRequestAndStopsTheDestination() {
+        stub("/billing", request -> new Response(503, ""));
+        HttpOutboxTransport transport = transport("billing=" + url("/billing"), "", 2, 1024);
+        List<OutboxEvent> events = List.of(event("SUBSCRIPTION_CREATED"), event("SUBSCRIPTION_CREATED"),
+                event("SUBSCRIPTION_CREATED"));
+
+        OutboxTransport.Delivery delivery = transport.send(events);
+
+        assertTrue(delivery.acknowledged().isEmpty());
+        // The third event was never sent, so it is handed back without counting as a failure
+        assertEquals(Set.of(events.get(0).getId(), events.get(1).getId()), delivery.failures().keySet());
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void send_SplitsByRouteAndRequiresEveryDestination() {
+        stub("/billing", request -> new Response(200, ""));
+        stub("/entitlements", request -> new Response(500, ""));
+        HttpOutboxTransport transport = transport(
+                "billing=" + url("/billing") + ",entitlements=" + url("/entitlements"),
+                "SUBSCRIPTION_*=billing,EntitlementsChanged=entitlements|billing", 500, 1024);
+        OutboxEvent subscription = event("SUBSCRIPTION_CANCELED");
+        OutboxEvent entitlements = event("EntitlementsChanged");
+        OutboxEvent unrouted = event("SomethingElse");
+
+        OutboxTransport.Delivery delivery = transport.send(List.of(subscription, entitlements, unrouted));
+
+        assertEquals(Set.of(subscription.getId(), unrouted.getId()), delivery.acknowledged());
+        assertEquals(Set.of(entitlements.getId()), delivery.failures().keySet());
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    void constructor_RejectsUnknownRouteDestination() {
+        assertThrows(IllegalStateException.class,
+                () -> transport("billing=" + url("/billing"), "EntitlementsChanged=analytics", 500, 1024));
+        assertThrows(IllegalStateException.class, () -> transport("", "", 500, 1024));
+    }
+
+    private HttpOutboxTransport transport(String destinations, String routes, int maxBatchSize, int compressMinBytes) {
+        return new HttpOutboxTransport(objectMapper, new SimpleMeterRegistry(), destinations, routes,
+                maxBatchSize, 4, compressMinBytes, 1000, 2000, SECRET);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private void stub(String path, Function<Received, Response> handler) {
+        server.createContext(path, exchange -> {
+            Received request = receive(exchange);
+            received.add(request);
+            Response response = handler.apply(request);
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(response.status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+    }
+
+    private Received receive(HttpExchange exchange) throws IOException {
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        try (InputStream in = "gzip".equals(contentEncoding)
+                ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+            return new Received(in.readAllBytes(), contentEncoding,
+                    exchange.getRequestHeaders().getFirst(HttpOutboxTransport.SIGNATURE_HEADER));
+        }
+    }
+
+    private static OutboxEvent event(String eventType) {
+        return OutboxEvent.builder()
+                .id(UUID.randomUUID())
+                .eventType(eventType)
+                .aggregateType("Tenant")
+                .aggregateId(UUID.randomUUID())
+                .payload(Map.of("plan", "PRO", "padding", "x".repeat(200)))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private record Response(int status, String body) {
+    }
+
+    private final class Received {
+        private final byte[] body;
+        private final String contentEncoding;
+        private final String signature;
+
+        private Received(byte[] body, String contentEncoding, String signature) {
+            this.body = body;
+            this.contentEncoding = contentEncoding;
+            this.signature = signature;
+        }
+
+        private List<String> eventIds() {
+            try {
+                List<String> ids = new ArrayList<>();
+                for (JsonNode event : objectMapper.readTree(body).path("events")) {
+                    ids.add(event.path("id").asText());
+                }
+                return ids;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.kitly.saas.common.outbox;
+
+import com.kitly.saas.entity.OutboxEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxService outboxService;
+
+    private final FakeTransport transport = new FakeTransport();
+
+    private OutboxDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transport.proceed.countDown();
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+    }
+
+    @Test
+    void laneFor_IsStablePerAggregate() {
+        dispatcher = new OutboxDispatcher(outboxService, transport, 4, 10, 100, 10);
+        UUID aggregateId = UUID.randomUUID();
+
+        assertSame(dispatcher.laneFor(aggregateId), dispatcher.laneFor(aggregateId));
+    }
+
+    @Test
+    void dispatch_PublishesEventsOfOneAggregateInOrder() {
+        dispatcher = new OutboxDispatcher(outboxService, transport, 2, 10, 100, 10);
+        UUID aggregateId = UUID.randomUUID();
+        List<OutboxEvent> batch = List.of(event(aggregateId), event(aggregateId), event(aggregateId));
+        when(outboxService.claimPendingEvents(10)).thenReturn(batch);
+
+        dispatcher.dispatch();
+
+        waitForInFlight(0);
+        assertEquals(ids(batch), transport.sent());
+        assertEquals(new HashSet<>(ids(batch)), processedIds());
+        verify(outboxService, never()).markFailed(any(), any());
+    }
+
+    @Test
+    void dispatch_ClaimsOnlyUpToMaxInFlight() throws InterruptedException {
+        transport.block();
+        dispatcher = new OutboxDispatcher(outboxService, transport, 1, 10, 3, 10);
+        UUID aggregateId = UUID.randomUUID();
+        when(outboxService.claimPendingEvents(3)).thenReturn(List.of(event(aggregateId), event(aggregateId)));
+
+        dispatcher.dispatch();
+        assertTrue(transport.sending.await(1, TimeUnit.SECONDS));
+        assertEquals(2, dispatcher.getInFlight());
+
+        // Only one slot is left until the lane has caught up
+        when(outboxService.claimPendingEvents(1)).thenReturn(Collections.emptyList());
+        dispatcher.dispatch();
+        verify(outboxService).claimPendingEvents(1);
+
+        transport.proceed.countDown();
+        waitForInFlight(0);
+        assertEquals(2, processedIds().size());
+    }
+
+    @Test
+    void dispatch_HandsBackEventsThatDoNotFitTheLane() throws InterruptedException {
+        transport.block();
+        dispatcher = new OutboxDispatcher(outboxService, transport, 1, 10, 100, 2);
+        OutboxEvent first = event(UUID.randomUUID());
+        when(outboxService.claimPendingEvents(10)).thenReturn(List.of(first));
+        dispatcher.dispatch();
+        assertTrue(transport.sending.await(1, TimeUnit.SECONDS));
+
+        // One event is being sent, so the lane has room for one more
+        OutboxEvent a1 = event(UUID.randomUUID());
+        OutboxEvent b1 = event(UUID.randomUUID());
+        OutboxEvent a2 = event(a1.getAggregateId());
+        when(outboxService.claimPendingEvents(10)).thenReturn(List.of(a1, b1, a2));
+        dispatcher.dispatch();
+
+        verify(outboxService).release(List.of(b1.getId(), a2.getId()));
+        transport.proceed.countDown();
+        waitForInFlight(0);
+        assertEquals(Set.of(first.getId(), a1.getId()), processedIds());
+    }
+
+    @Test
+    void deliver_BatchesQueuedEvents() throws InterruptedException {
+        transport.block();
+        dispatcher = new OutboxDispatcher(outboxService, transport, 1, 10, 100, 10);
+        OutboxEvent first = event(UUID.randomUUID());
+        when(outboxService.claimPendingEvents(10)).thenReturn(List.of(first));
+        dispatcher.dispatch();
+        assertTrue(transport.sending.await(1, TimeUnit.SECONDS));
+
+        List<OutboxEvent> queued = List.of(event(UUID.randomUUID()), event(UUID.randomUUID()), event(UUID.randomUUID()));
+        when(outboxService.claimPendingEvents(10)).thenReturn(queued);
+        dispatcher.dispatch();
+        transport.proceed.countDown();
+
+        waitForInFlight(0);
+        assertEquals(List.of(List.of(first.getId()), ids(queued)), transport.batches);
+    }
+
+    @Test
+    void deliver_FailureHoldsBackLaterEventsOfTheSameAggregate() {
+        dispatcher = new OutboxDispatcher(outboxService, transport, 1, 10, 100, 10);
+        UUID failing = UUID.randomUUID();
+        OutboxEvent f1 = event(failing);
+        OutboxEvent o1 = event(UUID.randomUUID());
+        OutboxEvent f2 = event(failing);
+        OutboxDeliveryException error = new OutboxDeliveryException("sink down");
+        transport.failures.put(f1.getId(), error);
+        when(outboxService.claimPendingEvents(10)).thenReturn(List.of(f1, o1, f2));
+
+        dispatcher.dispatch();
+
+        waitForInFlight(0);
+        verify(outboxService).markFailed(f1, error);
+        verify(outboxService).release(List.of(f2.getId()));
+        assertEquals(Set.of(o1.getId()), processedIds());
+    }
+
+    @Test
+    void deliver_UnacknowledgedEventIsHandedBackWithoutFailing() {
+        dispatcher = new OutboxDispatcher(outboxService, transport, 1, 10, 100, 10);
+        OutboxEvent skipped = event(UUID.randomUUID());
+        OutboxEvent later = event(skipped.getAggregateId());
+        OutboxEvent other = event(UUID.randomUUID());
+        transport.unacknowledged.add(skipped.getId());
+        when(outboxService.claimPendingEvents(10)).thenReturn(List.of(skipped, later, other));
+
+        dispatcher.dispatch();
+
+        waitForInFlight(0);
+        assertEquals(Set.of(skipped.getId(), later.getId()), releasedIds());
+        verify(outboxService, never()).markFailed(any(), any());
+        assertEquals(Set.of(other.getId()), processedIds());
+    }
+
+    @Test
+    void deliver_TransportExceptionFailsTheBatch() {
+        OutboxDeliveryException error = new OutboxDeliveryException("boom");
+        OutboxTransport throwing = events -> {
+            throw error;
+        };
+        dispatcher = new OutboxDispatcher(outboxService, throwing, 1, 10, 100, 10);
+        OutboxEvent event = event(UUID.randomUUID());
+        when(outboxService.claimPendingEvents(10)).thenReturn(List.of(event));
+
+        dispatcher.dispatch();
+
+        waitForInFlight(0);
+        verify(outboxService).markFailed(event, error);
+        assertTrue(processedIds().isEmpty());
+    }
+
+    @Test
+    void deliver_ExpiredLeaseIsReleasedInsteadOfPublished() {
+        dispatcher = new OutboxDispatcher(outboxService, transport, 1, 10, 100, 10);
+        OutboxEvent expired = event(UUID.randomUUID());
+        expired.setLockedUntil(LocalDateTime.now().minusSeconds(1));
+        when(outboxService.claimPendingEvents(10)).thenReturn(List.of(expired));
+
+        dispatcher.dispatch();
+
+        waitForInFlight(0);
+        verify(outboxService).release(List.of(expired.getId()));
+        assertTrue(transport.sent().isEmpty());
+        assertTrue(processedIds().isEmpty());
+    }
+
+    @Test
+    void poll_DispatchesOnDispatcherThreadAndSkipsWhileBusy() throws InterruptedException {
+        dispatcher = new OutboxDispatcher(outboxService, transport, 1, 10, 100, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        when(outboxService.claimPendingEvents(10)).thenAnswer(invocation -> {
+            threadName.set(Thread.currentThread().getName());
+            started.countDown();
+            release.await(1, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        dispatcher.poll();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals("outbox-dispatcher", threadName.get());
+        // The scheduler thread returns at once, and does not queue a second round behind a busy one
+        dispatcher.poll();
+        release.countDown();
+
+        verify(outboxService, timeout(1000).times(1)).claimPendingEvents(10);
+        Thread.sleep(50);
+        verify(outboxService, times(1)).claimPendingEvents(10);
+    }
+
+    @Test
+    void dispatch_KeepsClaimingWhileBatchesComeBackFull() {
+        dispatcher = new OutboxDispatcher(outboxService, transport, 2, 2, 100, 10);
+        when(outboxService.claimPendingEvents(anyInt()))
+                .thenReturn(List.of(event(UUID.randomUUID()), event(UUID.randomUUID())))
+                .thenReturn(List.of(event(UUID.randomUUID())));
+
+        dispatcher.dispatch();
+
+        verify(outboxService, times(2)).claimPendingEvents(eq(2));
+        waitForInFlight(0);
+        assertEquals(3, processedIds().size());
+    }
+
+    private Set<UUID> processedIds() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UUID>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxService, atLeast(0)).markProcessed(captor.capture());
+        Set<UUID> processed = new HashSet<>();
+        captor.getAllValues().forEach(processed::addAll);
+        return processed;
+    }
+
+    private Set<UUID> releasedIds() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UUID>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxService, atLeast(0)).release(captor.capture());
+        Set<UUID> released = new HashSet<>();
+        captor.getAllValues().forEach(released::addAll);
+        return released;
+    }
+
+    private void waitForInFlight(int expected) {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (dispatcher.getInFlight() != expected && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, dispatcher.getInFlight());
+    }
+
+    private static List<UUID> ids(List<OutboxEvent> events) {
+        return events.stream().map(OutboxEvent::getId).toList();
+    }
+
+    private static OutboxEvent event(UUID aggregateId) {
+        return OutboxEvent.builder()
+                .id(UUID.randomUUID())
+                .eventType("TestEvent")
+                .aggregateType("Test")
+                .aggregateId(aggregateId)
+                .payload(Map.of())
+                .status(OutboxEvent.OutboxStatus.PROCESSING)
+                .build();
+    }
+
+    /**
+     * Transport that records batches, acknowledges everything not configured otherwise and
+     * can hold its first batch until the test lets it proceed.
+     */
+    private static class FakeTransport implements OutboxTransport {
+        private final List<List<UUID>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final Map<UUID, Exception> failures = new HashMap<>();
+        private final Set<UUID> unacknowledged = new HashSet<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch proceed = new CountDownLatch(1);
+        private volatile boolean blocking;
+
+        void block() {
+            blocking = true;
+        }
+
+        List<UUID> sent() {
+            List<UUID> sent = new ArrayList<>();
+            batches.forEach(sent::addAll);
+            return sent;
+        }
+
+        @Override
+        public Delivery send(List<OutboxEvent> events) {
+            batches.add(ids(events));
+            sending.countDown();
+            if (blocking) {
+                try {
+                    proceed.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Set<UUID> acknowledged = new HashSet<>();
+            Map<UUID, Exception> failed = new HashMap<>();
+            for (OutboxEvent event : events) {
+                if (failures.containsKey(event.getId())) {
+                    failed.put(event.getId(), failures.get(event.getId()));
+                } else if (!unacknowledged.contains(event.getId())) {
+                    acknowledged.add(event.getId());
+                }
+            }
+            return new Delivery(acknowledged, failed);
+        }
+    }
+}
@@ -6,7 +6,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -23,7 +22,6 @@ class OutboxServiceTest {
     @Mock
     private OutboxEventRepository outboxEventRepository;
     
-    @InjectMocks
     private OutboxService outboxService;
     
     private UUID testAggregateId;
@@ -31,6 +29,7 @@ class OutboxServiceTest {
     
     @BeforeEach
     void setUp() {
+        outboxService = new OutboxService(outboxEventRepository, 60000);
         testAggregateId = UUID.randomUUID();
         testPayload = new HashMap<>();
         testPayload.put("key1", "value1");
@@ -89,38 +88,41 @@ class OutboxServiceTest {
     }
     
     @Test
-    void processPendingEvents_ShouldProcessAllPendingEvents() {
+    void claimPendingEvents_ShouldReleaseExpiredLeasesAndClaimOldestFirst() {
         // Given
-        OutboxEvent event1 = createTestEvent("EVENT_1");
-        OutboxEvent event2 = createTestEvent("EVENT_2");
-        
-        when(outboxEventRepository.findByStatus(OutboxEvent.OutboxStatus.PENDING))
-                .thenReturn(Arrays.asList(event1, event2));
-        when(outboxEventRepository.save(any(OutboxEvent.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        OutboxEvent newer = createTestEvent("NEWER");
+        newer.setCreatedAt(LocalDateTime.now());
+        OutboxEvent older = createTestEvent("OLDER");
+        older.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> lockedUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        
+        List<UUID> aggregateIds = List.of(testAggregateId);
+        when(outboxEventRepository.lockPendingAggregates(anyInt(), eq(40), eq(10))).thenReturn(aggregateIds);
+        when(outboxEventRepository.claimPending(anyString(), now.capture(), lockedUntil.capture(),
+                eq(OutboxService.MAX_RETRIES), eq(aggregateIds), eq(10)))
+                .thenReturn(Arrays.asList(newer, older));
         
         // When
-        outboxService.processPendingEvents();
+        List<OutboxEvent> claimed = outboxService.claimPendingEvents(10);
         
         // Then
-        verify(outboxEventRepository).findByStatus(OutboxEvent.OutboxStatus.PENDING);
-        verify(outboxEventRepository, atLeast(4)).save(any(OutboxEvent.class));
+        verify(outboxEventRepository).releaseExpiredLeases(any());
+        assertEquals(List.of(older, newer), claimed);
+        assertEquals(now.getValue().plusSeconds(60), lockedUntil.getValue());
     }
     
     @Test
-    void processEvent_ShouldMarkAsProcessed_WhenSuccessful() {
+    void claimPendingEvents_AllAggregatesLockedElsewhere_ClaimsNothing() {
         // Given
-        OutboxEvent event = createTestEvent("TEST_EVENT");
-        when(outboxEventRepository.save(any(OutboxEvent.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(outboxEventRepository.lockPendingAggregates(anyInt(), eq(40), eq(10))).thenReturn(List.of());
         
         // When
-        outboxService.processEvent(event);
+        List<OutboxEvent> claimed = outboxService.claimPendingEvents(10);
         
         // Then
-        assertEquals(OutboxEvent.OutboxStatus.PROCESSED, event.getStatus());
-        assertNotNull(event.getProcessedAt());
-        verify(outboxEventRepository, atLeast(2)).save(event);
+        assertTrue(claimed.isEmpty());
+        verify(outboxEventRepository, never()).claimPending(any(), any(), any(), anyInt(), any(), anyInt());
     }
     
     @Test
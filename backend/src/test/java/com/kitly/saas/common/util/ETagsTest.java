@@ -0,0 +1,40 @@
+package com.kitly.saas.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+    
+    @Test
+    void testOfIsStableAndQuoted() {
+        UUID tenantId = UUID.randomUUID();
+        
+        String etag = ETags.of("entitlements", tenantId, 3L);
+        
+        assertEquals(etag, ETags.of("entitlements", tenantId, 3L));
+        assertNotEquals(etag, ETags.of("entitlements", tenantId, 4L));
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+    }
+    
+    @Test
+    void testMatchesHandlesListsWeakTagsAndWildcard() {
+        String etag = ETags.of("plans", "abc");
+        
+        assertTrue(ETags.matches(etag, etag));
+        assertTrue(ETags.matches("\"other\", W/" + etag, etag));
+        assertTrue(ETags.matches("*", etag));
+        assertFalse(ETags.matches("\"other\"", etag));
+        assertFalse(ETags.matches(null, etag));
+    }
+    
+    @Test
+    void testNotModifiedCarriesETag() {
+        String etag = ETags.of("plans", "abc");
+        
+        assertEquals(304, ETags.notModified(etag).getStatusCode().value());
+        assertEquals(etag, ETags.notModified(etag).getHeaders().getETag());
+    }
+}
@@ -0,0 +1,52 @@
+package com.kitly.saas.controller;
+
+import com.kitly.saas.security.SessionSigningKeys;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwksControllerTest {
+    
+    @Test
+    void testGetJwks_ReturnsCacheableKeySet() throws Exception {
+        JwksController controller = new JwksController(rsaKeys(), 3600);
+        
+        ResponseEntity<String> response = controller.getJwks(null);
+        
+        assertEquals(200, response.getStatusCode().value());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().startsWith("{\"keys\":["));
+        assertEquals("max-age=3600, public", response.getHeaders().getCacheControl());
+        assertNotNull(response.getHeaders().getETag());
+    }
+    
+    @Test
+    void testGetJwks_MatchingETag_ReturnsNotModified() throws Exception {
+        JwksController controller = new JwksController(rsaKeys(), 3600);
+        String etag = controller.getJwks(null).getHeaders().getETag();
+        
+        ResponseEntity<String> response = controller.getJwks(etag);
+        
+        assertEquals(304, response.getStatusCode().value());
+        assertNull(response.getBody());
+    }
+    
+    @Test
+    void testGetJwks_HmacSessionTokens_PublishesEmptyKeySet() {
+        JwksController controller = new JwksController(SessionSigningKeys.hmac(), 3600);
+        
+        assertEquals("{\"keys\":[]}", controller.getJwks(null).getBody());
+    }
+    
+    private SessionSigningKeys rsaKeys() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        return new SessionSigningKeys(SessionSigningKeys.Algorithm.RS256, "rsa-1",
+                Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()),
+                Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()), "");
+    }
+}
@@ -0,0 +1,54 @@
+package com.kitly.saas.entitlement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledEntitlementsTest {
+    
+    @Test
+    void testCompileTypesValues() {
+        CompiledEntitlements compiled = CompiledEntitlements.compile(7L, List.of(
+                item("features.ai_assistant", "true"),
+                item("app.nim.access", "false"),
+                item("limits.projects", "10"),
+                item("limits.api_calls_per_month", "unlimited"),
+                item("branding.color", "#ff0000")
+        ));
+        
+        assertEquals(7L, compiled.getVersion());
+        assertTrue(compiled.isEnabled("features.ai_assistant"));
+        assertFalse(compiled.isEnabled("app.nim.access"));
+        assertTrue(compiled.isFeature(EntitlementKeys.idOf("app.nim.access")));
+        assertEquals(10L, compiled.getLimit("limits.projects"));
+        assertEquals(CompiledEntitlements.UNLIMITED, compiled.getLimit("limits.api_calls_per_month"));
+        assertEquals(CompiledEntitlements.NOT_SET, compiled.getLimit("branding.color"));
+    }
+    
+    @Test
+    void testUnknownAndForeignKeys() {
+        CompiledEntitlements small = CompiledEntitlements.compile(1L, List.of(item("features.a", "true")));
+        // A key interned later by another tenant has an id beyond this tenant's arrays
+        CompiledEntitlements.compile(1L, List.of(item("features.only_elsewhere_" + System.nanoTime(), "true")));
+        
+        assertFalse(small.isEnabled("features.never_seen"));
+        assertEquals(CompiledEntitlements.NOT_SET, small.getLimit("features.never_seen"));
+        assertFalse(small.isFeature(EntitlementKeys.UNKNOWN));
+        assertEquals(CompiledEntitlements.NOT_SET, small.getLimit(Integer.MAX_VALUE));
+        assertFalse(small.isEnabled(Integer.MAX_VALUE));
+    }
+    
+    @Test
+    void testInternIsStable() {
+        int id = EntitlementKeys.intern("limits.stable");
+        
+        assertEquals(id, EntitlementKeys.intern("limits.stable"));
+        assertEquals(id, EntitlementKeys.idOf("limits.stable"));
+    }
+    
+    private EntitlementResponse.EntitlementItem item(String key, String value) {
+        return EntitlementResponse.EntitlementItem.builder().key(key).value(value).source("PLAN").build();
+    }
+}
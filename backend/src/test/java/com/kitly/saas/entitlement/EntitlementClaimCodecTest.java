@@ -0,0 +1,59 @@
+package com.kitly.saas.entitlement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntitlementClaimCodecTest {
+    
+    @Test
+    void encode_RoundTripsFeaturesAndLimitsThroughKeyTable() {
+        EntitlementClaimCodec codec = new EntitlementClaimCodec(256);
+        EntitlementClaimCodec.KeyTable table = codec.getKeyTable();
+        assertTrue(table.getFeatures().contains("features.ai_assistant"));
+        assertTrue(table.getLimits().contains("limits.projects"));
+        
+        CompiledEntitlements compiled = CompiledEntitlements.compile(7L, List.of(
+                item("features.ai_assistant", "true"),
+                item("limits.projects", "300"),
+                item("limits.api_calls_per_month", "unlimited"),
+                item("override.only", "true")));
+        
+        Map<String, Object> claim = codec.encode(compiled);
+        Map<String, Object> decoded = EntitlementClaimCodec.decode(claim, table);
+        
+        assertEquals(table.getCatalogVersion(), claim.get("cv"));
+        assertEquals(Boolean.TRUE, decoded.get("features.ai_assistant"));
+        assertEquals(300L, decoded.get("limits.projects"));
+        assertEquals(CompiledEntitlements.UNLIMITED, decoded.get("limits.api_calls_per_month"));
+        assertFalse(decoded.containsKey("override.only"));
+        table.getFeatures().stream()
+                .filter(key -> !key.equals("features.ai_assistant"))
+                .forEach(key -> assertEquals(Boolean.FALSE, decoded.get(key)));
+    }
+    
+    @Test
+    void encode_OverBudget_IsNotIssued() {
+        EntitlementClaimCodec codec = new EntitlementClaimCodec(1);
+        CompiledEntitlements compiled = CompiledEntitlements.compile(1L, List.of(
+                item("limits.projects", "100000")));
+        
+        assertNull(codec.encode(compiled));
+    }
+    
+    @Test
+    void getKeyTable_UnknownCatalogVersion_IsEmpty() {
+        EntitlementClaimCodec codec = new EntitlementClaimCodec(256);
+        long version = codec.getKeyTable().getCatalogVersion();
+        
+        assertTrue(codec.getKeyTable(version).isPresent());
+        assertTrue(codec.getKeyTable(version + 1000).isEmpty());
+    }
+    
+    private EntitlementResponse.EntitlementItem item(String key, String value) {
+        return EntitlementResponse.EntitlementItem.builder().key(key).value(value).source("PLAN").build();
+    }
+}
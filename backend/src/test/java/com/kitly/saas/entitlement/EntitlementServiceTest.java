@@ -1,19 +1,26 @@
 package com.kitly.saas.entitlement;
 
+import com.kitly.saas.common.exception.NoActiveSubscriptionException;
 import com.kitly.saas.common.exception.ResourceNotFoundException;
+import com.kitly.saas.entitlement.listener.EntitlementsChangedEvent;
 import com.kitly.saas.entity.*;
 import com.kitly.saas.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +41,9 @@ class EntitlementServiceTest {
     @Mock
     private TenantRepository tenantRepository;
     
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     @InjectMocks
     private EntitlementService entitlementService;
     
@@ -72,13 +82,8 @@ class EntitlementServiceTest {
         when(membershipRepository.countByTenantIdAndStatus(testTenantId, Membership.MembershipStatus.ACTIVE))
                 .thenReturn(7L);
         
-        EntitlementVersion version = EntitlementVersion.builder()
-                .id(UUID.randomUUID())
-                .tenant(testTenant)
-                .version(15L)
-                .build();
-        when(entitlementVersionRepository.findByTenant(testTenant))
-                .thenReturn(Optional.of(version));
+        when(entitlementVersionRepository.findVersionByTenantId(testTenantId))
+                .thenReturn(Optional.of(15L));
         
         // When
         EntitlementResponse response = entitlementService.computeEntitlements(testTenantId);
@@ -129,13 +134,8 @@ class EntitlementServiceTest {
         when(membershipRepository.countByTenantIdAndStatus(testTenantId, Membership.MembershipStatus.ACTIVE))
                 .thenReturn(5L);
         
-        EntitlementVersion version = EntitlementVersion.builder()
-                .id(UUID.randomUUID())
-                .tenant(testTenant)
-                .version(20L)
-                .build();
-        when(entitlementVersionRepository.findByTenant(testTenant))
-                .thenReturn(Optional.of(version));
+        when(entitlementVersionRepository.findVersionByTenantId(testTenantId))
+                .thenReturn(Optional.of(20L));
         
         // When
         EntitlementResponse response = entitlementService.computeEntitlements(testTenantId);
@@ -166,13 +166,8 @@ class EntitlementServiceTest {
         when(membershipRepository.countByTenantIdAndStatus(testTenantId, Membership.MembershipStatus.ACTIVE))
                 .thenReturn(3L);
         
-        EntitlementVersion version = EntitlementVersion.builder()
-                .id(UUID.randomUUID())
-                .tenant(testTenant)
-                .version(1L)
-                .build();
-        when(entitlementVersionRepository.findByTenant(testTenant))
-                .thenReturn(Optional.of(version));
+        when(entitlementVersionRepository.findVersionByTenantId(testTenantId))
+                .thenReturn(Optional.of(1L));
         
         // When
         EntitlementResponse response = entitlementService.computeEntitlements(testTenantId);
@@ -199,7 +194,7 @@ class EntitlementServiceTest {
                 .thenReturn(Optional.empty());
         
         // When & Then
-        assertThrows(ResourceNotFoundException.class, () -> {
+        assertThrows(NoActiveSubscriptionException.class, () -> {
             entitlementService.computeEntitlements(testTenantId);
         });
     }
@@ -216,16 +211,9 @@ class EntitlementServiceTest {
                 .thenReturn(1L);
         
         // No existing version
-        when(entitlementVersionRepository.findByTenant(testTenant))
+        when(entitlementVersionRepository.findVersionByTenantId(testTenantId))
                 .thenReturn(Optional.empty());
-        
-        EntitlementVersion newVersion = EntitlementVersion.builder()
-                .id(UUID.randomUUID())
-                .tenant(testTenant)
-                .version(1L)
-                .build();
-        when(entitlementVersionRepository.save(any(EntitlementVersion.class)))
-                .thenReturn(newVersion);
+        when(entitlementVersionRepository.initializeVersion(testTenantId)).thenReturn(1L);
         
         // When
         EntitlementResponse response = entitlementService.computeEntitlements(testTenantId);
@@ -233,60 +221,233 @@ class EntitlementServiceTest {
         // Then
         assertNotNull(response);
         assertEquals(1L, response.getEntitlementVersion());
-        verify(entitlementVersionRepository, times(1)).save(any(EntitlementVersion.class));
+        verify(entitlementVersionRepository, times(1)).initializeVersion(testTenantId);
+        verify(entitlementVersionRepository, never()).save(any(EntitlementVersion.class));
+    }
+    
+    @Test
+    void testBumpEntitlementVersion_SingleAtomicIncrement() {
+        // Given
+        when(entitlementVersionRepository.incrementVersion(testTenantId)).thenReturn(11L);
+        
+        // When
+        long version = entitlementService.bumpEntitlementVersion(testTenantId);
+        
+        // Then
+        assertEquals(11L, version);
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(11L, ((EntitlementsChangedEvent) event.getValue()).getVersion());
+        verifyNoInteractions(tenantRepository);
+        verify(entitlementVersionRepository, never()).save(any(EntitlementVersion.class));
+    }
+    
+    @Test
+    void testBumpEntitlementVersion_TenantNotFound() {
+        // Given
+        when(entitlementVersionRepository.incrementVersion(testTenantId))
+                .thenThrow(new DataIntegrityViolationException("fk_entitlement_version_tenant"));
+        
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> {
+            entitlementService.bumpEntitlementVersion(testTenantId);
+        });
     }
     
     @Test
-    void testBumpEntitlementVersion_ExistingVersion() {
+    void testSyncEntitlements_NewRows_SavedInOneBatchAndBumped() {
         // Given
         when(tenantRepository.findById(testTenantId)).thenReturn(Optional.of(testTenant));
+        when(subscriptionRepository.findByTenantIdAndStatus(testTenantId, Subscription.SubscriptionStatus.ACTIVE))
+                .thenReturn(Optional.of(testSubscription));
+        when(entitlementRepository.findByTenant(testTenant)).thenReturn(Collections.emptyList());
+        when(entitlementVersionRepository.incrementVersion(testTenantId)).thenReturn(2L);
         
-        EntitlementVersion version = EntitlementVersion.builder()
-                .id(UUID.randomUUID())
+        // When
+        boolean changed = entitlementService.syncEntitlements(testTenantId);
+        
+        // Then
+        assertTrue(changed);
+        verify(entitlementRepository, times(1)).saveAll(argThat(rows -> ((Collection<?>) rows).size() == 4));
+        verify(entitlementRepository, never()).save(any(Entitlement.class));
+        verify(entitlementVersionRepository, times(1)).incrementVersion(testTenantId);
+    }
+    
+    @Test
+    void testSyncEntitlements_Unchanged_NoWritesAndNoBump() {
+        // Given
+        when(tenantRepository.findById(testTenantId)).thenReturn(Optional.of(testTenant));
+        when(subscriptionRepository.findByTenantIdAndStatus(testTenantId, Subscription.SubscriptionStatus.ACTIVE))
+                .thenReturn(Optional.of(testSubscription));
+        when(entitlementRepository.findByTenant(testTenant)).thenReturn(businessPlanRows(true));
+        
+        // When
+        boolean changed = entitlementService.syncEntitlements(testTenantId);
+        
+        // Then
+        assertFalse(changed);
+        verify(entitlementRepository, never()).saveAll(any());
+        verify(entitlementRepository, never()).deleteAll(any());
+        verifyNoInteractions(entitlementVersionRepository, eventPublisher);
+    }
+    
+    @Test
+    void testSyncEntitlements_KeyRemovedFromPlan_DeletesPlanRowAndKeepsOverride() {
+        // Given: a plan row for a key the plan no longer has, and an override
+        when(tenantRepository.findById(testTenantId)).thenReturn(Optional.of(testTenant));
+        when(subscriptionRepository.findByTenantIdAndStatus(testTenantId, Subscription.SubscriptionStatus.ACTIVE))
+                .thenReturn(Optional.of(testSubscription));
+        List<Entitlement> rows = businessPlanRows(true);
+        Entitlement removedKey = Entitlement.builder()
                 .tenant(testTenant)
-                .version(10L)
+                .featureKey("features.legacy_reports")
+                .featureType(Entitlement.FeatureType.BOOLEAN)
+                .enabled(true)
+                .metadata(Map.of(EntitlementService.SOURCE_METADATA, EntitlementService.PLAN_SOURCE))
                 .build();
-        when(entitlementVersionRepository.findByTenant(testTenant))
-                .thenReturn(Optional.of(version));
+        Entitlement override = Entitlement.builder()
+                .tenant(testTenant)
+                .featureKey("features.beta_dashboard")
+                .featureType(Entitlement.FeatureType.BOOLEAN)
+                .enabled(true)
+                .build();
+        rows.add(removedKey);
+        rows.add(override);
+        when(entitlementRepository.findByTenant(testTenant)).thenReturn(rows);
+        when(entitlementVersionRepository.incrementVersion(testTenantId)).thenReturn(3L);
         
         // When
-        entitlementService.bumpEntitlementVersion(testTenantId);
+        boolean changed = entitlementService.syncEntitlements(testTenantId);
         
         // Then
-        assertEquals(11L, version.getVersion());
-        verify(entitlementVersionRepository, times(1)).save(version);
+        assertTrue(changed);
+        verify(entitlementRepository).deleteAll(List.of(removedKey));
+        verify(entitlementRepository, never()).saveAll(any());
+        verify(entitlementVersionRepository).incrementVersion(testTenantId);
     }
     
     @Test
-    void testBumpEntitlementVersion_CreatesNewVersion() {
-        // Given
+    void testSyncEntitlements_UnmarkedRowsOfPlanKeys_MarkedWithoutBump() {
+        // Given: rows synced before plan rows were marked
         when(tenantRepository.findById(testTenantId)).thenReturn(Optional.of(testTenant));
-        when(entitlementVersionRepository.findByTenant(testTenant))
-                .thenReturn(Optional.empty());
+        when(subscriptionRepository.findByTenantIdAndStatus(testTenantId, Subscription.SubscriptionStatus.ACTIVE))
+                .thenReturn(Optional.of(testSubscription));
+        List<Entitlement> rows = businessPlanRows(false);
+        when(entitlementRepository.findByTenant(testTenant)).thenReturn(rows);
         
-        EntitlementVersion newVersion = EntitlementVersion.builder()
-                .id(UUID.randomUUID())
+        // When
+        boolean changed = entitlementService.syncEntitlements(testTenantId);
+        
+        // Then
+        assertFalse(changed);
+        verify(entitlementRepository).saveAll(argThat(saved -> ((Collection<?>) saved).size() == rows.size()));
+        assertTrue(rows.stream().allMatch(row ->
+                EntitlementService.PLAN_SOURCE.equals(row.getMetadata().get(EntitlementService.SOURCE_METADATA))));
+        verifyNoInteractions(entitlementVersionRepository, eventPublisher);
+    }
+    
+    private List<Entitlement> businessPlanRows(boolean markedAsPlan) {
+        List<Entitlement> rows = new ArrayList<>();
+        PlanCatalog.getPlan("business").getEntitlements().forEach((key, value) -> {
+            boolean isFlag = "true".equals(value) || "false".equals(value);
+            rows.add(Entitlement.builder()
+                    .tenant(testTenant)
+                    .featureKey(key)
+                    .featureType(isFlag ? Entitlement.FeatureType.BOOLEAN : Entitlement.FeatureType.LIMIT)
+                    .enabled(isFlag ? Boolean.parseBoolean(value) : true)
+                    .limitValue(isFlag ? null : Long.parseLong(value))
+                    .metadata(markedAsPlan
+                            ? Map.of(EntitlementService.SOURCE_METADATA, EntitlementService.PLAN_SOURCE) : null)
+                    .build());
+        });
+        return rows;
+    }
+    
+    @Test
+    void testComputeEntitlementsBulk_UsesOneQueryPerSource() {
+        // Given
+        Tenant otherTenant = Tenant.builder().id(UUID.randomUUID()).name("Other").slug("other").build();
+        Subscription trialing = Subscription.builder()
+                .tenant(otherTenant)
+                .plan(Subscription.SubscriptionPlan.STARTER)
+                .status(Subscription.SubscriptionStatus.TRIALING)
+                .maxSeats(5)
+                .build();
+        Entitlement override = Entitlement.builder()
                 .tenant(testTenant)
-                .version(1L)
+                .featureKey("limits.projects")
+                .featureType(Entitlement.FeatureType.LIMIT)
+                .limitValue(-1L)
                 .build();
-        when(entitlementVersionRepository.save(any(EntitlementVersion.class)))
-                .thenReturn(newVersion);
+        UUID unsubscribed = UUID.randomUUID();
+        List<UUID> tenantIds = List.of(otherTenant.getId(), unsubscribed, testTenantId);
+        
+        when(subscriptionRepository.findByTenantIdInAndStatusIn(eq(tenantIds), any()))
+                .thenReturn(List.of(testSubscription, trialing));
+        when(entitlementRepository.findByTenantIdInAndEnabled(any(), eq(true)))
+                .thenReturn(List.of(override));
+        when(membershipRepository.countByTenantIdInAndStatus(any(), eq(Membership.MembershipStatus.ACTIVE)))
+                .thenReturn(List.of(tenantCount(testTenantId, 7L)));
+        when(entitlementVersionRepository.findVersionsByTenantIdIn(any()))
+                .thenReturn(List.of(tenantVersion(testTenantId, 15L)));
         
         // When
-        entitlementService.bumpEntitlementVersion(testTenantId);
+        List<EntitlementResponse> responses = entitlementService.computeEntitlementsBulk(tenantIds);
         
         // Then
-        verify(entitlementVersionRepository, times(2)).save(any(EntitlementVersion.class));
+        assertEquals(2, responses.size());
+        EntitlementResponse other = responses.get(0);
+        assertEquals(otherTenant.getId(), other.getTenantId());
+        assertEquals("starter", other.getPlanCode());
+        assertEquals("TRIALING", other.getStatus());
+        assertEquals(0L, other.getActiveSeats());
+        assertEquals(1L, other.getEntitlementVersion());
+        
+        EntitlementResponse business = responses.get(1);
+        assertEquals(testTenantId, business.getTenantId());
+        assertEquals(7L, business.getActiveSeats());
+        assertEquals(15L, business.getEntitlementVersion());
+        assertTrue(business.getItems().stream().anyMatch(item ->
+                "limits.projects".equals(item.getKey()) && "unlimited".equals(item.getValue())
+                        && "OVERRIDE".equals(item.getSource())));
+        
+        verify(tenantRepository, never()).findById(any());
+        verify(entitlementVersionRepository, never()).save(any());
     }
     
     @Test
-    void testBumpEntitlementVersion_TenantNotFound() {
-        // Given
-        when(tenantRepository.findById(testTenantId)).thenReturn(Optional.empty());
+    void testComputeEntitlementsBulk_EmptyInputRunsNoQueries() {
+        assertTrue(entitlementService.computeEntitlementsBulk(List.of()).isEmpty());
         
-        // When & Then
-        assertThrows(ResourceNotFoundException.class, () -> {
-            entitlementService.bumpEntitlementVersion(testTenantId);
-        });
+        verifyNoInteractions(subscriptionRepository, entitlementRepository, membershipRepository,
+                entitlementVersionRepository);
+    }
+    
+    private static TenantCount tenantCount(UUID tenantId, long total) {
+        return new TenantCount() {
+            @Override
+            public UUID getTenantId() {
+                return tenantId;
+            }
+            
+            @Override
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+    
+    private static TenantVersion tenantVersion(UUID tenantId, long version) {
+        return new TenantVersion() {
+            @Override
+            public UUID getTenantId() {
+                return tenantId;
+            }
+            
+            @Override
+            public long getVersion() {
+                return version;
+            }
+        };
     }
 }
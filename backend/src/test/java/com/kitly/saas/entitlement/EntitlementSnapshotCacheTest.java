@@ -0,0 +1,101 @@
+package com.kitly.saas.entitlement;
+
+import com.kitly.saas.entitlement.listener.EntitlementsChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntitlementSnapshotCacheTest {
+    
+    @Mock
+    private EntitlementService entitlementService;
+    
+    private final UUID tenantId = UUID.randomUUID();
+    
+    @Test
+    void get_WithinVerifyInterval_ServesSnapshotWithoutQueries() {
+        EntitlementSnapshotCache cache = cache(60000);
+        when(entitlementService.getCurrentVersion(tenantId)).thenReturn(Optional.of(3L));
+        when(entitlementService.computeEntitlements(tenantId)).thenReturn(response(3L));
+        
+        EntitlementResponse first = cache.get(tenantId);
+        EntitlementResponse second = cache.get(tenantId);
+        
+        assertSame(first, second);
+        verify(entitlementService, times(1)).getCurrentVersion(tenantId);
+        verify(entitlementService, times(1)).computeEntitlements(tenantId);
+    }
+    
+    @Test
+    void get_VersionUnchanged_OnlyChecksVersion() {
+        EntitlementSnapshotCache cache = cache(0);
+        when(entitlementService.getCurrentVersion(tenantId)).thenReturn(Optional.of(3L));
+        when(entitlementService.computeEntitlements(tenantId)).thenReturn(response(3L));
+        
+        cache.get(tenantId);
+        cache.get(tenantId);
+        
+        verify(entitlementService, times(2)).getCurrentVersion(tenantId);
+        verify(entitlementService, times(1)).computeEntitlements(tenantId);
+    }
+    
+    @Test
+    void get_VersionBumped_Recomputes() {
+        EntitlementSnapshotCache cache = cache(0);
+        when(entitlementService.getCurrentVersion(tenantId)).thenReturn(Optional.of(3L)).thenReturn(Optional.of(4L));
+        when(entitlementService.computeEntitlements(tenantId)).thenReturn(response(3L)).thenReturn(response(4L));
+        
+        cache.get(tenantId);
+        EntitlementResponse updated = cache.get(tenantId);
+        
+        assertEquals(4L, updated.getEntitlementVersion());
+        verify(entitlementService, times(2)).computeEntitlements(tenantId);
+    }
+    
+    @Test
+    void onEntitlementsChanged_EvictsSnapshot() {
+        EntitlementSnapshotCache cache = cache(60000);
+        when(entitlementService.getCurrentVersion(tenantId)).thenReturn(Optional.of(3L)).thenReturn(Optional.of(4L));
+        when(entitlementService.computeEntitlements(tenantId)).thenReturn(response(3L)).thenReturn(response(4L));
+        
+        cache.get(tenantId);
+        cache.onEntitlementsChanged(new EntitlementsChangedEvent(tenantId, 4L));
+        
+        assertEquals(4L, cache.get(tenantId).getEntitlementVersion());
+    }
+    
+    @Test
+    void getCompiled_SnapshotOlderThanTokenVersion_IsReverifiedWithinInterval() {
+        EntitlementSnapshotCache cache = cache(60000);
+        when(entitlementService.getCurrentVersion(tenantId)).thenReturn(Optional.of(3L)).thenReturn(Optional.of(4L));
+        when(entitlementService.computeEntitlements(tenantId)).thenReturn(response(3L)).thenReturn(response(4L));
+        
+        assertEquals(3L, cache.getCompiled(tenantId, 3L).getVersion());
+        assertEquals(3L, cache.getCompiled(tenantId, 2L).getVersion());
+        assertEquals(4L, cache.getCompiled(tenantId, 4L).getVersion());
+        verify(entitlementService, times(2)).getCurrentVersion(tenantId);
+    }
+    
+    private EntitlementSnapshotCache cache(long verifyIntervalMillis) {
+        return new EntitlementSnapshotCache(entitlementService, new SimpleMeterRegistry(), 100, 3600000, verifyIntervalMillis);
+    }
+    
+    private EntitlementResponse response(long version) {
+        return EntitlementResponse.builder()
+                .tenantId(tenantId)
+                .planCode("starter")
+                .entitlementVersion(version)
+                .items(new ArrayList<>())
+                .build();
+    }
+}
@@ -1,13 +1,22 @@
 package com.kitly.saas.entitlement;
 
+import com.kitly.saas.entity.Subscription;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class PlanCatalogTest {
     
+    @AfterEach
+    void tearDown() {
+        // The catalog is static; don't leak an installed version into other tests
+        PlanCatalog.reset();
+    }
+    
     @Test
     void testGetPlan_Starter() {
         PlanCatalog.PlanDefinition plan = PlanCatalog.getPlan("starter");
@@ -124,4 +133,44 @@ class PlanCatalogTest {
             entitlements.put("new.feature", "value");
         });
     }
+    
+    @Test
+    void testGetCompiledPlan_ValuesArePreTyped() {
+        CompiledPlan plan = PlanCatalog.getCompiledPlan(Subscription.SubscriptionPlan.ENTERPRISE);
+        
+        assertEquals("enterprise", plan.getCode());
+        int projects = plan.indexOf(EntitlementKeys.intern("limits.projects"));
+        assertEquals(EntitlementValue.UNLIMITED, plan.getValue(projects).getLimit());
+        assertEquals("unlimited", plan.getValue(projects).asString());
+        int ai = plan.indexOf(EntitlementKeys.intern("features.ai_assistant"));
+        assertSame(EntitlementValue.TRUE, plan.getValue(ai));
+        assertEquals(-1, plan.indexOf(EntitlementKeys.intern("features.not_in_plan")));
+    }
+    
+    @Test
+    void testGetCompiledPlan_FreeUsesStarter() {
+        assertSame(PlanCatalog.getCompiledPlan(Subscription.SubscriptionPlan.STARTER),
+                PlanCatalog.getCompiledPlan(Subscription.SubscriptionPlan.FREE));
+    }
+    
+    @Test
+    void testEntitlementValue_Parse() {
+        assertEquals(EntitlementValue.Kind.LIMIT, EntitlementValue.parse("100").getKind());
+        assertEquals(100L, EntitlementValue.parse("100").getLimit());
+        assertSame(EntitlementValue.FALSE, EntitlementValue.parse("FALSE"));
+        assertEquals(EntitlementValue.Kind.TEXT, EntitlementValue.parse("gold").getKind());
+        assertEquals("gold", EntitlementValue.parse("gold").asString());
+    }
+    
+    @Test
+    void testInstall_ReplacesCatalogOnlyWithNewerVersion() {
+        long version = PlanCatalog.getVersion();
+        List<PlanCatalog.PlanDefinition> plans = List.copyOf(PlanCatalog.getAllPlans().values());
+        
+        assertTrue(PlanCatalog.install(plans, version + 1));
+        assertEquals(version + 1, PlanCatalog.getVersion());
+        assertFalse(PlanCatalog.install(plans, version));
+        assertEquals(version + 1, PlanCatalog.getVersion());
+        assertNotNull(PlanCatalog.getCompiledPlan(Subscription.SubscriptionPlan.BUSINESS));
+    }
 }
@@ -0,0 +1,132 @@
+package com.kitly.saas.entitlement.catalog;
+
+import com.kitly.saas.common.exception.ResourceNotFoundException;
+import com.kitly.saas.entitlement.EntitlementService;
+import com.kitly.saas.entity.PlanResyncJob;
+import com.kitly.saas.entity.PlanResyncJob.ResyncStatus;
+import com.kitly.saas.repository.PlanResyncJobRepository;
+import com.kitly.saas.repository.SubscriptionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlanResyncServiceTest {
+
+    @Mock
+    private PlanResyncJobRepository planResyncJobRepository;
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private EntitlementService entitlementService;
+
+    @Mock
+    private PlanCatalogLoader planCatalogLoader;
+
+    private PlanResyncService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PlanResyncService(planResyncJobRepository, subscriptionRepository, entitlementService,
+                planCatalogLoader, 2, 2, 0, 60000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void run_ResumesAfterCursorAndCompletes() throws Exception {
+        UUID cursor = UUID.randomUUID();
+        PlanResyncJob job = job(cursor);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        when(subscriptionRepository.findTenantIdsByPlanAfter(any(), any(), eq(cursor), any()))
+                .thenReturn(List.of(a, b, c));
+        when(subscriptionRepository.findTenantIdsByPlanAfter(any(), any(), eq(c), any()))
+                .thenReturn(List.of());
+        when(entitlementService.syncEntitlements(a)).thenReturn(true);
+        when(entitlementService.syncEntitlements(b)).thenReturn(false);
+        when(entitlementService.syncEntitlements(c)).thenThrow(new ResourceNotFoundException("No active subscription found"));
+        when(planResyncJobRepository.recordProgress(eq(job.getId()), anyString(), eq(c), eq(3L), eq(1L), eq(0L),
+                any(), eq(ResyncStatus.RUNNING))).thenReturn(1);
+
+        service.run(job);
+
+        // Resumed job keeps its total instead of recounting
+        verify(subscriptionRepository, never()).countTenantsByPlan(any(), any());
+        verify(planResyncJobRepository).complete(eq(job.getId()), anyString(), any(),
+                eq(ResyncStatus.RUNNING), eq(ResyncStatus.COMPLETED));
+    }
+
+    @Test
+    void run_SupersededJob_StopsAfterCurrentPage() throws Exception {
+        PlanResyncJob job = job(null);
+        UUID a = UUID.randomUUID();
+        when(subscriptionRepository.countTenantsByPlan(any(), any())).thenReturn(1L);
+        when(subscriptionRepository.findTenantIdsByPlanAfter(any(), any(), eq(PlanResyncService.FIRST), any()))
+                .thenReturn(List.of(a));
+        when(planResyncJobRepository.recordProgress(any(), anyString(), any(), anyLong(), anyLong(), anyLong(),
+                any(), any())).thenReturn(0);
+
+        service.run(job);
+
+        verify(planResyncJobRepository).updateTotal(job.getId(), 1L);
+        verify(subscriptionRepository, times(1)).findTenantIdsByPlanAfter(any(), any(), any(), any());
+        verify(planResyncJobRepository, never()).complete(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void pollPendingJobs_RunsOnRunnerThreadAndSkipsWhileBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        when(planResyncJobRepository.findByStatusInOrderByCreatedAtAsc(any())).thenAnswer(invocation -> {
+            threadName.set(Thread.currentThread().getName());
+            started.countDown();
+            release.await(1, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        service.pollPendingJobs();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals("plan-resync-runner", threadName.get());
+        // The scheduler thread returns at once, and does not queue a second run behind a busy one
+        service.pollPendingJobs();
+        release.countDown();
+
+        verify(planResyncJobRepository, timeout(1000).times(1)).findByStatusInOrderByCreatedAtAsc(any());
+        Thread.sleep(50);
+        verify(planResyncJobRepository, times(1)).findByStatusInOrderByCreatedAtAsc(any());
+    }
+
+    private PlanResyncJob job(UUID lastTenantId) {
+        return PlanResyncJob.builder()
+                .id(UUID.randomUUID())
+                .planCode("business")
+                .planVersion(0L)
+                .status(ResyncStatus.RUNNING)
+                .totalTenants(lastTenantId != null ? 10 : 0)
+                .processedTenants(lastTenantId != null ? 7 : 0)
+                .lastTenantId(lastTenantId)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.kitly.saas.entitlement.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kitly.saas.common.exception.BadRequestException;
+import com.kitly.saas.entitlement.EntitlementResponse;
+import com.kitly.saas.entitlement.EntitlementService;
+import com.kitly.saas.entitlement.catalog.PlanCatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntitlementAdminControllerTest {
+
+    @Mock
+    private EntitlementService entitlementService;
+
+    @Mock
+    private PlanCatalogService planCatalogService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private EntitlementAdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new EntitlementAdminController(entitlementService, planCatalogService, objectMapper, 2, 3);
+    }
+
+    @Test
+    void bulkEntitlements_StreamsOneLinePerTenantInBatches() throws Exception {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        when(entitlementService.computeEntitlementsBulk(List.of(a, b))).thenReturn(List.of(response(a), response(b)));
+        when(entitlementService.computeEntitlementsBulk(List.of(c))).thenReturn(List.of(response(c)));
+
+        ResponseEntity<StreamingResponseBody> response = controller.bulkEntitlements(List.of(a, b, a, c));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(EntitlementAdminController.NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(c, objectMapper.readValue(lines[2], EntitlementResponse.class).getTenantId());
+        verify(entitlementService, times(2)).computeEntitlementsBulk(any());
+    }
+
+    @Test
+    void bulkEntitlements_TooManyTenants_IsRejected() {
+        List<UUID> tenantIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        assertThrows(BadRequestException.class, () -> controller.bulkEntitlements(tenantIds));
+        verifyNoInteractions(entitlementService);
+    }
+
+    private EntitlementResponse response(UUID tenantId) {
+        return EntitlementResponse.builder()
+                .tenantId(tenantId)
+                .planCode("starter")
+                .entitlementVersion(1L)
+                .items(List.of())
+                .build();
+    }
+}
@@ -1,8 +1,13 @@
 package com.kitly.saas.entitlement.controller;
 
 import com.kitly.saas.common.context.TenantContextHolder;
+import com.kitly.saas.common.exception.ResourceNotFoundException;
+import com.kitly.saas.common.util.ETags;
+import com.kitly.saas.entitlement.CompiledEntitlements;
+import com.kitly.saas.entitlement.EntitlementClaimCodec;
+import com.kitly.saas.entitlement.EntitlementCheckResponse;
 import com.kitly.saas.entitlement.EntitlementResponse;
-import com.kitly.saas.entitlement.EntitlementService;
+import com.kitly.saas.entitlement.EntitlementSnapshotCache;
 import com.kitly.saas.entitlement.PlanCatalog;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,7 +27,10 @@ import static org.mockito.Mockito.*;
 class EntitlementControllerTest {
     
     @Mock
-    private EntitlementService entitlementService;
+    private EntitlementSnapshotCache entitlementSnapshotCache;
+    
+    @Mock
+    private EntitlementClaimCodec entitlementClaimCodec;
     
     @InjectMocks
     private EntitlementController entitlementController;
@@ -43,7 +51,7 @@ class EntitlementControllerTest {
     void testGetPlanCatalog() {
         // When
         ResponseEntity<Map<String, PlanCatalog.PlanDefinition>> response = 
-                entitlementController.getPlanCatalog();
+                entitlementController.getPlanCatalog(null);
         
         // Then
         assertNotNull(response);
@@ -70,12 +78,13 @@ class EntitlementControllerTest {
                 .items(new ArrayList<>())
                 .build();
         
-        when(entitlementService.computeEntitlements(testTenantId))
+        when(entitlementSnapshotCache.currentVersion(testTenantId)).thenReturn(Optional.of(5L));
+        when(entitlementSnapshotCache.get(testTenantId, Optional.of(5L)))
                 .thenReturn(mockResponse);
         
         // When
         ResponseEntity<EntitlementResponse> response = 
-                entitlementController.getTenantEntitlements(testTenantId);
+                entitlementController.getTenantEntitlements(testTenantId, null);
         
         // Then
         assertNotNull(response);
@@ -90,7 +99,7 @@ class EntitlementControllerTest {
         assertEquals(7L, body.getActiveSeats());
         assertEquals(15L, body.getEntitlementVersion());
         
-        verify(entitlementService, times(1)).computeEntitlements(testTenantId);
+        verify(entitlementSnapshotCache, times(1)).get(testTenantId, Optional.of(5L));
     }
     
     @Test
@@ -108,12 +117,13 @@ class EntitlementControllerTest {
                 .items(new ArrayList<>())
                 .build();
         
-        when(entitlementService.computeEntitlements(testTenantId))
+        when(entitlementSnapshotCache.currentVersion(testTenantId)).thenReturn(Optional.of(5L));
+        when(entitlementSnapshotCache.get(testTenantId, Optional.of(5L)))
                 .thenReturn(mockResponse);
         
         // When
         ResponseEntity<EntitlementResponse> response = 
-                entitlementController.getMyEntitlements();
+                entitlementController.getMyEntitlements(null);
         
         // Then
         assertNotNull(response);
@@ -124,7 +134,7 @@ class EntitlementControllerTest {
         assertEquals(testTenantId, body.getTenantId());
         assertEquals("starter", body.getPlanCode());
         
-        verify(entitlementService, times(1)).computeEntitlements(testTenantId);
+        verify(entitlementSnapshotCache, times(1)).get(testTenantId, Optional.of(5L));
     }
     
     @Test
@@ -133,13 +143,65 @@ class EntitlementControllerTest {
         
         // When
         ResponseEntity<EntitlementResponse> response = 
-                entitlementController.getMyEntitlements();
+                entitlementController.getMyEntitlements(null);
         
         // Then
         assertNotNull(response);
         assertEquals(400, response.getStatusCode().value());
         assertNull(response.getBody());
         
-        verify(entitlementService, never()).computeEntitlements(any());
+        verify(entitlementSnapshotCache, never()).get(any(), any());
+    }
+    
+    @Test
+    void testGetMyEntitlements_MatchingETag_ReturnsNotModifiedWithoutComputing() {
+        TenantContextHolder.setTenantId(testTenantId);
+        when(entitlementSnapshotCache.currentVersion(testTenantId)).thenReturn(Optional.of(5L));
+        String etag = ETags.of("entitlements", testTenantId, 5L);
+        
+        ResponseEntity<EntitlementResponse> response = entitlementController.getMyEntitlements(etag);
+        
+        assertEquals(304, response.getStatusCode().value());
+        assertEquals(etag, response.getHeaders().getETag());
+        verify(entitlementSnapshotCache, never()).get(any(), any());
+    }
+    
+    @Test
+    void testGetPlanCatalog_MatchingETag_ReturnsNotModified() {
+        String etag = entitlementController.getPlanCatalog(null).getHeaders().getETag();
+        
+        ResponseEntity<Map<String, PlanCatalog.PlanDefinition>> response = entitlementController.getPlanCatalog(etag);
+        
+        assertEquals(304, response.getStatusCode().value());
+        assertNull(response.getBody());
+    }
+    
+    @Test
+    void testCheckMyEntitlements_ReturnsTypedValues() {
+        TenantContextHolder.setTenantId(testTenantId);
+        when(entitlementSnapshotCache.getCompiled(testTenantId)).thenReturn(CompiledEntitlements.compile(5L, List.of(
+                EntitlementResponse.EntitlementItem.builder().key("features.ai_assistant").value("true").build(),
+                EntitlementResponse.EntitlementItem.builder().key("limits.projects").value("unlimited").build())));
+        
+        ResponseEntity<EntitlementCheckResponse> response = entitlementController.checkMyEntitlements(
+                List.of("features.ai_assistant", "limits.projects", "features.unknown"));
+        
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(5L, response.getBody().getEntitlementVersion());
+        assertEquals(true, response.getBody().getValues().get("features.ai_assistant"));
+        assertEquals(-1L, response.getBody().getValues().get("limits.projects"));
+        assertTrue(response.getBody().getValues().containsKey("features.unknown"));
+        assertNull(response.getBody().getValues().get("features.unknown"));
+    }
+    
+    @Test
+    void testGetEntitlementKeyTable_UnknownCatalogVersion_NotFound() {
+        EntitlementClaimCodec.KeyTable table = new EntitlementClaimCodec.KeyTable(3L,
+                List.of("features.ai_assistant"), List.of("limits.projects"));
+        when(entitlementClaimCodec.getKeyTable(3L)).thenReturn(Optional.of(table));
+        when(entitlementClaimCodec.getKeyTable(2L)).thenReturn(Optional.empty());
+        
+        assertSame(table, entitlementController.getEntitlementKeyTable(3L).getBody());
+        assertThrows(ResourceNotFoundException.class, () -> entitlementController.getEntitlementKeyTable(2L));
     }
 }
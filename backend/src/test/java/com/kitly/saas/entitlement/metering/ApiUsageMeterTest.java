@@ -0,0 +1,135 @@
+package com.kitly.saas.entitlement.metering;
+
+import com.kitly.saas.common.exception.NoActiveSubscriptionException;
+import com.kitly.saas.entitlement.CompiledEntitlements;
+import com.kitly.saas.entitlement.EntitlementResponse;
+import com.kitly.saas.entitlement.EntitlementSnapshotCache;
+import com.kitly.saas.entitlement.listener.EntitlementsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApiUsageMeterTest {
+
+    private static final YearMonth PERIOD = YearMonth.of(2026, 10);
+
+    @Mock
+    private ApiUsageService apiUsageService;
+
+    @Mock
+    private EntitlementSnapshotCache entitlementSnapshotCache;
+
+    private final UUID tenantId = UUID.randomUUID();
+
+    private ApiUsageMeter meter;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2026-10-16T12:00:00Z"), ZoneOffset.UTC);
+        meter = new ApiUsageMeter(apiUsageService, entitlementSnapshotCache, 60000, 2, clock);
+    }
+
+    @Test
+    void tryAcquire_RejectsOnceQuotaIsUsedWithoutFurtherLookups() {
+        when(apiUsageService.getCallCount(tenantId, PERIOD)).thenReturn(8L);
+        when(entitlementSnapshotCache.getCompiled(tenantId)).thenReturn(quota("10"));
+
+        assertTrue(meter.tryAcquire(tenantId));
+        assertTrue(meter.tryAcquire(tenantId));
+        assertFalse(meter.tryAcquire(tenantId));
+
+        assertEquals(10L, meter.getUsage(tenantId));
+        verify(apiUsageService, times(1)).getCallCount(tenantId, PERIOD);
+        verify(entitlementSnapshotCache, times(1)).getCompiled(tenantId);
+    }
+
+    @Test
+    void tryAcquire_UnlimitedPlan_IsNeverRejected() {
+        when(apiUsageService.getCallCount(tenantId, PERIOD)).thenReturn(1_000_000L);
+        when(entitlementSnapshotCache.getCompiled(tenantId)).thenReturn(quota("unlimited"));
+
+        assertTrue(meter.tryAcquire(tenantId));
+    }
+
+    @Test
+    void tryAcquire_PastDueTenant_IsRejectedAndLookupIsCached() {
+        // A past-due tenant has no ACTIVE or TRIALING subscription to compute entitlements from
+        when(apiUsageService.getCallCount(tenantId, PERIOD)).thenReturn(5L);
+        when(entitlementSnapshotCache.getCompiled(tenantId)).thenThrow(new NoActiveSubscriptionException(tenantId));
+
+        assertFalse(meter.tryAcquire(tenantId));
+        assertFalse(meter.tryAcquire(tenantId));
+
+        assertEquals(5L, meter.getUsage(tenantId));
+        verify(entitlementSnapshotCache, times(1)).getCompiled(tenantId);
+    }
+
+    @Test
+    void flush_WritesDeltaOnceAndAdoptsTotalAcrossNodes() {
+        when(apiUsageService.getCallCount(tenantId, PERIOD)).thenReturn(0L);
+        when(entitlementSnapshotCache.getCompiled(tenantId)).thenReturn(quota("10"));
+        meter.tryAcquire(tenantId);
+        meter.tryAcquire(tenantId);
+        // Another node counted 7 calls in the meantime
+        when(apiUsageService.addCalls(PERIOD, Map.of(tenantId, 2L))).thenReturn(Map.of(tenantId, 9L));
+
+        meter.flush();
+        meter.flush();
+
+        verify(apiUsageService, times(1)).addCalls(any(), any());
+        assertEquals(9L, meter.getUsage(tenantId));
+        assertTrue(meter.tryAcquire(tenantId));
+        assertFalse(meter.tryAcquire(tenantId));
+    }
+
+    @Test
+    void flush_Failure_KeepsDeltaForNextFlush() {
+        when(apiUsageService.getCallCount(tenantId, PERIOD)).thenReturn(0L);
+        when(entitlementSnapshotCache.getCompiled(tenantId)).thenReturn(quota("10"));
+        meter.tryAcquire(tenantId);
+        when(apiUsageService.addCalls(PERIOD, Map.of(tenantId, 1L)))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(Map.of(tenantId, 1L));
+
+        meter.flush();
+        meter.flush();
+
+        verify(apiUsageService, times(2)).addCalls(PERIOD, Map.of(tenantId, 1L));
+    }
+
+    @Test
+    void entitlementsChanged_ReloadsLimitWithNextFlush() {
+        when(apiUsageService.getCallCount(tenantId, PERIOD)).thenReturn(5L);
+        when(entitlementSnapshotCache.getCompiled(tenantId)).thenReturn(quota("5"), quota("100"));
+        when(apiUsageService.getCallCounts(List.of(tenantId), PERIOD)).thenReturn(Map.of(tenantId, 5L));
+        assertFalse(meter.tryAcquire(tenantId));
+
+        meter.onEntitlementsChanged(new EntitlementsChangedEvent(tenantId, 2L));
+        meter.flush();
+
+        assertTrue(meter.tryAcquire(tenantId));
+    }
+
+    private CompiledEntitlements quota(String value) {
+        return CompiledEntitlements.compile(1L, List.of(EntitlementResponse.EntitlementItem.builder()
+                .key(ApiUsageMeter.QUOTA_KEY)
+                .value(value)
+                .source("PLAN")
+                .build()));
+    }
+}
@@ -0,0 +1,241 @@
+package com.kitly.saas.entitlement.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kitly.saas.common.exception.ServiceOverloadedException;
+import com.kitly.saas.entitlement.listener.EntitlementsChangedEvent;
+import com.kitly.saas.entitlement.listener.MembershipChangedEvent;
+import com.kitly.saas.repository.EntitlementVersionRepository;
+import com.kitly.saas.repository.TenantVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionEventHubTest {
+
+    @Mock
+    private EntitlementVersionRepository entitlementVersionRepository;
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    private SessionEventHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = hub(Runnable::run, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.destroy();
+    }
+
+    @Test
+    void subscribe_SendsCurrentVersionFirst() {
+        UUID tenantId = UUID.randomUUID();
+        when(entitlementVersionRepository.findVersionByTenantId(tenantId)).thenReturn(Optional.of(4L));
+
+        hub.subscribe(tenantId, "alice");
+
+        assertEquals(List.of("entitlements:4"), emitters.get(0).events);
+        assertEquals(1, hub.getConnectionCount());
+    }
+
+    @Test
+    void entitlementsChanged_FansOutToTenantOnlyAndNeverGoesBack() {
+        UUID tenantId = UUID.randomUUID();
+        UUID otherTenantId = UUID.randomUUID();
+        when(entitlementVersionRepository.findVersionByTenantId(any())).thenReturn(Optional.of(1L));
+        hub.subscribe(tenantId, "alice");
+        hub.subscribe(tenantId, "bob");
+        hub.subscribe(otherTenantId, "carol");
+
+        hub.onEntitlementsChanged(new EntitlementsChangedEvent(tenantId, 3L));
+        hub.onEntitlementsChanged(new EntitlementsChangedEvent(tenantId, 2L));
+
+        assertEquals(List.of("entitlements:1", "entitlements:3"), emitters.get(0).events);
+        assertEquals(List.of("entitlements:1", "entitlements:3"), emitters.get(1).events);
+        assertEquals(List.of("entitlements:1"), emitters.get(2).events);
+    }
+
+    @Test
+    void membershipChanged_NotifiesOnlyThatUserAndClosesInactiveStream() {
+        UUID tenantId = UUID.randomUUID();
+        when(entitlementVersionRepository.findVersionByTenantId(tenantId)).thenReturn(Optional.of(1L));
+        hub.subscribe(tenantId, "alice");
+        hub.subscribe(tenantId, "bob");
+
+        hub.onMembershipChanged(new MembershipChangedEvent(tenantId, "bob", "MEMBER", "SUSPENDED"));
+
+        assertEquals(List.of("entitlements:1"), emitters.get(0).events);
+        assertEquals(List.of("entitlements:1", "membership:SUSPENDED"), emitters.get(1).events);
+        assertEquals(1, hub.getConnectionCount());
+
+        hub.onEntitlementsChanged(new EntitlementsChangedEvent(tenantId, 2L));
+        assertEquals(2, emitters.get(1).events.size());
+    }
+
+    @Test
+    void subscribe_OverLimit_IsRejected() {
+        when(entitlementVersionRepository.findVersionByTenantId(any())).thenReturn(Optional.empty());
+        for (int i = 0; i < 3; i++) {
+            hub.subscribe(UUID.randomUUID(), "user" + i);
+        }
+
+        assertThrows(ServiceOverloadedException.class, () -> hub.subscribe(UUID.randomUUID(), "late"));
+        assertEquals(3, hub.getConnectionCount());
+    }
+
+    @Test
+    void heartbeat_DeliversVersionsBumpedElsewhere() {
+        UUID tenantId = UUID.randomUUID();
+        when(entitlementVersionRepository.findVersionByTenantId(tenantId)).thenReturn(Optional.of(1L));
+        TenantVersion remote = mock(TenantVersion.class);
+        when(remote.getTenantId()).thenReturn(tenantId);
+        when(remote.getVersion()).thenReturn(5L);
+        when(entitlementVersionRepository.findVersionsByTenantIdIn(anyCollection())).thenReturn(List.of(remote));
+        hub.subscribe(tenantId, "alice");
+
+        hub.heartbeat();
+
+        assertEquals(List.of("entitlements:1", "entitlements:5", "keepalive"), emitters.get(0).events);
+    }
+
+    @Test
+    void slowClient_DoesNotHoldUpOthersAndIsDroppedWhenTooFarBehind() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        hub = hub(pool, 2);
+        UUID tenantId = UUID.randomUUID();
+        when(entitlementVersionRepository.findVersionByTenantId(tenantId)).thenReturn(Optional.of(1L));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        emitters.add(slow);
+        hub.subscribe(tenantId, "slow");
+        hub.subscribe(tenantId, "fast");
+        RecordingEmitter fast = emitters.get(1);
+
+        // The slow client is stuck writing its first event while the bumps pile up
+        assertTrue(slow.writing.await(1, TimeUnit.SECONDS));
+        for (long version = 2; version <= 5; version++) {
+            hub.publishVersion(tenantId, version);
+            waitFor(fast, "entitlements:" + version);
+        }
+
+        assertEquals(1, hub.getConnectionCount());
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(slow.completed);
+        assertFalse(fast.completed);
+    }
+
+    private SessionEventHub hub(Executor executor, int maxQueuedEvents) {
+        return new SessionEventHub(entitlementVersionRepository, null, new ObjectMapper(), new SimpleMeterRegistry(),
+                60000, 5000, 3, maxQueuedEvents, 10000, executor) {
+            @Override
+            Optional<Long> findCurrentVersion(UUID tenantId) {
+                return entitlementVersionRepository.findVersionByTenantId(tenantId);
+            }
+
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                synchronized (emitters) {
+                    // A test may have queued a prepared emitter for the next subscriber
+                    RecordingEmitter prepared = emitters.stream()
+                            .filter(emitter -> !emitter.used).findFirst().orElse(null);
+                    if (prepared != null) {
+                        prepared.used = true;
+                        return prepared;
+                    }
+                    RecordingEmitter emitter = new RecordingEmitter();
+                    emitter.used = true;
+                    emitters.add(emitter);
+                    return emitter;
+                }
+            }
+        };
+    }
+
+    private static void waitFor(RecordingEmitter emitter, String event) {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!emitter.events.contains(event) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(emitter.events.contains(event), "Expected " + event + " in " + emitter.events);
+    }
+
+    /**
+     * Records event names with the version or status from their payload instead of writing them
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release;
+        private volatile boolean completed;
+        private boolean used;
+
+        RecordingEmitter() {
+            this(null);
+        }
+
+        /**
+         * @param release If set, the first send blocks until it is counted down
+         */
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            writing.countDown();
+            if (release != null) {
+                try {
+                    release.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String raw = builder.build().stream()
+                    .map(part -> String.valueOf(part.getData()))
+                    .collect(Collectors.joining());
+            if (raw.startsWith(":")) {
+                events.add("keepalive");
+                return;
+            }
+            String name = raw.replaceAll("(?s).*event:([a-z]+)\n.*", "$1");
+            String value = raw.contains("\"status\"")
+                    ? raw.replaceAll("(?s).*\"status\":\"([A-Z]+)\".*", "$1")
+                    : raw.replaceAll("(?s).*\"entitlementVersion\":(\\d+).*", "$1");
+            events.add(name + ":" + value);
+        }
+    }
+}
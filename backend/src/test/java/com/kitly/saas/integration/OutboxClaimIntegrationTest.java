@@ -0,0 +1,166 @@
+package com.kitly.saas.integration;
+
+import com.kitly.saas.common.outbox.OutboxService;
+import com.kitly.saas.entity.OutboxEvent;
+import com.kitly.saas.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for claiming outbox events from several nodes.
+ * Runs without the base class transaction, as claims must commit to be seen by other nodes.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OutboxClaimIntegrationTest extends BaseIntegrationTest {
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        for (int i = 0; i < 10; i++) {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .eventType("TestEvent")
+                    .aggregateType("Test")
+                    .aggregateId(UUID.randomUUID())
+                    .payload(Map.of("index", i))
+                    .build());
+        }
+    }
+    
+    @Test
+    void concurrentClaims_SkipLockedRowsAndNeverOverlap() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        
+        // Node A claims and keeps its transaction open until node B has claimed too
+        CompletableFuture<List<OutboxEvent>> nodeA = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    List<OutboxEvent> claimed = claim("node-a", now, now.plusMinutes(1), 4);
+                    firstClaimed.countDown();
+                    await(secondDone);
+                    return claimed;
+                }));
+        await(firstClaimed);
+        List<OutboxEvent> nodeB = claim("node-b", now, now.plusMinutes(1), 4);
+        secondDone.countDown();
+        
+        List<UUID> idsA = nodeA.get(10, TimeUnit.SECONDS).stream().map(OutboxEvent::getId).toList();
+        List<UUID> idsB = nodeB.stream().map(OutboxEvent::getId).toList();
+        assertThat(idsA).hasSize(4);
+        assertThat(idsB).hasSize(4).doesNotContainAnyElementsOf(idsA);
+        assertThat(outboxEventRepository.findByStatus(OutboxEvent.OutboxStatus.PENDING)).hasSize(2);
+    }
+    
+    @Test
+    void expiredLease_ReturnsEventToPendingAndBlocksLateCompletion() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> claimed = claim("node-a", now.minusMinutes(2), now.minusMinutes(1), 1);
+        UUID id = claimed.get(0).getId();
+        
+        assertThat(outboxEventRepository.releaseExpiredLeases(now)).isEqualTo(1);
+        List<OutboxEvent> reclaimed = claim("node-b", now, now.plusMinutes(1), 10);
+        
+        assertThat(reclaimed).extracting(OutboxEvent::getId).contains(id);
+        assertThat(outboxEventRepository.markProcessed(List.of(id), "node-a", now)).isZero();
+        assertThat(outboxEventRepository.markProcessed(List.of(id), "node-b", now)).isEqualTo(1);
+    }
+    
+    @Test
+    void laterEventsOfAnAggregate_WaitForEarlierEventClaimedElsewhere() {
+        LocalDateTime now = LocalDateTime.now();
+        UUID aggregateId = UUID.randomUUID();
+        outboxEventRepository.deleteAll();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(outboxEventRepository.save(OutboxEvent.builder()
+                    .eventType("TestEvent")
+                    .aggregateType("Test")
+                    .aggregateId(aggregateId)
+                    .payload(Map.of("index", i))
+                    .build()).getId());
+        }
+        
+        List<OutboxEvent> nodeA = claim("node-a", now, now.plusMinutes(1), 1);
+        List<OutboxEvent> nodeB = claim("node-b", now, now.plusMinutes(1), 10);
+        assertThat(nodeA).extracting(OutboxEvent::getId).containsExactly(ids.get(0));
+        assertThat(nodeB).isEmpty();
+        
+        // The owner of the earlier event may claim the later ones, its lane keeps them in order
+        List<OutboxEvent> nodeAAgain = claim("node-a", now, now.plusMinutes(1), 10);
+        assertThat(nodeAAgain).extracting(OutboxEvent::getId).containsExactly(ids.get(1), ids.get(2));
+    }
+    
+    @Test
+    void concurrentClaims_DoNotOvertakeEarlierEventOfAggregate() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        UUID aggregateId = UUID.randomUUID();
+        outboxEventRepository.deleteAll();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ids.add(outboxEventRepository.save(OutboxEvent.builder()
+                    .eventType("TestEvent")
+                    .aggregateType("Test")
+                    .aggregateId(aggregateId)
+                    .payload(Map.of("index", i))
+                    .build()).getId());
+        }
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        
+        // Node A holds the aggregate while its claim of the first event is not yet committed
+        CompletableFuture<List<OutboxEvent>> nodeA = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    List<OutboxEvent> claimed = claim("node-a", now, now.plusMinutes(1), 1);
+                    firstClaimed.countDown();
+                    await(secondDone);
+                    return claimed;
+                }));
+        await(firstClaimed);
+        List<OutboxEvent> nodeB = claim("node-b", now, now.plusMinutes(1), 10);
+        secondDone.countDown();
+        
+        assertThat(nodeA.get(10, TimeUnit.SECONDS)).extracting(OutboxEvent::getId).containsExactly(ids.get(0));
+        assertThat(nodeB).isEmpty();
+    }
+    
+    /**
+     * Claim the way OutboxService does: lock the aggregates, then claim from them in the same transaction.
+     */
+    private List<OutboxEvent> claim(String owner, LocalDateTime now, LocalDateTime lockedUntil, int limit) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<UUID> aggregateIds = outboxEventRepository.lockPendingAggregates(1, limit * 4, limit);
+            return aggregateIds.isEmpty() ? List.of() : outboxEventRepository.claimPending(
+                    owner, now, lockedUntil, OutboxService.MAX_RETRIES, aggregateIds, limit);
+        });
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
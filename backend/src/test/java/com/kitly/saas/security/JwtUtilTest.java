@@ -0,0 +1,147 @@
+package com.kitly.saas.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String OLD_SECRET = "old-secret-key-for-jwt-token-signing-please-change-in-production-0";
+    private static final String NEW_SECRET = "new-secret-key-for-jwt-token-signing-please-change-in-production-1";
+    private static final String SESSION_SECRET = "session-secret-key-for-jwt-token-signing-please-change-in-production";
+
+    @Test
+    void generateTenantToken_IsTaggedWithActiveKeyIdAndVerifies() {
+        JwtUtil jwtUtil = jwtUtil(new JwtKeyRing(OLD_SECRET, "k1", SESSION_SECRET, "session", ""));
+        UUID tenantId = UUID.randomUUID();
+
+        String token = jwtUtil.generateTenantToken("alice", tenantId, List.of("OWNER"), 3L);
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        assertTrue(header(token).contains("\"kid\":\"k1\""));
+        assertEquals("alice", verified.getSubject());
+        assertEquals(tenantId, verified.getTenantId());
+        assertEquals(List.of("OWNER"), verified.getRoles());
+        assertEquals(3L, verified.getEntitlementVersion());
+        assertNotNull(verified.getId());
+        assertNotNull(verified.getIssuedAt());
+        assertFalse(verified.isExpired());
+    }
+
+    @Test
+    void verify_TokenSignedWithRotatedOutKey_StillVerifies() {
+        JwtUtil before = jwtUtil(new JwtKeyRing(OLD_SECRET, "k1", SESSION_SECRET, "session", ""));
+        JwtUtil after = jwtUtil(new JwtKeyRing(NEW_SECRET, "k2", SESSION_SECRET, "session", "k1=" + OLD_SECRET));
+
+        String oldToken = before.generateTenantToken("alice", UUID.randomUUID(), List.of("MEMBER"), 1L);
+        String newToken = after.generateTenantToken("alice", UUID.randomUUID(), List.of("MEMBER"), 1L);
+
+        assertEquals("alice", after.verify(oldToken).getSubject());
+        assertEquals("alice", after.verify(newToken).getSubject());
+        assertTrue(header(newToken).contains("\"kid\":\"k2\""));
+    }
+
+    @Test
+    void verify_UnknownKeyId_IsRejected() {
+        JwtUtil issuer = jwtUtil(new JwtKeyRing(OLD_SECRET, "k1", SESSION_SECRET, "session", ""));
+        JwtUtil verifier = jwtUtil(new JwtKeyRing(NEW_SECRET, "k2", SESSION_SECRET, "session", ""));
+
+        String token = issuer.generateTenantToken("alice", UUID.randomUUID(), List.of("MEMBER"), 1L);
+
+        assertThrows(JwtException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void verify_LegacyTokenWithoutKeyId_UsesMainSecret() {
+        JwtKeyRing keyRing = new JwtKeyRing(OLD_SECRET, "k1", SESSION_SECRET, "session", "");
+        String legacyToken = Jwts.builder()
+                .subject("alice")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(keyRing.getActiveKey(), Jwts.SIG.HS512)
+                .compact();
+
+        assertEquals("alice", jwtUtil(keyRing).verify(legacyToken).getSubject());
+    }
+
+    @Test
+    void keyRing_InvalidPreviousKeyEntry_FailsAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> new JwtKeyRing(OLD_SECRET, "k1", SESSION_SECRET, "session", "missing-separator"));
+    }
+
+    @Test
+    void keyRing_DuplicatePreviousKeyId_FailsAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> new JwtKeyRing(NEW_SECRET, "k2", SESSION_SECRET, "session", "k1=" + OLD_SECRET + ",k1=" + NEW_SECRET));
+        assertThrows(IllegalStateException.class,
+                () -> new JwtKeyRing(NEW_SECRET, "k2", SESSION_SECRET, "session", "k2=" + OLD_SECRET));
+    }
+
+    @Test
+    void generateTenantToken_Rs256_VerifiesLocallyWithPublishedKey() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        SessionSigningKeys sessionKeys = new SessionSigningKeys(SessionSigningKeys.Algorithm.RS256, "rsa-1",
+                base64(keyPair.getPrivate().getEncoded()), base64(keyPair.getPublic().getEncoded()), "");
+        JwtUtil jwtUtil = jwtUtil(new JwtKeyRing(OLD_SECRET, "k1", SESSION_SECRET, "session", "", sessionKeys));
+
+        String token = jwtUtil.generateTenantToken("alice", UUID.randomUUID(), List.of("OWNER"), 1L);
+
+        assertTrue(header(token).contains("\"alg\":\"RS256\""));
+        assertTrue(header(token).contains("\"kid\":\"rsa-1\""));
+        assertEquals("alice", jwtUtil.verify(token).getSubject());
+        // A downstream service only needs the public key
+        assertEquals("alice", Jwts.parser().verifyWith(keyPair.getPublic()).build()
+                .parseSignedClaims(token).getPayload().getSubject());
+        assertTrue(sessionKeys.getJwksJson().contains("\"kid\":\"rsa-1\""));
+        assertTrue(sessionKeys.getJwksJson().contains("\"kty\":\"RSA\""));
+    }
+
+    @Test
+    void generateTenantToken_EdDsa_IsSignedWithSessionKey() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        KeyPair next = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        SessionSigningKeys sessionKeys = new SessionSigningKeys(SessionSigningKeys.Algorithm.EDDSA, "ed-1",
+                base64(keyPair.getPrivate().getEncoded()), base64(keyPair.getPublic().getEncoded()),
+                "ed-2=" + base64(next.getPublic().getEncoded()));
+        JwtUtil jwtUtil = jwtUtil(new JwtKeyRing(OLD_SECRET, "k1", SESSION_SECRET, "session", "", sessionKeys));
+
+        String token = jwtUtil.generateTenantToken("alice", UUID.randomUUID(), List.of("OWNER"), 1L);
+
+        assertTrue(header(token).contains("\"alg\":\"EdDSA\""));
+        assertEquals("alice", jwtUtil.verify(token).getSubject());
+        assertTrue(sessionKeys.getJwksJson().contains("\"kid\":\"ed-1\""));
+        assertTrue(sessionKeys.getJwksJson().contains("\"kid\":\"ed-2\""));
+    }
+
+    @Test
+    void sessionSigningKeys_AsymmetricWithoutKeys_FailsAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> new SessionSigningKeys(SessionSigningKeys.Algorithm.RS256, "rsa-1", "", "", ""));
+    }
+
+    private JwtUtil jwtUtil(JwtKeyRing keyRing) {
+        JwtUtil jwtUtil = new JwtUtil(keyRing);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        ReflectionTestUtils.setField(jwtUtil, "sessionExpiration", 900000L);
+        return jwtUtil;
+    }
+
+    private String header(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+    }
+
+    private String base64(byte[] encoded) {
+        return Base64.getEncoder().encodeToString(encoded);
+    }
+}
@@ -0,0 +1,82 @@
+package com.kitly.saas.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(userDetailsService, meterRegistry, 100, 60000);
+    }
+
+    @Test
+    void get_SecondLookup_IsServedFromCache() {
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(user("alice"));
+
+        UserDetails first = principalCache.get("alice");
+        UserDetails second = principalCache.get("alice");
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getAuthorities()).extracting("authority").containsExactly("USER");
+        verify(userDetailsService, times(1)).loadUserByUsername("alice");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void get_CachedPrincipal_DoesNotHoldPasswordHash() {
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(user("alice"));
+
+        assertThat(principalCache.get("alice").getPassword()).isEmpty();
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(user("alice"));
+
+        principalCache.get("alice");
+        principalCache.invalidate("alice", "alice@example.com");
+        principalCache.get("alice");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("alice");
+    }
+
+    @Test
+    void get_UnknownUser_IsNotCached() {
+        when(userDetailsService.loadUserByUsername("ghost"))
+                .thenThrow(new UsernameNotFoundException("User not found"));
+
+        assertThatThrownBy(() -> principalCache.get("ghost")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> principalCache.get("ghost")).isInstanceOf(UsernameNotFoundException.class);
+
+        verify(userDetailsService, times(2)).loadUserByUsername("ghost");
+    }
+
+    private UserDetails user(String username) {
+        return User.builder()
+                .username(username)
+                .password("$2a$10$hash")
+                .authorities("USER")
+                .build();
+    }
+}
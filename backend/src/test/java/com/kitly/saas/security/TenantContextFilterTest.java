@@ -1,6 +1,7 @@
 package com.kitly.saas.security;
 
 import com.kitly.saas.common.context.TenantContextHolder;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -122,4 +123,26 @@ class TenantContextFilterTest {
         // but we verify the filter completes without leaving state
         verify(filterChain).doFilter(request, response);
     }
+    
+    @Test
+    void testDoFilterInternal_WithVerifiedTokenAttribute_DoesNotParseTokenAgain() throws ServletException, IOException {
+        String token = "valid.jwt.token";
+        UUID tenantId = UUID.randomUUID();
+        VerifiedToken verifiedToken = VerifiedToken.of(token, Jwts.claims()
+                .subject("testuser")
+                .add("tid", tenantId.toString())
+                .build());
+        
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE)).thenReturn(verifiedToken);
+        doAnswer(invocation -> {
+            assertEquals(tenantId, TenantContextHolder.getTenantId());
+            return null;
+        }).when(filterChain).doFilter(request, response);
+        
+        tenantContextFilter.doFilterInternal(request, response, filterChain);
+        
+        verify(filterChain).doFilter(request, response);
+        verify(jwtUtil, never()).extractTenantId(anyString());
+    }
 }
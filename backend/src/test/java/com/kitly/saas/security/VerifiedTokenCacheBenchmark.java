@@ -0,0 +1,78 @@
+package com.kitly.saas.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request authentication work in JwtAuthenticationFilter with and
+ * without the verified-token cache: signature verification, claim decoding and the
+ * authority set construction.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=VerifiedTokenCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerifiedTokenCacheBenchmark {
+
+    private static final String SECRET = "kitly-secret-key-for-jwt-token-signing-please-change-in-production";
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private UserDetails principal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyRing keyRing = new JwtKeyRing(SECRET, "primary", SECRET + "-session", "session", "");
+        jwtUtil = new JwtUtil(keyRing);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        ReflectionTestUtils.setField(jwtUtil, "sessionExpiration", 900000L);
+
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, new SimpleMeterRegistry(), 10000, 900000);
+        principal = User.builder()
+                .username("alice")
+                .password("")
+                .authorities("USER")
+                .build();
+        token = jwtUtil.generateTenantToken("alice", UUID.randomUUID(), List.of("ADMIN"), 7L);
+    }
+
+    @Benchmark
+    public Set<GrantedAuthority> uncached() {
+        VerifiedToken verified = jwtUtil.verify(token);
+        Set<GrantedAuthority> authorities = new HashSet<>(principal.getAuthorities());
+        for (String role : verified.getRoles()) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+        }
+        return authorities;
+    }
+
+    @Benchmark
+    public Set<GrantedAuthority> cached() {
+        return verifiedTokenCache.get(token).authoritiesFor(principal);
+    }
+}
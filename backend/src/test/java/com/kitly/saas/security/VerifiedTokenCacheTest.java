@@ -0,0 +1,98 @@
+package com.kitly.saas.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, new SimpleMeterRegistry(), 100, 900000);
+    }
+
+    @Test
+    void get_SameToken_IsVerifiedOnlyOnce() {
+        when(jwtUtil.verify("token")).thenReturn(verifiedToken("token", List.of("ADMIN")));
+
+        VerifiedTokenCache.Entry first = verifiedTokenCache.get("token");
+        VerifiedTokenCache.Entry second = verifiedTokenCache.get("token");
+
+        assertThat(second).isSameAs(first);
+        verify(jwtUtil, times(1)).verify("token");
+    }
+
+    @Test
+    void get_InvalidToken_IsNotCached() {
+        when(jwtUtil.verify("bad")).thenThrow(new JwtException("Invalid signature"));
+
+        assertThatThrownBy(() -> verifiedTokenCache.get("bad")).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> verifiedTokenCache.get("bad")).isInstanceOf(JwtException.class);
+
+        verify(jwtUtil, times(2)).verify("bad");
+    }
+
+    @Test
+    void authoritiesFor_SamePrincipal_ReusesAuthoritySet() {
+        when(jwtUtil.verify("token")).thenReturn(verifiedToken("token", List.of("ADMIN")));
+        UserDetails principal = principal("USER");
+
+        VerifiedTokenCache.Entry entry = verifiedTokenCache.get("token");
+        Set<GrantedAuthority> first = entry.authoritiesFor(principal);
+        Set<GrantedAuthority> second = entry.authoritiesFor(principal);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void authoritiesFor_ReloadedPrincipal_RecomputesAuthoritySet() {
+        when(jwtUtil.verify("token")).thenReturn(verifiedToken("token", List.of("MEMBER")));
+
+        VerifiedTokenCache.Entry entry = verifiedTokenCache.get("token");
+        entry.authoritiesFor(principal("USER"));
+        Set<GrantedAuthority> reloaded = entry.authoritiesFor(principal("PLATFORM_ADMIN"));
+
+        assertThat(reloaded).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("PLATFORM_ADMIN", "ROLE_MEMBER");
+    }
+
+    private VerifiedToken verifiedToken(String token, List<String> roles) {
+        return VerifiedToken.of(token, Jwts.claims()
+                .subject("alice")
+                .add("roles", roles)
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .build());
+    }
+
+    private UserDetails principal(String authority) {
+        return User.builder()
+                .username("alice")
+                .password("")
+                .authorities(authority)
+                .build();
+    }
+}
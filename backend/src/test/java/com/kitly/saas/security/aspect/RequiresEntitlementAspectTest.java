@@ -0,0 +1,159 @@
+package com.kitly.saas.security.aspect;
+
+import com.kitly.saas.common.context.TenantContextHolder;
+import com.kitly.saas.common.exception.EntitlementRequiredException;
+import com.kitly.saas.common.exception.NoActiveSubscriptionException;
+import com.kitly.saas.common.exception.TenantAccessDeniedException;
+import com.kitly.saas.entitlement.CompiledEntitlements;
+import com.kitly.saas.entitlement.EntitlementResponse;
+import com.kitly.saas.entitlement.EntitlementSnapshotCache;
+import com.kitly.saas.security.annotation.RequiresEntitlement;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RequiresEntitlementAspectTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private DefaultListableBeanFactory beanFactory;
+    private EntitlementSnapshotCache entitlementSnapshotCache;
+    private RequiresEntitlementAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        beanFactory = new DefaultListableBeanFactory();
+        entitlementSnapshotCache = mock(EntitlementSnapshotCache.class);
+        aspect = new RequiresEntitlementAspect(beanFactory, entitlementSnapshotCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContextHolder.clear();
+    }
+
+    @Test
+    void checkEntitlement_EnabledFeature_Passes() throws Exception {
+        TenantContextHolder.setTenantId(tenantId);
+        when(entitlementSnapshotCache.getCompiled(tenantId, 0L)).thenReturn(compiled("app.nim.access", "true"));
+
+        assertDoesNotThrow(() -> aspect.checkEntitlement(joinPoint("nim")));
+    }
+
+    @Test
+    void checkEntitlement_DisabledFeature_IsForbidden() throws Exception {
+        TenantContextHolder.setTenantId(tenantId);
+        when(entitlementSnapshotCache.getCompiled(tenantId, 0L)).thenReturn(compiled("app.nim.access", "false"));
+        JoinPoint joinPoint = joinPoint("nim");
+
+        EntitlementRequiredException ex = assertThrows(EntitlementRequiredException.class,
+                () -> aspect.checkEntitlement(joinPoint));
+        assertEquals("app.nim.access", ex.getEntitlementKey());
+    }
+
+    @Test
+    void checkEntitlement_Limits_RespectMinimumAndUnlimited() throws Exception {
+        TenantContextHolder.setTenantId(tenantId);
+        when(entitlementSnapshotCache.getCompiled(tenantId, 0L)).thenReturn(
+                compiled("limits.projects", "4"), compiled("limits.projects", "5"), compiled("limits.projects", "unlimited"));
+        JoinPoint joinPoint = joinPoint("projects");
+
+        assertThrows(EntitlementRequiredException.class, () -> aspect.checkEntitlement(joinPoint));
+        assertDoesNotThrow(() -> aspect.checkEntitlement(joinPoint));
+        assertDoesNotThrow(() -> aspect.checkEntitlement(joinPoint));
+    }
+
+    @Test
+    void checkEntitlement_UnknownKey_IsForbidden() throws Exception {
+        TenantContextHolder.setTenantId(tenantId);
+        when(entitlementSnapshotCache.getCompiled(tenantId, 0L)).thenReturn(compiled("limits.projects", "4"));
+        JoinPoint joinPoint = joinPoint("nim");
+
+        assertThrows(EntitlementRequiredException.class, () -> aspect.checkEntitlement(joinPoint));
+    }
+
+    @Test
+    void checkEntitlement_NoActiveSubscription_IsForbidden() throws Exception {
+        TenantContextHolder.setTenantId(tenantId);
+        when(entitlementSnapshotCache.getCompiled(tenantId, 0L)).thenThrow(new NoActiveSubscriptionException(tenantId));
+        JoinPoint joinPoint = joinPoint("nim");
+
+        EntitlementRequiredException ex = assertThrows(EntitlementRequiredException.class,
+                () -> aspect.checkEntitlement(joinPoint));
+        assertEquals("app.nim.access", ex.getEntitlementKey());
+    }
+
+    @Test
+    void checkEntitlement_NoTenantContext_IsDenied() throws Exception {
+        JoinPoint joinPoint = joinPoint("nim");
+
+        assertThrows(TenantAccessDeniedException.class, () -> aspect.checkEntitlement(joinPoint));
+        verifyNoInteractions(entitlementSnapshotCache);
+    }
+
+    @Test
+    void afterSingletonsInstantiated_MisconfiguredController_FailsAtStartup() {
+        beanFactory.registerBeanDefinition("broken", new RootBeanDefinition(BrokenController.class));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, aspect::afterSingletonsInstantiated);
+        assertTrue(ex.getMessage().contains("BrokenController.list"));
+    }
+
+    @Test
+    void afterSingletonsInstantiated_ValidController_Starts() {
+        beanFactory.registerBeanDefinition("sample", new RootBeanDefinition(SampleController.class));
+
+        assertDoesNotThrow(aspect::afterSingletonsInstantiated);
+    }
+
+    private JoinPoint joinPoint(String methodName) throws Exception {
+        Method method = SampleController.class.getMethod(methodName);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        JoinPoint joinPoint = mock(JoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        return joinPoint;
+    }
+
+    private CompiledEntitlements compiled(String key, String value) {
+        return CompiledEntitlements.compile(1L, List.of(EntitlementResponse.EntitlementItem.builder()
+                .key(key)
+                .value(value)
+                .source("PLAN")
+                .build()));
+    }
+
+    @RestController
+    static class SampleController {
+
+        @RequiresEntitlement("app.nim.access")
+        public String nim() {
+            return "ok";
+        }
+
+        @RequiresEntitlement(value = "limits.projects", minimum = 5)
+        public String projects() {
+            return "ok";
+        }
+    }
+
+    @RestController
+    static class BrokenController {
+
+        @RequiresEntitlement({})
+        public String list() {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.kitly.saas.security.aspect;
+
+import com.kitly.saas.common.context.TenantContextHolder;
+import com.kitly.saas.common.exception.TenantAccessDeniedException;
+import com.kitly.saas.security.annotation.TenantAccessCheck;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TenantAccessCheckAspectTest {
+
+    private DefaultListableBeanFactory beanFactory;
+    private TenantAccessCheckAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        beanFactory = new DefaultListableBeanFactory();
+        aspect = new TenantAccessCheckAspect(beanFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContextHolder.clear();
+    }
+
+    @Test
+    void checkTenantAccess_MatchingTenant_Passes() throws Exception {
+        UUID tenantId = UUID.randomUUID();
+        TenantContextHolder.setTenantId(tenantId);
+
+        assertDoesNotThrow(() -> aspect.checkTenantAccess(joinPoint("get", "x", tenantId)));
+    }
+
+    @Test
+    void checkTenantAccess_OtherTenant_IsDenied() throws Exception {
+        TenantContextHolder.setTenantId(UUID.randomUUID());
+        JoinPoint joinPoint = joinPoint("get", "x", UUID.randomUUID());
+
+        assertThrows(TenantAccessDeniedException.class, () -> aspect.checkTenantAccess(joinPoint));
+    }
+
+    @Test
+    void resolveTenantIdIndex_FindsNamedPathVariable() throws Exception {
+        assertEquals(1, TenantAccessCheckAspect.resolveTenantIdIndex(method("get")));
+    }
+
+    @Test
+    void afterSingletonsInstantiated_MisconfiguredController_FailsAtStartup() {
+        beanFactory.registerBeanDefinition("broken", new RootBeanDefinition(BrokenController.class));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, aspect::afterSingletonsInstantiated);
+        assertTrue(ex.getMessage().contains("BrokenController.list"));
+    }
+
+    @Test
+    void afterSingletonsInstantiated_ValidController_Starts() {
+        beanFactory.registerBeanDefinition("sample", new RootBeanDefinition(SampleController.class));
+
+        assertDoesNotThrow(aspect::afterSingletonsInstantiated);
+    }
+
+    private JoinPoint joinPoint(String methodName, Object... args) throws Exception {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method(methodName));
+        JoinPoint joinPoint = mock(JoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(args);
+        return joinPoint;
+    }
+
+    private Method method(String name) throws Exception {
+        return SampleController.class.getMethod(name, String.class, UUID.class);
+    }
+
+    @RestController
+    static class SampleController {
+
+        @TenantAccessCheck
+        public String get(@PathVariable("key") String key, @PathVariable("tenantId") UUID tenantId) {
+            return key;
+        }
+    }
+
+    @RestController
+    static class BrokenController {
+
+        @TenantAccessCheck
+        public String list(@PathVariable("id") UUID id) {
+            return id.toString();
+        }
+    }
+}
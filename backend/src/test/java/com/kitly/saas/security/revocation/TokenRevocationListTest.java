@@ -0,0 +1,164 @@
+package com.kitly.saas.security.revocation;
+
+import com.kitly.saas.entity.TokenRevocation;
+import com.kitly.saas.repository.TokenRevocationRepository;
+import com.kitly.saas.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    @Mock
+    private TokenRevocationRepository repository;
+
+    private TokenRevocationList revocationList;
+
+    private final UUID tenantId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList(repository, 1000, 0.001, 10000);
+    }
+
+    @Test
+    void isRevoked_NothingRevoked_ReturnsFalse() {
+        assertFalse(revocationList.isRevoked(token("jti-1", "alice", tenantId, new Date())));
+    }
+
+    @Test
+    void isRevoked_RevokedJti_ReturnsTrueOnlyForThatToken() {
+        revocationList.apply(TokenRevocation.builder()
+                .jti("jti-1")
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build());
+
+        assertTrue(revocationList.isRevoked(token("jti-1", "alice", tenantId, new Date())));
+        assertFalse(revocationList.isRevoked(token("jti-2", "alice", tenantId, new Date())));
+    }
+
+    @Test
+    void isRevoked_UserTenantRevoked_AffectsOnlyTokensIssuedBefore() {
+        LocalDateTime revokedAt = LocalDateTime.now();
+        revocationList.apply(TokenRevocation.builder()
+                .username("alice")
+                .tenantId(tenantId)
+                .revokedBefore(revokedAt)
+                .expiresAt(revokedAt.plusHours(1))
+                .build());
+
+        Date before = new Date(System.currentTimeMillis() - 60000);
+        Date after = new Date(System.currentTimeMillis() + 60000);
+        assertTrue(revocationList.isRevoked(token("jti-1", "alice", tenantId, before)));
+        assertFalse(revocationList.isRevoked(token("jti-2", "alice", tenantId, after)));
+        assertFalse(revocationList.isRevoked(token("jti-3", "alice", UUID.randomUUID(), before)));
+        assertFalse(revocationList.isRevoked(token("jti-4", "bob", tenantId, before)));
+    }
+
+    @Test
+    void isRevoked_TokenIssuedEarlierInSameSecondAsRevocation_IsRevoked() {
+        LocalDateTime revokedAt = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 700_000_000);
+        revocationList.apply(TokenRevocation.builder()
+                .username("alice")
+                .tenantId(tenantId)
+                .revokedBefore(revokedAt)
+                .expiresAt(revokedAt.plusHours(1))
+                .build());
+
+        // A token issued at 12:00:00.300 carries iat 12:00:00, which is all there is to compare
+        long revokedMillis = revokedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Date sameSecond = new Date(revokedMillis - 700);
+        Date nextSecond = new Date(revokedMillis + 300);
+        assertTrue(revocationList.isRevoked(token("jti-1", "alice", tenantId, sameSecond)));
+        assertFalse(revocationList.isRevoked(token("jti-2", "alice", tenantId, nextSecond)));
+    }
+
+    @Test
+    void isRevoked_UserRevokedInAllTenants_AffectsEveryTenant() {
+        revocationList.apply(TokenRevocation.builder()
+                .username("alice")
+                .revokedBefore(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build());
+
+        Date before = new Date(System.currentTimeMillis() - 60000);
+        assertTrue(revocationList.isRevoked(token("jti-1", "alice", tenantId, before)));
+        assertTrue(revocationList.isRevoked(token("jti-2", "alice", UUID.randomUUID(), before)));
+    }
+
+    @Test
+    void refresh_FirstRunLoadsAllThenIncremental() {
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(TokenRevocation.builder()
+                .jti("jti-1")
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build()));
+        revocationList.refresh();
+
+        when(repository.findByCreatedAtAfterAndExpiresAtAfter(any(), any())).thenReturn(List.of(TokenRevocation.builder()
+                .jti("jti-2")
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build()));
+        revocationList.refresh();
+
+        assertTrue(revocationList.isRevoked(token("jti-1", "alice", tenantId, new Date())));
+        assertTrue(revocationList.isRevoked(token("jti-2", "alice", tenantId, new Date())));
+        assertEquals(2, revocationList.size());
+    }
+
+    @Test
+    void rebuild_DropsRevocationsNoLongerInTable() {
+        revocationList.apply(TokenRevocation.builder()
+                .jti("jti-1")
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build());
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of());
+
+        revocationList.rebuild();
+
+        assertFalse(revocationList.isRevoked(token("jti-1", "alice", tenantId, new Date())));
+        assertEquals(0, revocationList.size());
+    }
+
+    @Test
+    void bloomFilter_NoFalseNegativesAndLowFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put(BloomFilter.hash("jti-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain(BloomFilter.hash("jti-" + i)));
+            if (filter.mightContain(BloomFilter.hash("other-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    private VerifiedToken token(String jti, String subject, UUID tenantId, Date issuedAt) {
+        Claims claims = Jwts.claims()
+                .id(jti)
+                .subject(subject)
+                .issuedAt(issuedAt)
+                .expiration(new Date(System.currentTimeMillis() + 900000))
+                .add("tid", tenantId.toString())
+                .build();
+        return VerifiedToken.of("token", claims);
+    }
+}
@@ -1,18 +1,25 @@
 package com.kitly.saas.service;
 
 import com.kitly.saas.common.exception.BadRequestException;
+import com.kitly.saas.common.exception.NoActiveSubscriptionException;
 import com.kitly.saas.common.exception.ResourceNotFoundException;
 import com.kitly.saas.common.exception.UnauthorizedException;
 import com.kitly.saas.dto.CurrentSessionResponse;
 import com.kitly.saas.dto.RefreshTokenResponse;
 import com.kitly.saas.dto.SessionResponse;
 import com.kitly.saas.dto.SwitchTenantRequest;
+import com.kitly.saas.entitlement.CompiledEntitlements;
+import com.kitly.saas.entitlement.EntitlementClaimCodec;
+import com.kitly.saas.entitlement.EntitlementSnapshotCache;
 import com.kitly.saas.entity.*;
 import com.kitly.saas.repository.EntitlementVersionRepository;
 import com.kitly.saas.repository.MembershipRepository;
 import com.kitly.saas.repository.TenantRepository;
 import com.kitly.saas.repository.UserRepository;
 import com.kitly.saas.security.JwtUtil;
+import com.kitly.saas.security.VerifiedToken;
+import io.jsonwebtoken.ClaimsBuilder;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +29,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -48,6 +56,12 @@ class SessionServiceTest {
     @Mock
     private JwtUtil jwtUtil;
     
+    @Mock
+    private EntitlementSnapshotCache entitlementSnapshotCache;
+    
+    @Mock
+    private EntitlementClaimCodec entitlementClaimCodec;
+    
     @InjectMocks
     private SessionService sessionService;
     
@@ -105,7 +119,7 @@ class SessionServiceTest {
         when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(testTenant));
         when(entitlementVersionRepository.findByTenant(testTenant))
                 .thenReturn(Optional.of(testEntitlementVersion));
-        when(jwtUtil.generateTenantToken("testuser", tenantId, List.of("MEMBER"), 5L))
+        when(jwtUtil.generateTenantToken("testuser", tenantId, List.of("MEMBER"), 5L, null))
                 .thenReturn(token);
         
         // Act
@@ -121,7 +135,50 @@ class SessionServiceTest {
         assertThat(response.getEntitlementVersion()).isEqualTo(5L);
         assertThat(response.getExpiresIn()).isEqualTo(900000L);
         
-        verify(jwtUtil).generateTenantToken("testuser", tenantId, List.of("MEMBER"), 5L);
+        verify(jwtUtil).generateTenantToken("testuser", tenantId, List.of("MEMBER"), 5L, null);
+    }
+    
+    @Test
+    void switchTenant_EntitlementsClaimEnabled_EmbedsEncodedSnapshot() {
+        ReflectionTestUtils.setField(sessionService, "entitlementsClaimEnabled", true);
+        CompiledEntitlements compiled = CompiledEntitlements.compile(5L, List.of());
+        Map<String, Object> claim = Map.of("cv", 3L, "f", "AQ", "l", "Ag");
+        
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByTenantIdAndUserId(tenantId, userId))
+                .thenReturn(Optional.of(testMembership));
+        when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(testTenant));
+        when(entitlementVersionRepository.findByTenant(testTenant))
+                .thenReturn(Optional.of(testEntitlementVersion));
+        when(entitlementSnapshotCache.getCompiled(tenantId, 5L)).thenReturn(compiled);
+        when(entitlementClaimCodec.encode(compiled)).thenReturn(claim);
+        when(jwtUtil.generateTenantToken("testuser", tenantId, List.of("MEMBER"), 5L, claim))
+                .thenReturn("token-with-entitlements");
+        
+        SessionResponse response = sessionService.switchTenant(new SwitchTenantRequest(tenantId), "testuser");
+        
+        assertThat(response.getToken()).isEqualTo("token-with-entitlements");
+    }
+    
+    @Test
+    void switchTenant_NoActiveSubscription_OmitsEntitlementsClaim() {
+        ReflectionTestUtils.setField(sessionService, "entitlementsClaimEnabled", true);
+        
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(membershipRepository.findByTenantIdAndUserId(tenantId, userId))
+                .thenReturn(Optional.of(testMembership));
+        when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(testTenant));
+        when(entitlementVersionRepository.findByTenant(testTenant))
+                .thenReturn(Optional.of(testEntitlementVersion));
+        when(entitlementSnapshotCache.getCompiled(tenantId, 5L))
+                .thenThrow(new NoActiveSubscriptionException(tenantId));
+        when(jwtUtil.generateTenantToken("testuser", tenantId, List.of("MEMBER"), 5L, null))
+                .thenReturn("token-without-entitlements");
+        
+        SessionResponse response = sessionService.switchTenant(new SwitchTenantRequest(tenantId), "testuser");
+        
+        assertThat(response.getToken()).isEqualTo("token-without-entitlements");
+        verifyNoInteractions(entitlementClaimCodec);
     }
     
     @Test
@@ -190,16 +247,14 @@ class SessionServiceTest {
         String newToken = "new-token";
         List<String> roles = List.of("ADMIN");
         
-        when(jwtUtil.extractTenantId(oldToken)).thenReturn(tenantId);
-        when(jwtUtil.extractRoles(oldToken)).thenReturn(roles);
-        when(jwtUtil.extractEntitlementVersion(oldToken)).thenReturn(5L);
+        when(jwtUtil.verify(oldToken)).thenReturn(verifiedToken(oldToken, tenantId, roles, 5L));
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
         when(membershipRepository.findByTenantIdAndUserId(tenantId, userId))
                 .thenReturn(Optional.of(testMembership));
         when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(testTenant));
         when(entitlementVersionRepository.findByTenant(testTenant))
                 .thenReturn(Optional.of(testEntitlementVersion));
-        when(jwtUtil.generateTenantToken("testuser", tenantId, roles, 5L))
+        when(jwtUtil.generateTenantToken("testuser", tenantId, roles, 5L, null))
                 .thenReturn(newToken);
         
         // Act
@@ -216,7 +271,7 @@ class SessionServiceTest {
     void refreshSession_NoTenantContext_ThrowsException() {
         // Arrange
         String token = "token-without-tenant";
-        when(jwtUtil.extractTenantId(token)).thenReturn(null);
+        when(jwtUtil.verify(token)).thenReturn(verifiedToken(token, null, List.of(), null));
         
         // Act & Assert
         assertThatThrownBy(() -> sessionService.refreshSession(token, "testuser"))
@@ -230,9 +285,7 @@ class SessionServiceTest {
         String token = "current-token";
         List<String> roles = List.of("OWNER");
         
-        when(jwtUtil.extractTenantId(token)).thenReturn(tenantId);
-        when(jwtUtil.extractRoles(token)).thenReturn(roles);
-        when(jwtUtil.extractEntitlementVersion(token)).thenReturn(5L);
+        when(jwtUtil.verify(token)).thenReturn(verifiedToken(token, tenantId, roles, 5L));
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
         when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(testTenant));
         
@@ -254,9 +307,7 @@ class SessionServiceTest {
         // Arrange
         String token = "user-only-token";
         
-        when(jwtUtil.extractTenantId(token)).thenReturn(null);
-        when(jwtUtil.extractRoles(token)).thenReturn(List.of());
-        when(jwtUtil.extractEntitlementVersion(token)).thenReturn(null);
+        when(jwtUtil.verify(token)).thenReturn(verifiedToken(token, null, List.of(), null));
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
         
         // Act
@@ -269,4 +320,17 @@ class SessionServiceTest {
         assertThat(response.getTenantId()).isNull();
         assertThat(response.getTenantName()).isNull();
     }
+    
+    private VerifiedToken verifiedToken(String token, UUID tenantId, List<String> roles, Long entitlementVersion) {
+        ClaimsBuilder claims = Jwts.claims()
+                .subject("testuser")
+                .add("roles", roles);
+        if (tenantId != null) {
+            claims.add("tid", tenantId.toString());
+        }
+        if (entitlementVersion != null) {
+            claims.add("ent_v", entitlementVersion);
+        }
+        return VerifiedToken.of(token, claims.build());
+    }
 }